@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link ActualValueInference}, both directly and as part of a failing assertion,
+ * which is where Truth calls it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActualValueInferenceBenchmark {
+  private final ImmutableList<String> actual = ImmutableList.of("a", "b", "c");
+
+  private StackTraceElement assertionSite;
+
+  @Setup
+  public void setUp() {
+    // After cleaning, the top frame of the failure is the assertion itself.
+    assertionSite = failingAssertion().getStackTrace()[0];
+  }
+
+  @Benchmark
+  public String describeActualValue() {
+    return ActualValueInference.describeActualValue(
+        assertionSite.getClassName(),
+        assertionSite.getMethodName(),
+        assertionSite.getLineNumber());
+  }
+
+  @Benchmark
+  public AssertionError failingAssertion() {
+    try {
+      assertThat(actual).containsExactly("a", "b", "d");
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertAbout;
+
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for a passing assertion that walks a chain of nested objects with {@code
+ * check(...).about(...).that(...)}, as custom subjects for nested domain objects do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChainedSubjectBenchmark {
+  @Param({"1", "10", "30"})
+  int depth;
+
+  private Node root;
+
+  @Setup
+  public void setUp() {
+    root = new Node(null);
+    for (int i = 0; i < depth; i++) {
+      root = new Node(root);
+    }
+  }
+
+  @Benchmark
+  public void leafIsLeaf() {
+    assertAbout(NodeSubject::new).that(root).leafIsLeaf();
+  }
+
+  private static final class Node {
+    final @Nullable Node child;
+
+    Node(@Nullable Node child) {
+      this.child = child;
+    }
+  }
+
+  private static final class NodeSubject extends Subject {
+    private final Node actual;
+
+    NodeSubject(FailureMetadata metadata, Node actual) {
+      super(metadata, actual);
+      this.actual = actual;
+    }
+
+    void leafIsLeaf() {
+      if (actual.child == null) {
+        check("child").that(actual.child).isNull();
+      } else {
+        check("child").about(NodeSubject::new).that(actual.child).leafIsLeaf();
+      }
+    }
+  }
+}
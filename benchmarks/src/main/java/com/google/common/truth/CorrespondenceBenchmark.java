@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link Correspondence}-based element pairing behind {@link
+ * IterableSubject.UsingCorrespondence#containsExactlyElementsIn}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorrespondenceBenchmark {
+  private static final Correspondence<String, Integer> PARSES_TO =
+      Correspondence.from(
+          new Correspondence.BinaryPredicate<String, Integer>() {
+            @Override
+            public boolean apply(String actual, Integer expected) {
+              return Integer.parseInt(actual) == expected;
+            }
+          },
+          "parses to");
+
+  private static final Correspondence<Number, Number> WITHIN_HALF = Correspondence.tolerance(0.5);
+
+  @Param({"10", "100", "1000"})
+  int size;
+
+  private List<Integer> expectedInts;
+  private List<String> actualStrings;
+  private List<String> actualStringsOneWrong;
+  private List<Double> expectedDoubles;
+  private List<Double> actualDoubles;
+  private List<Double> actualDoublesOneWrong;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    expectedInts = new ArrayList<>(size);
+    expectedDoubles = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      expectedInts.add(i);
+      expectedDoubles.add((double) i);
+    }
+
+    actualStrings = new ArrayList<>(size);
+    actualDoubles = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      actualStrings.add(Integer.toString(i));
+      actualDoubles.add(i + random.nextDouble() * 0.4 - 0.2);
+    }
+    Collections.shuffle(actualStrings, random);
+    Collections.shuffle(actualDoubles, random);
+
+    actualStringsOneWrong = new ArrayList<>(actualStrings);
+    actualStringsOneWrong.set(size / 2, "-1");
+    actualDoublesOneWrong = new ArrayList<>(actualDoubles);
+    actualDoublesOneWrong.set(size / 2, -1.0);
+  }
+
+  @Benchmark
+  public void predicate_pass() {
+    assertThat(actualStrings)
+        .comparingElementsUsing(PARSES_TO)
+        .containsExactlyElementsIn(expectedInts);
+  }
+
+  @Benchmark
+  public AssertionError predicate_fail() {
+    try {
+      assertThat(actualStringsOneWrong)
+          .comparingElementsUsing(PARSES_TO)
+          .containsExactlyElementsIn(expectedInts);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+
+  @Benchmark
+  public void tolerance_pass() {
+    assertThat(actualDoubles)
+        .comparingElementsUsing(WITHIN_HALF)
+        .containsExactlyElementsIn(expectedDoubles);
+  }
+
+  @Benchmark
+  public AssertionError tolerance_fail() {
+    try {
+      assertThat(actualDoublesOneWrong)
+          .comparingElementsUsing(WITHIN_HALF)
+          .containsExactlyElementsIn(expectedDoubles);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+}
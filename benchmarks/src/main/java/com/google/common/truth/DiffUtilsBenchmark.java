@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import com.google.common.base.Joiner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link DiffUtils} and for the multi-line string formatting in {@link
+ * ComparisonFailures} that is built on it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiffUtilsBenchmark {
+  private static final int EDITS = 10;
+
+  @Param({"100", "10000", "100000"})
+  int lines;
+
+  private List<String> original;
+  private List<String> revised;
+  private String originalString;
+  private String revisedString;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    original = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      original.add("line " + i);
+    }
+    revised = new ArrayList<>(original);
+    for (int i = 0; i < EDITS; i++) {
+      int index = random.nextInt(revised.size());
+      switch (random.nextInt(3)) {
+        case 0:
+          revised.remove(index);
+          break;
+        case 1:
+          revised.add(index, "inserted " + i);
+          break;
+        default:
+          revised.set(index, "changed " + i);
+          break;
+      }
+    }
+    originalString = Joiner.on('\n').join(original);
+    revisedString = Joiner.on('\n').join(revised);
+  }
+
+  @Benchmark
+  public List<String> generateUnifiedDiff() {
+    return DiffUtils.generateUnifiedDiff(original, revised, /* contextSize= */ 3);
+  }
+
+  @Benchmark
+  public List<Fact> formatExpectedAndActual() {
+    return ComparisonFailures.formatExpectedAndActual(originalString, revisedString);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for {@link IterableSubject#containsExactlyElementsIn}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IterableSubjectBenchmark {
+  @Param({"10", "1000", "100000"})
+  int size;
+
+  private List<String> expected;
+  private List<String> sameOrder;
+  private List<String> shuffled;
+  private List<String> oneMissing;
+
+  @Setup
+  public void setUp() {
+    expected = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      expected.add("element" + i);
+    }
+    sameOrder = new ArrayList<>(expected);
+    shuffled = new ArrayList<>(expected);
+    Collections.shuffle(shuffled, new Random(0));
+    oneMissing = new ArrayList<>(shuffled);
+    oneMissing.set(size / 2, "unexpected");
+  }
+
+  @Benchmark
+  public void containsExactly_pass_inOrder() {
+    assertThat(sameOrder).containsExactlyElementsIn(expected).inOrder();
+  }
+
+  @Benchmark
+  public void containsExactly_pass_outOfOrder() {
+    assertThat(shuffled).containsExactlyElementsIn(expected);
+  }
+
+  @Benchmark
+  public AssertionError containsExactly_fail_inOrder() {
+    Ordered ordered = assertThat(shuffled).containsExactlyElementsIn(expected);
+    try {
+      ordered.inOrder();
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+
+  @Benchmark
+  public AssertionError containsExactly_fail_missingAndUnexpected() {
+    try {
+      assertThat(oneMissing).containsExactlyElementsIn(expected);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+}
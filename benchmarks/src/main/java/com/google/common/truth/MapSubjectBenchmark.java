@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for {@link MapSubject#containsExactlyEntriesIn}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapSubjectBenchmark {
+  @Param({"10", "1000", "100000"})
+  int size;
+
+  private Map<String, Integer> expected;
+  private Map<String, Integer> sameOrder;
+  private Map<String, Integer> shuffled;
+  private Map<String, Integer> oneWrongValue;
+  private Map<String, Integer> allWrongValues;
+  private Map<String, Integer> halfMissingHalfUnexpected;
+
+  @Setup
+  public void setUp() {
+    expected = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      expected.put("key" + i, i);
+    }
+    sameOrder = new LinkedHashMap<>(expected);
+    List<String> keys = new ArrayList<>(expected.keySet());
+    Collections.shuffle(keys, new Random(0));
+    shuffled = new LinkedHashMap<>();
+    for (String key : keys) {
+      shuffled.put(key, expected.get(key));
+    }
+    oneWrongValue = new LinkedHashMap<>(shuffled);
+    oneWrongValue.put("key" + size / 2, -1);
+    allWrongValues = new LinkedHashMap<>();
+    for (String key : keys) {
+      allWrongValues.put(key, -1);
+    }
+    halfMissingHalfUnexpected = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      halfMissingHalfUnexpected.put(i % 2 == 0 ? "key" + i : "other" + i, i);
+    }
+  }
+
+  @Benchmark
+  public void containsExactlyEntriesIn_pass_inOrder() {
+    assertThat(sameOrder).containsExactlyEntriesIn(expected).inOrder();
+  }
+
+  @Benchmark
+  public void containsExactlyEntriesIn_pass_outOfOrder() {
+    assertThat(shuffled).containsExactlyEntriesIn(expected);
+  }
+
+  @Benchmark
+  public AssertionError containsExactlyEntriesIn_fail_inOrder() {
+    Ordered ordered = assertThat(shuffled).containsExactlyEntriesIn(expected);
+    try {
+      ordered.inOrder();
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+
+  @Benchmark
+  public AssertionError containsExactlyEntriesIn_fail_wrongValue() {
+    try {
+      assertThat(oneWrongValue).containsExactlyEntriesIn(expected);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+
+  @Benchmark
+  public AssertionError containsExactlyEntriesIn_fail_allWrongValues() {
+    try {
+      assertThat(allWrongValues).containsExactlyEntriesIn(expected);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+
+  @Benchmark
+  public AssertionError containsExactlyEntriesIn_fail_missingAndUnexpected() {
+    try {
+      assertThat(halfMissingHalfUnexpected).containsExactlyEntriesIn(expected);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link MultimapSubject#containsExactlyEntriesIn}, with and without a value
+ * correspondence. Each key has {@link #VALUES_PER_KEY} values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultimapSubjectBenchmark {
+  private static final int VALUES_PER_KEY = 10;
+
+  private static final Correspondence<Integer, Integer> EQUALITY =
+      Correspondence.from((Integer actual, Integer expected) -> actual.equals(expected), "equals");
+
+  @Param({"10", "100", "1000"})
+  int size;
+
+  private ListMultimap<String, Integer> expected;
+  private ListMultimap<String, Integer> sameOrder;
+  private ListMultimap<String, Integer> shuffled;
+  private ListMultimap<String, Integer> oneWrongValue;
+
+  @Setup
+  public void setUp() {
+    expected = LinkedListMultimap.create();
+    for (int i = 0; i < size; i++) {
+      expected.put("key" + i / VALUES_PER_KEY, i);
+    }
+    sameOrder = LinkedListMultimap.create(expected);
+    List<Map.Entry<String, Integer>> entries = new ArrayList<>(expected.entries());
+    Collections.shuffle(entries, new Random(0));
+    shuffled = LinkedListMultimap.create();
+    for (Map.Entry<String, Integer> entry : entries) {
+      shuffled.put(entry.getKey(), entry.getValue());
+    }
+    oneWrongValue = LinkedListMultimap.create(shuffled);
+    oneWrongValue.remove("key0", 0);
+    oneWrongValue.put("key0", -1);
+  }
+
+  @Benchmark
+  public void containsExactlyEntriesIn_pass_inOrder() {
+    assertThat(sameOrder).containsExactlyEntriesIn(expected).inOrder();
+  }
+
+  @Benchmark
+  public void containsExactlyEntriesIn_pass_outOfOrder() {
+    assertThat(shuffled).containsExactlyEntriesIn(expected);
+  }
+
+  @Benchmark
+  public AssertionError containsExactlyEntriesIn_fail_wrongValue() {
+    try {
+      assertThat(oneWrongValue).containsExactlyEntriesIn(expected);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+
+  @Benchmark
+  public void comparingValuesUsing_containsExactlyEntriesIn_pass_outOfOrder() {
+    assertThat(shuffled).comparingValuesUsing(EQUALITY).containsExactlyEntriesIn(expected);
+  }
+
+  @Benchmark
+  public AssertionError comparingValuesUsing_containsExactlyEntriesIn_fail_wrongValue() {
+    try {
+      assertThat(oneWrongValue).comparingValuesUsing(EQUALITY).containsExactlyEntriesIn(expected);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+}
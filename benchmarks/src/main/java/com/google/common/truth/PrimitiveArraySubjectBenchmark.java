@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.primitives.Ints;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for assertions about large primitive arrays. Passing assertions should neither box
+ * their elements nor build hash tables of them, and failing ones shouldn't format every element.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimitiveArraySubjectBenchmark {
+  @Param({"1000", "1000000"})
+  int size;
+
+  private int[] ints;
+  private int[] intsCopy;
+  private int[] intsWithOneDifference;
+  private int[] sortedInts;
+  private List<Integer> shuffledBoxedInts;
+  private double[] doubles;
+  private double[] doublesCopy;
+  private double[] reversedDoubles;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    ints = new int[size];
+    sortedInts = new int[size];
+    doubles = new double[size];
+    reversedDoubles = new double[size];
+    for (int i = 0; i < size; i++) {
+      ints[i] = random.nextInt();
+      sortedInts[i] = i;
+      doubles[i] = random.nextDouble();
+    }
+    intsCopy = ints.clone();
+    intsWithOneDifference = ints.clone();
+    intsWithOneDifference[size / 2]++;
+    doublesCopy = doubles.clone();
+    for (int i = 0; i < size; i++) {
+      reversedDoubles[i] = doubles[size - 1 - i];
+    }
+    // Boxed up front, since it's the actual array whose boxing we're interested in.
+    shuffledBoxedInts = new ArrayList<>(Ints.asList(ints));
+    Collections.shuffle(shuffledBoxedInts, random);
+  }
+
+  @Benchmark
+  public void intArray_isEqualTo() {
+    assertThat(ints).isEqualTo(intsCopy);
+  }
+
+  @Benchmark
+  public AssertionError intArray_isEqualTo_failure() {
+    try {
+      assertThat(ints).isEqualTo(intsWithOneDifference);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException();
+  }
+
+  @Benchmark
+  public void doubleArray_isEqualTo() {
+    assertThat(doubles).isEqualTo(doublesCopy);
+  }
+
+  @Benchmark
+  public void intArray_containsNoDuplicates() {
+    assertThat(sortedInts).asList().containsNoDuplicates();
+  }
+
+  @Benchmark
+  public void intArray_isInStrictOrder() {
+    assertThat(sortedInts).asList().isInStrictOrder();
+  }
+
+  @Benchmark
+  public void intArray_containsExactly() {
+    assertThat(ints).asList().containsExactlyElementsIn(shuffledBoxedInts);
+  }
+
+  @Benchmark
+  public void doubleArray_usingExactEquality_containsExactly() {
+    assertThat(doubles).usingExactEquality().containsExactly(reversedDoubles);
+  }
+
+  @Benchmark
+  public void doubleArray_usingExactEquality_containsAtLeast() {
+    assertThat(doubles).usingExactEquality().containsAtLeast(reversedDoubles);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for {@link StackTraceCleaner}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StackTraceCleanerBenchmark {
+  /** The number of frames between the assertion and the benchmark method. */
+  @Param({"10", "100", "1000"})
+  int depth;
+
+  private StackTraceElement[] stackTrace;
+
+  @Setup
+  public void setUp() {
+    List<StackTraceElement> frames = new ArrayList<>();
+    // The frames that a failing assertion would leave at the top of the trace.
+    frames.add(frame(Subject.class, "failWithActual"));
+    frames.add(frame(Subject.class, "isEqualTo"));
+    frames.add(frame(StandardSubjectBuilder.class, "that"));
+    frames.addAll(Arrays.asList(captureStackTrace(depth)));
+    stackTrace = frames.toArray(new StackTraceElement[0]);
+  }
+
+  @Benchmark
+  public Throwable cleanStackTrace() {
+    AssertionError failure = new AssertionError();
+    failure.setStackTrace(stackTrace);
+    StackTraceCleaner.cleanStackTrace(failure);
+    return failure;
+  }
+
+  private static StackTraceElement[] captureStackTrace(int depth) {
+    return depth == 0 ? new Throwable().getStackTrace() : captureStackTrace(depth - 1);
+  }
+
+  private static StackTraceElement frame(Class<?> clazz, String methodName) {
+    return new StackTraceElement(clazz.getName(), methodName, clazz.getSimpleName() + ".java", 1);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for passing {@link Subject#isEqualTo} assertions, including the creation of the
+ * subject. The interesting number here is the allocation rate, which should be zero once the JIT
+ * has had a chance to scalar-replace the subject.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubjectBenchmark {
+  // Non-final so that the JIT can't constant-fold the assertions away.
+  private Object object = new Object();
+  private String string = "a string";
+  private String equalString = new String("a string");
+  private Integer integer = 1_000_000;
+  private Long equalLong = 1_000_000L;
+  private Double aDouble = 0.5;
+  private Double equalDouble = 0.5;
+
+  @Benchmark
+  public void isEqualTo_sameInstance() {
+    assertThat(object).isEqualTo(object);
+  }
+
+  @Benchmark
+  public void isEqualTo_equalStrings() {
+    assertThat(string).isEqualTo(equalString);
+  }
+
+  @Benchmark
+  public void isEqualTo_integralTypes() {
+    assertThat(integer).isEqualTo(equalLong);
+  }
+
+  @Benchmark
+  public void isEqualTo_doubles() {
+    assertThat(aDouble).isEqualTo(equalDouble);
+  }
+
+  @Benchmark
+  public void isNull() {
+    assertThat((Object) null).isNull();
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth.extensions.proto;
+
+import static com.google.common.truth.extensions.proto.ProtoTruth.assertThat;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.ExtensionRegistry;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Option;
+import com.google.protobuf.Type;
+import com.google.protobuf.TypeRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link ProtoSubject#isEqualTo} on a repeated field whose elements hold {@link Any}
+ * messages, compared ignoring order. The elements all have the same name, so their fingerprints
+ * can't tell them apart, and matching them compares each element with many others.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnyMessageBenchmark {
+  private static final TypeRegistry TYPE_REGISTRY =
+      TypeRegistry.newBuilder().add(DescriptorProto.getDescriptor()).build();
+
+  /** The number of options, each of which packs a message type with a handful of fields. */
+  @Param({"10", "30", "100"})
+  int size;
+
+  private Type expected;
+  private Type shuffled;
+
+  @Setup
+  public void setUp() throws InvalidProtocolBufferException {
+    List<Option> options = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      options.add(Option.newBuilder().setName("o").setValue(Any.pack(messageType(i))).build());
+    }
+    expected = Type.newBuilder().setName("T").addAllOptions(options).build();
+
+    List<Option> shuffledOptions = new ArrayList<>(options);
+    Collections.shuffle(shuffledOptions, new Random(0));
+    // A distinct but equal instance of each element, so that we don't hit any identity shortcuts.
+    Type shuffledType = expected.toBuilder().clearOptions().addAllOptions(shuffledOptions).build();
+    shuffled = Type.parseFrom(shuffledType.toByteString());
+  }
+
+  @Benchmark
+  public void isEqualTo_pass_ignoringRepeatedFieldOrder() {
+    assertThat(shuffled)
+        .unpackingAnyUsing(TYPE_REGISTRY, ExtensionRegistry.getEmptyRegistry())
+        .ignoringRepeatedFieldOrder()
+        .isEqualTo(expected);
+  }
+
+  private static DescriptorProto messageType(int index) {
+    DescriptorProto.Builder messageType = DescriptorProto.newBuilder().setName("Message" + index);
+    for (int i = 0; i < 10; i++) {
+      messageType.addField(
+          FieldDescriptorProto.newBuilder()
+              .setName("field" + i)
+              .setNumber(i + 1)
+              .setType(FieldDescriptorProto.Type.TYPE_STRING));
+    }
+    return messageType.build();
+  }
+}
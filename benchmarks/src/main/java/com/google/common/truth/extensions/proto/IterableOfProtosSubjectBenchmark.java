@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth.extensions.proto;
+
+import static com.google.common.truth.extensions.proto.ProtoTruth.assertThat;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.MessageOptions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link IterableOfProtosSubject}.
+ *
+ * <p>With {@code comparingExpectedFieldsOnly()}, which builds a {@link FieldScope} from every
+ * expected message before comparing anything, the expected messages set only a few of the fields
+ * that the actual messages do, as is typical for that option.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IterableOfProtosSubjectBenchmark {
+  private static final int FIELDS_PER_MESSAGE = 10;
+
+  /** The number of messages in each list. */
+  @Param({"100", "1000", "10000"})
+  int size;
+
+  private List<DescriptorProto> actual;
+  private List<DescriptorProto> expected;
+  private List<DescriptorProto> reversedCopies;
+
+  @Setup
+  public void setUp() {
+    actual = new ArrayList<>(size);
+    expected = new ArrayList<>(size);
+    reversedCopies = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      DescriptorProto.Builder messageType =
+          DescriptorProto.newBuilder()
+              .setName("Message" + i)
+              .setOptions(MessageOptions.newBuilder().setDeprecated(i % 2 == 0));
+      for (int j = 0; j < FIELDS_PER_MESSAGE; j++) {
+        messageType.addField(
+            FieldDescriptorProto.newBuilder()
+                .setName("field" + j)
+                .setNumber(j + 1)
+                .setType(FieldDescriptorProto.Type.TYPE_STRING));
+      }
+      actual.add(messageType.build());
+      expected.add(DescriptorProto.newBuilder().setName("Message" + i).build());
+      // A distinct but equal instance, so that we don't hit any identity shortcuts.
+      reversedCopies.add(0, messageType.build());
+    }
+  }
+
+  @Benchmark
+  public void containsExactlyElementsIn_pass() {
+    assertThat(actual).ignoringFieldAbsence().containsExactlyElementsIn(reversedCopies);
+  }
+
+  @Benchmark
+  public void containsExactlyElementsIn_comparingExpectedFieldsOnly() {
+    assertThat(actual).comparingExpectedFieldsOnly().containsExactlyElementsIn(expected).inOrder();
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth.extensions.proto;
+
+import static com.google.common.truth.extensions.proto.LiteProtoTruth.assertThat;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.MessageLite;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for a failing {@link LiteProtoSubject#isEqualTo}, which has to describe how the
+ * messages differ. The messages are {@link FileDescriptorProto} instances viewed as {@link
+ * MessageLite}, as in {@link ProtoSubjectBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LiteProtoSubjectBenchmark {
+  private static final int FIELDS_PER_MESSAGE = 10;
+
+  /** The number of message types in the file, each of which has a handful of fields. */
+  @Param({"10", "100", "1000"})
+  int size;
+
+  private MessageLite expected;
+  private MessageLite oneFieldRenamed;
+
+  @Setup
+  public void setUp() {
+    FileDescriptorProto.Builder file = FileDescriptorProto.newBuilder().setName("f.proto");
+    for (int i = 0; i < size; i++) {
+      DescriptorProto.Builder messageType = file.addMessageTypeBuilder().setName("Message" + i);
+      for (int j = 0; j < FIELDS_PER_MESSAGE; j++) {
+        messageType.addField(
+            FieldDescriptorProto.newBuilder().setName("field" + j).setNumber(j + 1));
+      }
+    }
+    expected = file.build();
+    file.getMessageTypeBuilder(size / 2).getFieldBuilder(0).setName("renamed");
+    oneFieldRenamed = file.build();
+  }
+
+  @Benchmark
+  public AssertionError isEqualTo_fail() {
+    try {
+      assertThat(oneFieldRenamed).isEqualTo(expected);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+}
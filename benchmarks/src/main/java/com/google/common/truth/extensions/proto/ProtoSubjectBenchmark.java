@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.truth.extensions.proto;
+
+import static com.google.common.truth.extensions.proto.ProtoTruth.assertThat;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link ProtoSubject#isEqualTo}, with and without the fluent configuration options
+ * that affect how {@link ProtoTruthMessageDifferencer} walks the messages.
+ *
+ * <p>The messages are {@link FileDescriptorProto} instances, which have enough nesting and repeated
+ * fields to be representative without needing any generated test protos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProtoSubjectBenchmark {
+  private static final int FIELDS_PER_MESSAGE = 10;
+
+  /** The number of message types in the file, each of which has a handful of fields. */
+  @Param({"10", "100", "1000"})
+  int size;
+
+  private FileDescriptorProto expected;
+  private FileDescriptorProto equal;
+  private FileDescriptorProto differentJsonNames;
+  private FileDescriptorProto shuffled;
+  private FileDescriptorProto oneFieldRenamed;
+
+  @Setup
+  public void setUp() throws InvalidProtocolBufferException {
+    List<DescriptorProto> messageTypes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      messageTypes.add(messageType(i, /* jsonNamePrefix= */ "json"));
+    }
+    expected =
+        FileDescriptorProto.newBuilder().setName("f.proto").addAllMessageType(messageTypes).build();
+    // A distinct but equal instance, so that we don't hit any identity shortcuts.
+    equal = FileDescriptorProto.parseFrom(expected.toByteString());
+
+    List<DescriptorProto> otherJsonNames = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      otherJsonNames.add(messageType(i, /* jsonNamePrefix= */ "other"));
+    }
+    differentJsonNames =
+        expected.toBuilder().clearMessageType().addAllMessageType(otherJsonNames).build();
+
+    List<DescriptorProto> shuffledMessageTypes = new ArrayList<>(messageTypes);
+    Collections.shuffle(shuffledMessageTypes, new Random(0));
+    shuffled =
+        expected.toBuilder().clearMessageType().addAllMessageType(shuffledMessageTypes).build();
+
+    FileDescriptorProto.Builder renamed = expected.toBuilder();
+    renamed.getMessageTypeBuilder(size / 2).getFieldBuilder(0).setName("renamed");
+    oneFieldRenamed = renamed.build();
+  }
+
+  @Benchmark
+  public void isEqualTo_pass() {
+    assertThat(equal).isEqualTo(expected);
+  }
+
+  @Benchmark
+  public void isEqualTo_pass_ignoringFieldDescriptors() {
+    assertThat(differentJsonNames)
+        .ignoringFieldDescriptors(
+            FieldDescriptorProto.getDescriptor()
+                .findFieldByNumber(FieldDescriptorProto.JSON_NAME_FIELD_NUMBER))
+        .isEqualTo(expected);
+  }
+
+  @Benchmark
+  public void isEqualTo_pass_withFieldScope() {
+    assertThat(equal)
+        .withPartialScope(
+            FieldScopes.fromSetFields(FileDescriptorProto.newBuilder().setName("f.proto").build()))
+        .isEqualTo(expected);
+  }
+
+  @Benchmark
+  public void isEqualTo_pass_ignoringRepeatedFieldOrder() {
+    assertThat(shuffled).ignoringRepeatedFieldOrder().isEqualTo(expected);
+  }
+
+  @Benchmark
+  public AssertionError isEqualTo_fail() {
+    try {
+      assertThat(oneFieldRenamed).isEqualTo(expected);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+
+  @Benchmark
+  public AssertionError isEqualTo_fail_ignoringRepeatedFieldOrder() {
+    try {
+      assertThat(oneFieldRenamed).ignoringRepeatedFieldOrder().isEqualTo(shuffled);
+    } catch (AssertionError e) {
+      return e;
+    }
+    throw new IllegalStateException("assertion unexpectedly passed");
+  }
+
+  private static DescriptorProto messageType(int index, String jsonNamePrefix) {
+    DescriptorProto.Builder messageType = DescriptorProto.newBuilder().setName("Message" + index);
+    for (int i = 0; i < FIELDS_PER_MESSAGE; i++) {
+      messageType.addField(
+          FieldDescriptorProto.newBuilder()
+              .setName("field" + i)
+              .setNumber(i + 1)
+              .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL)
+              .setType(FieldDescriptorProto.Type.TYPE_STRING)
+              .setJsonName(jsonNamePrefix + i));
+    }
+    return messageType.build();
+  }
+}
@@ -59,6 +59,19 @@ abstract class AbstractArraySubject extends Subject {
     check("length").that(length()).isEqualTo(length);
   }
 
+  /**
+   * Returns a factory for subjects about a view of the array as a list, which can check some
+   * assertions directly against the given keys of its elements rather than boxing each element.
+   */
+  static Factory<IterableSubject, Iterable<?>> elementsOf(final PrimitiveArrayKeys keys) {
+    return new Factory<IterableSubject, Iterable<?>>() {
+      @Override
+      public IterableSubject createSubject(FailureMetadata metadata, Iterable<?> actual) {
+        return new IterableSubject(metadata, actual, keys);
+      }
+    };
+  }
+
   private int length() {
     return Array.getLength(actual);
   }
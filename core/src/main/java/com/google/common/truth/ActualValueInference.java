@@ -22,7 +22,13 @@ import static java.lang.Thread.currentThread;
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.AutoValue.CopyAnnotations;
 import com.google.common.annotations.GwtIncompatible;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
@@ -66,8 +72,89 @@ import org.objectweb.asm.Type;
  */
 @GwtIncompatible
 final class ActualValueInference {
+  /**
+   * The most methods whose actual values we remember per class loader. Each entry is small, and the
+   * limit is large enough to cover every test method that fails during a typical run of a test
+   * class.
+   */
+  private static final int MAX_CACHED_METHODS_PER_LOADER = 1000;
+
+  /**
+   * The actual values at each line of recently analyzed methods, so that repeated failures in the
+   * same method (as with {@link Expect}) don't require reading and analyzing the bytecode again.
+   *
+   * <p>The cache holds its class loaders weakly so that we don't prevent them from being unloaded.
+   * (The values refer only to our own classes, not to any classes from those loaders.)
+   */
+  private static final LoadingCache<
+          ClassLoader, Cache<MethodKey, ImmutableSetMultimap<Integer, StackEntry>>>
+      actualValuesAtLineByLoader =
+          CacheBuilder.newBuilder()
+              .weakKeys()
+              .build(
+                  new CacheLoader<
+                      ClassLoader, Cache<MethodKey, ImmutableSetMultimap<Integer, StackEntry>>>() {
+                    @Override
+                    public Cache<MethodKey, ImmutableSetMultimap<Integer, StackEntry>> load(
+                        ClassLoader loader) {
+                      return CacheBuilder.newBuilder()
+                          .maximumSize(MAX_CACHED_METHODS_PER_LOADER)
+                          .build();
+                    }
+                  });
+
   /** <b>Call {@link Platform#inferDescription} rather than calling this directly.</b> */
   static String describeActualValue(String className, String methodName, int lineNumber) {
+    ClassLoader loader = loader();
+    Cache<MethodKey, ImmutableSetMultimap<Integer, StackEntry>> cache =
+        actualValuesAtLineByLoader.getUnchecked(loader);
+    MethodKey key = MethodKey.create(className, methodName);
+    ImmutableSetMultimap<Integer, StackEntry> actualValueAtLine = cache.getIfPresent(key);
+    if (actualValueAtLine == null) {
+      actualValueAtLine = computeActualValueAtLine(loader, className, methodName);
+      if (actualValueAtLine == null) {
+        return null;
+      }
+      // If another thread analyzed the same method concurrently, we just overwrite its (equal)
+      // result.
+      cache.put(key, actualValueAtLine);
+    }
+
+    ImmutableSet<StackEntry> actualsAtLine = actualValueAtLine.get(lineNumber);
+    /*
+     * It's very unlikely that more than one assertion would happen on the same line _but with
+     * different root actual values_.
+     *
+     * That is, it's common to have:
+     * assertThat(list).containsExactly(...).inOrder();
+     *
+     * But it's not common to have, all on one line:
+     * assertThat(list).isEmpty(); assertThat(list2).containsExactly(...);
+     *
+     * In principle, we could try to distinguish further by looking at what assertion method
+     * failed (which our caller could pass us by looking higher on the stack). But it's hard to
+     * imagine that it would be worthwhile.
+     */
+    return actualsAtLine.size() == 1 ? getOnlyElement(actualsAtLine).description() : null;
+  }
+
+  /** Returns a snapshot of the cached methods of the loader that we'd use right now. */
+  @VisibleForTesting
+  static ImmutableMap<?, ?> cachedMethods() {
+    return ImmutableMap.copyOf(actualValuesAtLineByLoader.getUnchecked(loader()).asMap());
+  }
+
+  private static ClassLoader loader() {
+    return firstNonNull(
+        currentThread().getContextClassLoader(), ActualValueInference.class.getClassLoader());
+  }
+
+  /**
+   * Analyzes the bytecode of the given method, returning the actual values at each line, or {@code
+   * null} if the analysis failed in a way that might not happen on a later attempt.
+   */
+  private static ImmutableSetMultimap<Integer, StackEntry> computeActualValueAtLine(
+      ClassLoader loader, String className, String methodName) {
     InferenceClassVisitor visitor;
     try {
       // TODO(cpovirk): Verify that methodName is correct for constructors and static initializers.
@@ -78,9 +165,6 @@ final class ActualValueInference {
       return null;
     }
 
-    ClassLoader loader =
-        firstNonNull(
-            currentThread().getContextClassLoader(), ActualValueInference.class.getClassLoader());
     /*
      * We're assuming that classes were loaded in a simple way. In principle, we could do better
      * with java.lang.instrument.
@@ -90,29 +174,15 @@ final class ActualValueInference {
       stream = loader.getResourceAsStream(className.replace('.', '/') + ".class");
       // TODO(cpovirk): Disable inference if the bytecode version is newer than we've tested on?
       new ClassReader(stream).accept(visitor, /*parsingOptions=*/ 0);
-      ImmutableSet<StackEntry> actualsAtLine = visitor.actualValueAtLine.build().get(lineNumber);
-      /*
-       * It's very unlikely that more than one assertion would happen on the same line _but with
-       * different root actual values_.
-       *
-       * That is, it's common to have:
-       * assertThat(list).containsExactly(...).inOrder();
-       *
-       * But it's not common to have, all on one line:
-       * assertThat(list).isEmpty(); assertThat(list2).containsExactly(...);
-       *
-       * In principle, we could try to distinguish further by looking at what assertion method
-       * failed (which our caller could pass us by looking higher on the stack). But it's hard to
-       * imagine that it would be worthwhile.
-       */
-      return actualsAtLine.size() == 1 ? getOnlyElement(actualsAtLine).description() : null;
+      return visitor.actualValueAtLine.build();
     } catch (IOException e) {
       /*
        * Likely "Class not found," perhaps from generated bytecode (or from StackTraceCleaner's
-       * pseudo-frames, which ideally ActualValueInference would tell it not to create).
+       * pseudo-frames, which ideally ActualValueInference would tell it not to create). Trying
+       * again won't help, so we remember that we know nothing about this method.
        */
       // TODO(cpovirk): Log a warning?
-      return null;
+      return ImmutableSetMultimap.of();
     } catch (SecurityException e) {
       // Inside Google, some tests run under a security manager that forbids filesystem access.
       // TODO(cpovirk): Log a warning?
@@ -122,6 +192,20 @@ final class ActualValueInference {
     }
   }
 
+  /** The class and name of a method whose actual values we've cached. */
+  @AutoValue
+  @CopyAnnotations
+  @GwtIncompatible
+  abstract static class MethodKey {
+    static MethodKey create(String className, String methodName) {
+      return new AutoValue_ActualValueInference_MethodKey(className, methodName);
+    }
+
+    abstract String className();
+
+    abstract String methodName();
+  }
+
   /**
    * An entry on the stack (or the local-variable table) with a {@linkplain InferredType type} and
    * sometimes a description of {@linkplain DescribedEntry how the value was produced} or, as a
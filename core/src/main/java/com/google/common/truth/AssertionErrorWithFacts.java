@@ -27,14 +27,26 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  */
 @SuppressWarnings("OverrideThrowableToString") // We intentionally hide the class name.
 final class AssertionErrorWithFacts extends AssertionError implements ErrorWithFacts {
+  private final ImmutableList<String> messages;
   private final ImmutableList<Fact> facts;
 
+  /**
+   * The message, built the first time it's requested. Some failures are never displayed, like those
+   * that {@link ExpectFailure} checks only the facts of, and those that an {@link Expect} with a
+   * limit on the number of failures suppresses.
+   *
+   * <p>Building it late is safe because {@link FailureMetadata} has already rendered the facts to
+   * strings by the time it creates this error. So even when {@link Expect} reports the failure
+   * only at the end of the test, the message shows the values from the time of the failure.
+   */
+  private @Nullable String message;
+
   /** Separate cause field, in case initCause() fails. */
   private final @Nullable Throwable cause;
 
   AssertionErrorWithFacts(
       ImmutableList<String> messages, ImmutableList<Fact> facts, @Nullable Throwable cause) {
-    super(makeMessage(messages, facts));
+    this.messages = checkNotNull(messages);
     this.facts = checkNotNull(facts);
 
     this.cause = cause;
@@ -45,6 +57,16 @@ final class AssertionErrorWithFacts extends AssertionError implements ErrorWithF
     }
   }
 
+  @Override
+  public String getMessage() {
+    // Racy single-check: Strings are immutable, so at worst we build the message more than once.
+    String result = message;
+    if (result == null) {
+      message = result = makeMessage(messages, facts);
+    }
+    return result;
+  }
+
   @Override
   @SuppressWarnings("UnsynchronizedOverridesSynchronized")
   public Throwable getCause() {
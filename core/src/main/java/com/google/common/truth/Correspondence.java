@@ -267,6 +267,11 @@ public abstract class Correspondence<A, E> {
     public String toString() {
       return description;
     }
+
+    @Override
+    @Nullable KeyFunctions<A, E> keyFunctions() {
+      return KeyFunctions.<A, E>determiningCorrespondence(actualTransform, expectedTransform);
+    }
   }
 
   /**
@@ -310,6 +315,11 @@ public abstract class Correspondence<A, E> {
     public String toString() {
       return "is a finite number within " + tolerance + " of";
     }
+
+    @Override
+    @Nullable Double numericTolerance() {
+      return tolerance;
+    }
   }
 
   /**
@@ -342,6 +352,11 @@ public abstract class Correspondence<A, E> {
     boolean isEquality() {
       return true;
     }
+
+    @Override
+    @Nullable KeyFunctions<T, T> keyFunctions() {
+      return KeyFunctions.<T, T>determiningCorrespondence(identity(), identity());
+    }
   }
 
   /**
@@ -434,6 +449,139 @@ public abstract class Correspondence<A, E> {
     boolean isEquality() {
       return delegate.isEquality();
     }
+
+    @Override
+    @Nullable KeyFunctions<A, E> keyFunctions() {
+      return delegate.keyFunctions();
+    }
+
+    @Override
+    @Nullable Double numericTolerance() {
+      return delegate.numericTolerance();
+    }
+  }
+
+  /**
+   * Returns a new correspondence which is like this one, except that assertions may use the given
+   * key functions to find candidate pairs of actual and expected elements without calling {@link
+   * #compare} for every pair. This can make assertions like {@link
+   * IterableSubject.UsingCorrespondence#containsExactlyElementsIn} much faster on large inputs.
+   *
+   * <p>The key functions must be consistent with {@link #compare}: Whenever {@code compare(actual,
+   * expected)} returns {@code true}, {@code actualKeyFunction.apply(actual)} must be equal to
+   * {@code expectedKeyFunction.apply(expected)} (and have the same hash code). The converse need
+   * not hold: Assertions still call {@link #compare} for pairs whose keys are equal. Keys may be
+   * null.
+   *
+   * <p>If a key function throws, assertions fall back to calling {@link #compare} for every pair,
+   * so any exceptions are reported as described there.
+   *
+   * <p>There is no need to call this on correspondences returned by {@link #transforming}, which
+   * already pair elements using their transformed values.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * static final Correspondence<MyRecord, MyRecord> EQUIVALENCE =
+   *     Correspondence.from(MyRecordTestHelper::recordsEquivalent, "is equivalent to")
+   *         .indexingUsing(MyRecord::getId, MyRecord::getId);
+   * }</pre>
+   */
+  public Correspondence<A, E> indexingUsing(
+      Function<? super A, ?> actualKeyFunction, Function<? super E, ?> expectedKeyFunction) {
+    return new Indexing<>(this, actualKeyFunction, expectedKeyFunction);
+  }
+
+  private static final class Indexing<A, E> extends Correspondence<A, E> {
+
+    private final Correspondence<A, E> delegate;
+    private final KeyFunctions<A, E> keyFunctions;
+
+    Indexing(
+        Correspondence<A, E> delegate,
+        Function<? super A, ?> actualKeyFunction,
+        Function<? super E, ?> expectedKeyFunction) {
+      this.delegate = checkNotNull(delegate);
+      this.keyFunctions =
+          KeyFunctions.<A, E>narrowingCandidates(actualKeyFunction, expectedKeyFunction);
+    }
+
+    @Override
+    public boolean compare(@Nullable A actual, @Nullable E expected) {
+      return delegate.compare(actual, expected);
+    }
+
+    @Override
+    public @Nullable String formatDiff(@Nullable A actual, @Nullable E expected) {
+      return delegate.formatDiff(actual, expected);
+    }
+
+    @Override
+    public String toString() {
+      return delegate.toString();
+    }
+
+    @Override
+    boolean isEquality() {
+      return delegate.isEquality();
+    }
+
+    @Override
+    KeyFunctions<A, E> keyFunctions() {
+      return keyFunctions;
+    }
+
+    @Override
+    @Nullable Double numericTolerance() {
+      return delegate.numericTolerance();
+    }
+  }
+
+  /**
+   * A pair of functions that compute keys for actual and expected values, such that values
+   * correspond only if their keys are equal. See {@link #indexingUsing}.
+   */
+  static final class KeyFunctions<A, E> {
+    /** Returns key functions whose keys are equal if and only if the values correspond. */
+    static <A, E> KeyFunctions<A, E> determiningCorrespondence(
+        Function<? super A, ?> actualKeyFunction, Function<? super E, ?> expectedKeyFunction) {
+      return new KeyFunctions<>(actualKeyFunction, expectedKeyFunction, true);
+    }
+
+    /** Returns key functions whose keys are equal if (but not only if) the values correspond. */
+    static <A, E> KeyFunctions<A, E> narrowingCandidates(
+        Function<? super A, ?> actualKeyFunction, Function<? super E, ?> expectedKeyFunction) {
+      return new KeyFunctions<>(actualKeyFunction, expectedKeyFunction, false);
+    }
+
+    private final Function<? super A, ?> actualKeyFunction;
+    private final Function<? super E, ?> expectedKeyFunction;
+    private final boolean keysDetermineCorrespondence;
+
+    private KeyFunctions(
+        Function<? super A, ?> actualKeyFunction,
+        Function<? super E, ?> expectedKeyFunction,
+        boolean keysDetermineCorrespondence) {
+      this.actualKeyFunction = checkNotNull(actualKeyFunction);
+      this.expectedKeyFunction = checkNotNull(expectedKeyFunction);
+      this.keysDetermineCorrespondence = keysDetermineCorrespondence;
+    }
+
+    @Nullable Object actualKey(@Nullable A actual) {
+      return actualKeyFunction.apply(actual);
+    }
+
+    @Nullable Object expectedKey(@Nullable E expected) {
+      return expectedKeyFunction.apply(expected);
+    }
+
+    /**
+     * Whether values with equal keys are known to correspond, so that there is no need to call
+     * {@link Correspondence#compare} on them.
+     */
+    boolean keysDetermineCorrespondence() {
+      return keysDetermineCorrespondence;
+    }
   }
 
   /**
@@ -568,6 +716,31 @@ public abstract class Correspondence<A, E> {
       this.argumentLabel = argumentLabel;
     }
 
+    /**
+     * Returns a new, empty store for the exceptions from some subset of the calls that would
+     * otherwise report to this one. Merge it back in with {@link #addAll}.
+     */
+    ExceptionStore newShard() {
+      return new ExceptionStore(argumentLabel);
+    }
+
+    /**
+     * Adds the exceptions from the given store as if they had been added to this one directly,
+     * after any already here. Merging shards in the order the calls would otherwise have been made
+     * therefore leaves this store exactly as it would have been.
+     */
+    void addAll(ExceptionStore shard) {
+      if (firstCompareException == null) {
+        firstCompareException = shard.firstCompareException;
+      }
+      if (firstPairingException == null) {
+        firstPairingException = shard.firstPairingException;
+      }
+      if (firstFormatDiffException == null) {
+        firstFormatDiffException = shard.firstFormatDiffException;
+      }
+    }
+
     /**
      * Adds an exception that was thrown during a {@code compare} call.
      *
@@ -789,6 +962,23 @@ public abstract class Correspondence<A, E> {
     return false;
   }
 
+  /**
+   * Returns the functions with which assertions can find candidate pairs of corresponding values by
+   * key, or null if they have to compare every pair. See {@link #indexingUsing}.
+   */
+  @Nullable KeyFunctions<A, E> keyFunctions() {
+    return null;
+  }
+
+  /**
+   * Returns the tolerance if this is a correspondence returned by {@link #tolerance}, which lets
+   * assertions match elements by sorting them rather than by comparing every pair, or null
+   * otherwise.
+   */
+  @Nullable Double numericTolerance() {
+    return null;
+  }
+
   /**
    * Returns a list of {@link Fact} instance describing how this correspondence compares elements of
    * an iterable. There will be one "testing whether" fact, unless this {@link #isEquality is an
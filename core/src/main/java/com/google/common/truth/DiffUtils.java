@@ -19,7 +19,7 @@ import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,9 +28,29 @@ import java.util.Map;
  * A custom implementation of the diff algorithm based on the solution described at
  * https://en.wikipedia.org/wiki/Longest_common_subsequence_problem
  *
+ * <p>Building the full table of longest common subsequences takes time and memory proportional to
+ * the product of the input sizes, so large inputs are first split into smaller regions using the
+ * linear-space algorithm described in "An O(ND) Difference Algorithm and Its Variations" by Eugene
+ * W. Myers. To keep huge, wildly different inputs from taking forever, the algorithm gives up after
+ * a bounded amount of work and reports each region that it hasn't yet diffed as a single block of
+ * removed lines followed by a single block of added lines.
+ *
  * @author Yun Peng (pcloudy@google.com)
  */
 final class DiffUtils {
+  /**
+   * The default bound on the number of steps the diff algorithm takes before it falls back to
+   * coarser output. This is enough for a precise diff of inputs with tens of thousands of lines, as
+   * long as only a few hundred of them differ.
+   */
+  static final long DEFAULT_MAX_WORK = 10_000_000;
+
+  /**
+   * The largest region (measured in cells of the table of longest common subsequences) that we diff
+   * directly, rather than splitting it first.
+   */
+  private static final long MAX_LCS_TABLE_SIZE = 1 << 20;
+
   // A list of unique strings appeared in compared texts.
   // The index of each string is its incremental Id.
   private final List<String> stringList = new ArrayList<>();
@@ -38,42 +58,37 @@ final class DiffUtils {
   private final Map<String, Integer> stringToId = new HashMap<>();
   private int[] original;
   private int[] revised;
-  // lcs[i][j] is the length of the longest common sequence of original[1..i] and revised[1..j].
-  private int[][] lcs;
+  // The number of steps the diff algorithm may still take before it falls back to coarser output.
+  private long remainingWork;
   private final List<Character> unifiedDiffType = new ArrayList<>();
   private final List<Integer> unifiedDiffContentId = new ArrayList<>();
   private final List<String> reducedUnifiedDiff = new ArrayList<>();
   private int offsetHead = 0;
   private int offsetTail = 0;
 
+  private DiffUtils(long maxWork) {
+    this.remainingWork = maxWork;
+  }
+
   private List<String> diff(
       List<String> originalLines, List<String> revisedLines, int contextSize) {
     reduceEqualLinesFromHeadAndTail(originalLines, revisedLines, contextSize);
     originalLines = originalLines.subList(offsetHead, originalLines.size() - offsetTail);
     revisedLines = revisedLines.subList(offsetHead, revisedLines.size() - offsetTail);
 
-    original = new int[originalLines.size() + 1];
-    revised = new int[revisedLines.size() + 1];
-    lcs = new int[originalLines.size() + 1][revisedLines.size() + 1];
+    original = new int[originalLines.size()];
+    revised = new int[revisedLines.size()];
 
     for (int i = 0; i < originalLines.size(); i++) {
-      original[i + 1] = getIdByLine(originalLines.get(i));
+      original[i] = getIdByLine(originalLines.get(i));
     }
     for (int i = 0; i < revisedLines.size(); i++) {
-      revised[i + 1] = getIdByLine(revisedLines.get(i));
+      revised[i] = getIdByLine(revisedLines.get(i));
     }
 
-    for (int i = 1; i < original.length; i++) {
-      for (int j = 1; j < revised.length; j++) {
-        if (original[i] == revised[j]) {
-          lcs[i][j] = lcs[i - 1][j - 1] + 1;
-        } else {
-          lcs[i][j] = max(lcs[i][j - 1], lcs[i - 1][j]);
-        }
-      }
-    }
+    calcUnifiedDiff(0, original.length, 0, revised.length);
 
-    calcUnifiedDiff(originalLines.size(), revisedLines.size());
+    groupRemovedLinesBeforeAddedLines();
 
     calcReducedUnifiedDiff(contextSize);
 
@@ -116,31 +131,252 @@ final class DiffUtils {
     offsetTail = tail;
   }
 
-  private void calcUnifiedDiff(int i, int j) {
+  /**
+   * Appends the diff of {@code original[originalStart, originalEnd)} and {@code revised[revisedStart,
+   * revisedEnd)} to {@link #unifiedDiffType} and {@link #unifiedDiffContentId}.
+   */
+  private void calcUnifiedDiff(int originalStart, int originalEnd, int revisedStart, int revisedEnd) {
+    long lcsTableSize = (originalEnd - originalStart + 1L) * (revisedEnd - revisedStart + 1L);
+    if (lcsTableSize <= MAX_LCS_TABLE_SIZE && lcsTableSize <= remainingWork) {
+      remainingWork -= lcsTableSize;
+      calcUnifiedDiffUsingLcsTable(originalStart, originalEnd, revisedStart, revisedEnd);
+      return;
+    }
+
+    while (originalStart < originalEnd
+        && revisedStart < revisedEnd
+        && original[originalStart] == revised[revisedStart]) {
+      addLine(' ', original[originalStart]);
+      originalStart++;
+      revisedStart++;
+    }
+    int commonSuffixStart = originalEnd;
+    while (originalStart < originalEnd
+        && revisedStart < revisedEnd
+        && original[originalEnd - 1] == revised[revisedEnd - 1]) {
+      originalEnd--;
+      revisedEnd--;
+    }
+
+    if (originalStart == originalEnd
+        || revisedStart == revisedEnd
+        || !bisect(originalStart, originalEnd, revisedStart, revisedEnd)) {
+      // Either the rest of the region is all additions or all removals, or we ran out of work. In
+      // the latter case, we report the rest of this region coarsely.
+      addLines('-', original, originalStart, originalEnd);
+      addLines('+', revised, revisedStart, revisedEnd);
+    }
+
+    addLines(' ', original, originalEnd, commonSuffixStart);
+  }
+
+  private void calcUnifiedDiffUsingLcsTable(
+      int originalStart, int originalEnd, int revisedStart, int revisedEnd) {
+    int originalLength = originalEnd - originalStart;
+    int revisedLength = revisedEnd - revisedStart;
+    // lcs[i][j] is the length of the longest common sequence of the first i lines of the original
+    // region and the first j lines of the revised region.
+    int[][] lcs = new int[originalLength + 1][revisedLength + 1];
+    for (int i = 1; i <= originalLength; i++) {
+      for (int j = 1; j <= revisedLength; j++) {
+        if (original[originalStart + i - 1] == revised[revisedStart + j - 1]) {
+          lcs[i][j] = lcs[i - 1][j - 1] + 1;
+        } else {
+          lcs[i][j] = max(lcs[i][j - 1], lcs[i - 1][j]);
+        }
+      }
+    }
+
+    List<Character> types = new ArrayList<>();
+    List<Integer> contentIds = new ArrayList<>();
+    int i = originalLength;
+    int j = revisedLength;
     while (i > 0 || j > 0) {
+      int originalId = i > 0 ? original[originalStart + i - 1] : -1;
+      int revisedId = j > 0 ? revised[revisedStart + j - 1] : -1;
       if (i > 0
           && j > 0
-          && original[i] == revised[j]
+          && originalId == revisedId
           // Make sure the diff output is identical to the diff command line tool when there are
           // multiple solutions.
           && lcs[i - 1][j - 1] + 1 > lcs[i - 1][j]
           && lcs[i - 1][j - 1] + 1 > lcs[i][j - 1]) {
-        unifiedDiffType.add(' ');
-        unifiedDiffContentId.add(original[i]);
+        types.add(' ');
+        contentIds.add(originalId);
         i--;
         j--;
       } else if (j > 0 && (i == 0 || lcs[i][j - 1] >= lcs[i - 1][j])) {
-        unifiedDiffType.add('+');
-        unifiedDiffContentId.add(revised[j]);
+        types.add('+');
+        contentIds.add(revisedId);
         j--;
       } else if (i > 0 && (j == 0 || lcs[i][j - 1] < lcs[i - 1][j])) {
-        unifiedDiffType.add('-');
-        unifiedDiffContentId.add(original[i]);
+        types.add('-');
+        contentIds.add(originalId);
         i--;
       }
     }
-    Collections.reverse(unifiedDiffType);
-    Collections.reverse(unifiedDiffContentId);
+    for (int k = types.size() - 1; k >= 0; k--) {
+      addLine(types.get(k), contentIds.get(k));
+    }
+  }
+
+  /**
+   * Finds the "middle snake" of an optimal path through the edit graph of the given regions, which
+   * must be non-empty and differ in their first and last lines, and then diffs the regions before
+   * and after it recursively. Returns false, having appended nothing, if doing so would exceed the
+   * remaining work.
+   */
+  private boolean bisect(int originalStart, int originalEnd, int revisedStart, int revisedEnd) {
+    int originalLength = originalEnd - originalStart;
+    int revisedLength = revisedEnd - revisedStart;
+    int maxD = (originalLength + revisedLength + 1) / 2;
+    int offset = maxD;
+    // forward[offset + k] is the furthest x reached so far on diagonal k (where y = x - k), going
+    // forward from the start. backward[offset + k] is the same, but going backward from the end.
+    int[] forward = new int[2 * maxD + 2];
+    int[] backward = new int[2 * maxD + 2];
+    Arrays.fill(forward, -1);
+    Arrays.fill(backward, -1);
+    forward[offset + 1] = 0;
+    backward[offset + 1] = 0;
+    int delta = originalLength - revisedLength;
+    // If the total number of lines is odd, the paths first overlap while going forward.
+    boolean checkOverlapGoingForward = (delta % 2 != 0);
+    // Diagonals that have run off the edge of the edit graph don't need to be explored further.
+    int forwardKStart = 0;
+    int forwardKEnd = 0;
+    int backwardKStart = 0;
+    int backwardKEnd = 0;
+    for (int d = 0; d <= maxD; d++) {
+      if (remainingWork <= 0) {
+        return false;
+      }
+
+      for (int k = -d + forwardKStart; k <= d - forwardKEnd; k += 2) {
+        int x;
+        if (k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])) {
+          x = forward[offset + k + 1];
+        } else {
+          x = forward[offset + k - 1] + 1;
+        }
+        int y = x - k;
+        while (x < originalLength
+            && y < revisedLength
+            && original[originalStart + x] == revised[revisedStart + y]) {
+          x++;
+          y++;
+          remainingWork--;
+        }
+        remainingWork--;
+        forward[offset + k] = x;
+        if (x > originalLength) {
+          forwardKEnd += 2;
+        } else if (y > revisedLength) {
+          forwardKStart += 2;
+        } else if (checkOverlapGoingForward) {
+          int backwardIndex = offset + delta - k;
+          if (backwardIndex >= 0
+              && backwardIndex < backward.length
+              && backward[backwardIndex] != -1
+              && x >= originalLength - backward[backwardIndex]) {
+            split(originalStart, originalEnd, revisedStart, revisedEnd, x, y);
+            return true;
+          }
+        }
+      }
+
+      for (int k = -d + backwardKStart; k <= d - backwardKEnd; k += 2) {
+        int x;
+        if (k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1])) {
+          x = backward[offset + k + 1];
+        } else {
+          x = backward[offset + k - 1] + 1;
+        }
+        int y = x - k;
+        while (x < originalLength
+            && y < revisedLength
+            && original[originalEnd - x - 1] == revised[revisedEnd - y - 1]) {
+          x++;
+          y++;
+          remainingWork--;
+        }
+        remainingWork--;
+        backward[offset + k] = x;
+        if (x > originalLength) {
+          backwardKEnd += 2;
+        } else if (y > revisedLength) {
+          backwardKStart += 2;
+        } else if (!checkOverlapGoingForward) {
+          int forwardIndex = offset + delta - k;
+          if (forwardIndex >= 0
+              && forwardIndex < forward.length
+              && forward[forwardIndex] != -1
+              && forward[forwardIndex] >= originalLength - x) {
+            int forwardX = forward[forwardIndex];
+            int forwardY = forwardX - (delta - k);
+            split(originalStart, originalEnd, revisedStart, revisedEnd, forwardX, forwardY);
+            return true;
+          }
+        }
+      }
+    }
+    // Unreachable: The paths always overlap by the time d reaches maxD.
+    return false;
+  }
+
+  private void split(
+      int originalStart, int originalEnd, int revisedStart, int revisedEnd, int x, int y) {
+    calcUnifiedDiff(originalStart, originalStart + x, revisedStart, revisedStart + y);
+    calcUnifiedDiff(originalStart + x, originalEnd, revisedStart + y, revisedEnd);
+  }
+
+  private void addLines(char type, int[] ids, int start, int end) {
+    for (int i = start; i < end; i++) {
+      addLine(type, ids[i]);
+    }
+  }
+
+  private void addLine(char type, int id) {
+    unifiedDiffType.add(type);
+    unifiedDiffContentId.add(id);
+  }
+
+  /**
+   * Reorders each run of consecutive removed and added lines so that all the removed lines come
+   * first. The algorithm may interleave them arbitrarily, but the diff command line tool always
+   * prints them this way.
+   */
+  private void groupRemovedLinesBeforeAddedLines() {
+    int runStart = 0;
+    while (runStart < unifiedDiffType.size()) {
+      if (unifiedDiffType.get(runStart).equals(' ')) {
+        runStart++;
+        continue;
+      }
+      int runEnd = runStart;
+      List<Integer> removed = new ArrayList<>();
+      List<Integer> added = new ArrayList<>();
+      while (runEnd < unifiedDiffType.size() && !unifiedDiffType.get(runEnd).equals(' ')) {
+        if (unifiedDiffType.get(runEnd).equals('-')) {
+          removed.add(unifiedDiffContentId.get(runEnd));
+        } else {
+          added.add(unifiedDiffContentId.get(runEnd));
+        }
+        runEnd++;
+      }
+      int next = runStart;
+      for (Integer id : removed) {
+        unifiedDiffType.set(next, '-');
+        unifiedDiffContentId.set(next, id);
+        next++;
+      }
+      for (Integer id : added) {
+        unifiedDiffType.set(next, '+');
+        unifiedDiffContentId.set(next, id);
+        next++;
+      }
+      runStart = runEnd;
+    }
   }
 
   /**
@@ -229,6 +465,15 @@ final class DiffUtils {
 
   static List<String> generateUnifiedDiff(
       List<String> original, List<String> revised, int contextSize) {
-    return new DiffUtils().diff(original, revised, contextSize);
+    return generateUnifiedDiff(original, revised, contextSize, DEFAULT_MAX_WORK);
+  }
+
+  /**
+   * Like {@link #generateUnifiedDiff(List, List, int)}, but falls back to coarser output after
+   * taking {@code maxWork} steps, rather than after the default number.
+   */
+  static List<String> generateUnifiedDiff(
+      List<String> original, List<String> revised, int contextSize, long maxWork) {
+    return new DiffUtils(maxWork).diff(original, revised, contextSize);
   }
 }
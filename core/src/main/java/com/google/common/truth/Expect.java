@@ -15,6 +15,7 @@
  */
 package com.google.common.truth;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.padStart;
@@ -23,6 +24,8 @@ import static com.google.common.base.Throwables.getStackTraceAsString;
 import static com.google.common.truth.Expect.TestPhase.AFTER;
 import static com.google.common.truth.Expect.TestPhase.BEFORE;
 import static com.google.common.truth.Expect.TestPhase.DURING;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.base.Throwables;
@@ -30,6 +33,9 @@ import com.google.common.truth.Truth.SimpleAssertionError;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.internal.AssumptionViolatedException;
 import org.junit.rules.ErrorCollector;
@@ -85,17 +91,34 @@ import org.junit.runners.model.Statement;
 public final class Expect extends StandardSubjectBuilder implements TestRule {
 
   private static final class ExpectationGatherer implements FailureStrategy {
-    @GuardedBy("this")
-    private final List<AssertionError> failures = new ArrayList<AssertionError>();
+    /*
+     * Tests may make assertions on the same Expect from many threads at once, so recording a
+     * failure doesn't lock anything. Instead, fail() checks the phase both before and after
+     * recording, and leaveRuleContext() moves to AFTER before reading the failures. So any failure
+     * that leaveRuleContext() might miss is one whose fail() call sees AFTER and throws.
+     */
+    private final Queue<AssertionError> failures = new ConcurrentLinkedQueue<>();
 
-    @GuardedBy("this")
-    private TestPhase inRuleContext = BEFORE;
+    /** The number of failures, including any beyond {@link #maxRecordedFailures}. */
+    private final AtomicInteger failureCount = new AtomicInteger();
+
+    private final int maxRecordedFailures;
 
-    ExpectationGatherer() {}
+    /** Written only under the lock, by {@link #enterRuleContext} and {@link #leaveRuleContext}. */
+    private volatile TestPhase inRuleContext = BEFORE;
+
+    ExpectationGatherer(int maxRecordedFailures) {
+      this.maxRecordedFailures = maxRecordedFailures;
+    }
 
     @Override
-    public synchronized void fail(AssertionError failure) {
-      record(failure);
+    public void fail(AssertionError failure) {
+      doCheckInRuleContext(failure);
+      if (failureCount.getAndIncrement() < maxRecordedFailures) {
+        failures.add(failure);
+      }
+      // The rule may have finished while we were recording, in which case it may not report this.
+      doCheckInRuleContext(failure);
     }
 
     synchronized void enterRuleContext() {
@@ -104,43 +127,42 @@ public final class Expect extends StandardSubjectBuilder implements TestRule {
     }
 
     synchronized void leaveRuleContext(@Nullable Throwable caught) throws Throwable {
-      try {
-        if (caught == null) {
-          doLeaveRuleContext();
-        } else {
-          doLeaveRuleContext(caught);
-        }
-        /*
-         * We'd like to check this even if an exception was thrown, but we don't want to override
-         * the "real" failure. TODO(cpovirk): Maybe attach as a suppressed exception once we require
-         * a newer version of Android.
-         */
-        checkState(inRuleContext == DURING);
-      } finally {
-        inRuleContext = AFTER;
+      TestPhase phase = inRuleContext;
+      inRuleContext = AFTER;
+      if (caught == null) {
+        doLeaveRuleContext();
+      } else {
+        doLeaveRuleContext(caught);
       }
+      /*
+       * We'd like to check this even if an exception was thrown, but we don't want to override the
+       * "real" failure. TODO(cpovirk): Maybe attach as a suppressed exception once we require a
+       * newer version of Android.
+       */
+      checkState(phase == DURING);
     }
 
-    synchronized void checkInRuleContext() {
+    void checkInRuleContext() {
       doCheckInRuleContext(null);
     }
 
-    synchronized boolean hasFailures() {
-      return !failures.isEmpty();
+    boolean hasFailures() {
+      return failureCount.get() > 0;
     }
 
     @Override
-    public synchronized String toString() {
-      if (failures.isEmpty()) {
+    public String toString() {
+      int numFailures = failureCount.get();
+      if (numFailures == 0) {
         return "No expectation failed.";
       }
-      int numFailures = failures.size();
+      List<AssertionError> recorded = new ArrayList<>(failures);
       StringBuilder message =
           new StringBuilder(
               numFailures + (numFailures > 1 ? " expectations" : " expectation") + " failed:\n");
-      int countLength = String.valueOf(failures.size() + 1).length();
+      int countLength = String.valueOf(recorded.size() + 1).length();
       int count = 0;
-      for (AssertionError failure : failures) {
+      for (AssertionError failure : recorded) {
         count++;
         message.append("  ");
         message.append(padStart(String.valueOf(count), countLength, ' '));
@@ -151,10 +173,20 @@ public final class Expect extends StandardSubjectBuilder implements TestRule {
           appendIndented(
               countLength,
               message,
-              printSubsequentFailure(failures.get(0).getStackTrace(), failure));
+              printSubsequentFailure(recorded.get(0).getStackTrace(), failure));
         }
         message.append("\n");
       }
+      /*
+       * fail() counts a failure before recording it, so a concurrent failure may be counted but not
+       * yet in the list. Only failures beyond maxRecordedFailures are suppressed, though, except
+       * that the exception that ended the test is recorded even beyond it.
+       */
+      int suppressed = numFailures - max(min(numFailures, maxRecordedFailures), recorded.size());
+      if (suppressed > 0) {
+        message.append("  (").append(suppressed).append(" more ");
+        message.append(suppressed > 1 ? "failures" : "failure").append(" suppressed)\n");
+      }
 
       return message.toString();
     }
@@ -173,7 +205,6 @@ public final class Expect extends StandardSubjectBuilder implements TestRule {
       return s.replaceFirst("(?s)^.*?__EXCEPTION_MARKER__.*?Caused by:\\s+", "");
     }
 
-    @GuardedBy("this")
     private void doCheckInRuleContext(@Nullable AssertionError failure) {
       switch (inRuleContext) {
         case BEFORE:
@@ -209,25 +240,35 @@ public final class Expect extends StandardSubjectBuilder implements TestRule {
             caught instanceof AssumptionViolatedException
                 ? "Also, after those failures, an assumption was violated:"
                 : "Also, after those failures, an exception was thrown:";
-        record(SimpleAssertionError.createWithNoStack(message, caught));
+        // Recorded even beyond maxRecordedFailures, since it explains why the test stopped.
+        failureCount.incrementAndGet();
+        failures.add(SimpleAssertionError.createWithNoStack(message, caught));
         throw SimpleAssertionError.createWithNoStack(this.toString());
       } else {
         throw caught;
       }
     }
-
-    @GuardedBy("this")
-    private void record(AssertionError failure) {
-      doCheckInRuleContext(failure);
-      failures.add(failure);
-    }
   }
 
   private final ExpectationGatherer gatherer;
 
   /** Creates a new instance. */
   public static Expect create() {
-    return new Expect(new ExpectationGatherer());
+    return new Expect(new ExpectationGatherer(Integer.MAX_VALUE));
+  }
+
+  /**
+   * Creates a new instance that reports at most the given number of failures in full. It still
+   * fails the test if there are more, and it reports how many more there were, but it doesn't keep
+   * them. This is useful for tests that might fail the same assertion from many threads or in a
+   * long loop, where reporting every failure would only bury the useful information.
+   *
+   * @throws IllegalArgumentException if {@code maxReportedFailures} is not positive
+   */
+  public static Expect createWithMaxReportedFailures(int maxReportedFailures) {
+    checkArgument(
+        maxReportedFailures > 0, "maxReportedFailures (%s) must be > 0", maxReportedFailures);
+    return new Expect(new ExpectationGatherer(maxReportedFailures));
   }
 
   private Expect(ExpectationGatherer gatherer) {
@@ -22,6 +22,9 @@ import static java.lang.Math.max;
 
 import com.google.common.collect.ImmutableList;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -38,9 +41,14 @@ public final class Fact implements Serializable {
   /**
    * Creates a fact with the given key and value, which will be printed in a format like "key:
    * value." The value is converted to a string by calling {@code String.valueOf} on it.
+   *
+   * <p>The conversion happens when an assertion fails with the fact, so the failure message shows
+   * the value as it was at the time of the assertion, even if the value changes afterward. A value
+   * whose string form would be very long is abbreviated (see {@link
+   * StandardSubjectBuilder#withMaxFactValueLength}).
    */
   public static Fact fact(String key, @Nullable Object value) {
-    return new Fact(key, String.valueOf(value));
+    return new Fact(key, value == null ? "null" : value);
   }
 
   /**
@@ -63,13 +71,24 @@ public final class Fact implements Serializable {
   }
 
   final String key;
-  final @Nullable String value;
 
-  private Fact(String key, @Nullable String value) {
+  /**
+   * The value, or null for a simple fact. Until the fact is {@linkplain #render rendered}, this may
+   * be any object. Afterward, it's a string.
+   */
+  final @Nullable Object value;
+
+  private Fact(String key, @Nullable Object value) {
     this.key = checkNotNull(key);
     this.value = value;
   }
 
+  /** Returns the value as a string, or null for a simple fact. */
+  @Nullable
+  String value() {
+    return value == null ? null : value.toString();
+  }
+
   /**
    * Returns a simple string representation for the fact. While this is used in the output of {@code
    * TruthFailureSubject}, it's not used in normal failure messages, which automatically align facts
@@ -91,7 +110,7 @@ public final class Fact implements Serializable {
       if (fact.value != null) {
         longestKeyLength = max(longestKeyLength, fact.key.length());
         // TODO(cpovirk): Look for other kinds of newlines.
-        seenNewlineInValue |= fact.value.contains("\n");
+        seenNewlineInValue |= fact.value().contains("\n");
       }
     }
 
@@ -117,11 +136,11 @@ public final class Fact implements Serializable {
       } else if (seenNewlineInValue) {
         builder.append(fact.key);
         builder.append(":\n");
-        builder.append(indent(fact.value));
+        builder.append(indent(fact.value()));
       } else {
         builder.append(padEnd(fact.key, longestKeyLength, ' '));
         builder.append(": ");
-        builder.append(fact.value);
+        builder.append(fact.value());
       }
       builder.append('\n');
     }
@@ -131,6 +150,170 @@ public final class Fact implements Serializable {
     return builder.toString();
   }
 
+  /**
+   * Returns the given facts with their values converted to strings of roughly {@code
+   * maxValueLength} characters or fewer, as described on {@link #renderValue}.
+   */
+  static ImmutableList<Fact> renderAll(ImmutableList<Fact> facts, int maxValueLength) {
+    ImmutableList.Builder<Fact> rendered = ImmutableList.builder();
+    for (Fact fact : facts) {
+      rendered.add(fact.render(maxValueLength));
+    }
+    return rendered.build();
+  }
+
+  private Fact render(int maxValueLength) {
+    if (value == null
+        || (value instanceof String && ((String) value).length() <= maxValueLength)) {
+      return this;
+    }
+    return new Fact(key, renderValue(value, maxValueLength));
+  }
+
+  /**
+   * Returns a fact value that displays as the given collection, whose {@code toString()} must be
+   * the usual "[a, b, c]" list of its elements. If the collection is too large to display in full,
+   * {@link #renderValue} displays its first elements without converting the others to strings.
+   */
+  static Object elementsOf(Collection<?> collection) {
+    // Even with empty elements, there are at least 2 characters per element, for the ", " or "[]".
+    return new ElementList(collection, collection, '[', ']', "elements", 2);
+  }
+
+  /**
+   * Returns a fact value that displays as the given map, whose {@code toString()} must be the
+   * usual "{k=v}" list of its entries. See {@link #elementsOf}.
+   */
+  static Object entriesOf(Map<?, ?> map) {
+    // Even with empty keys and values, there are at least 3 characters per entry, for the "=", too.
+    return new ElementList(map, map.entrySet(), '{', '}', "entries", 3);
+  }
+
+  /** A collection or map whose string representation is known to be the list of its elements. */
+  private static final class ElementList {
+    final Object container;
+    final Collection<?> elements;
+    final char open;
+    final char close;
+    final String noun;
+    final int minCharactersPerElement;
+
+    ElementList(
+        Object container,
+        Collection<?> elements,
+        char open,
+        char close,
+        String noun,
+        int minCharactersPerElement) {
+      this.container = container;
+      this.elements = elements;
+      this.open = open;
+      this.close = close;
+      this.noun = noun;
+      this.minCharactersPerElement = minCharactersPerElement;
+    }
+
+    @Override
+    public String toString() {
+      return container.toString();
+    }
+  }
+
+  /**
+   * Converts the given value to a string of {@code maxLength} characters or fewer, plus a note
+   * about what was left out, if anything.
+   *
+   * <p>A collection or map from {@link #elementsOf} or {@link #entriesOf} with too many elements
+   * for its {@code toString()} to possibly fit is rendered one element at a time, stopping once
+   * the limit is reached, so that we never build its full string representation. Other values are
+   * converted in full and then truncated.
+   */
+  private static String renderValue(Object value, int maxLength) {
+    if (value instanceof ElementList) {
+      ElementList list = (ElementList) value;
+      int size = list.elements.size();
+      if (size > maxLength / list.minCharactersPerElement) {
+        return renderElements(
+            list.container,
+            list.elements.iterator(),
+            size,
+            list.open,
+            list.close,
+            list.noun,
+            maxLength);
+      }
+    }
+    String string = value.toString();
+    if (string.length() <= maxLength) {
+      return string;
+    }
+    String truncated = truncate(string, maxLength);
+    return truncated
+        + "… (showing "
+        + truncated.length()
+        + " of "
+        + string.length()
+        + " characters)";
+  }
+
+  private static String renderElements(
+      Object container,
+      Iterator<?> elements,
+      int size,
+      char open,
+      char close,
+      String noun,
+      int maxLength) {
+    StringBuilder builder = new StringBuilder().append(open);
+    int shown = 0;
+    while (elements.hasNext() && builder.length() < maxLength) {
+      Object element = elements.next();
+      // Like AbstractCollection.toString(), avoid recursing into the collection itself.
+      String string = element == container ? "(this Collection)" : String.valueOf(element);
+      if (shown > 0) {
+        if (builder.length() + 2 + string.length() > maxLength) {
+          break;
+        }
+        builder.append(", ");
+      }
+      builder.append(truncate(string, maxLength - builder.length()));
+      shown++;
+    }
+    if (shown == size) {
+      return builder.append(close).toString();
+    }
+    return builder
+        .append(shown == 0 ? "…" : ", …")
+        .append(close)
+        .append(" (showing ")
+        .append(shown)
+        .append(" of ")
+        .append(size)
+        .append(' ')
+        .append(noun)
+        .append(')')
+        .toString();
+  }
+
+  /** Returns at most the first {@code length} characters, without splitting a surrogate pair. */
+  private static String truncate(String string, int length) {
+    if (string.length() <= length) {
+      return string;
+    }
+    if (length > 0 && Character.isHighSurrogate(string.charAt(length - 1))) {
+      length--;
+    }
+    return string.substring(0, length);
+  }
+
+  /**
+   * Serializes this fact with its value converted to a string, since the value may be any object,
+   * which may not be serializable.
+   */
+  private Object writeReplace() {
+    return value == null || value instanceof String ? this : new Fact(key, value.toString());
+  }
+
   private static String indent(String value) {
     // We don't want to indent with \t because the text would align exactly with the stack trace.
     // We don't want to indent with \t\t because it would be very far for people with 8-space tabs.
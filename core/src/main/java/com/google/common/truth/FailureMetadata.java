@@ -15,20 +15,24 @@
  */
 package com.google.common.truth;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verifyNotNull;
 import static com.google.common.truth.ComparisonFailures.makeComparisonFailureFacts;
 import static com.google.common.truth.Fact.fact;
+import static com.google.common.truth.Fact.renderAll;
 import static com.google.common.truth.LazyMessage.evaluateAll;
 import static com.google.common.truth.Platform.cleanStackTrace;
 import static com.google.common.truth.Platform.inferDescription;
 import static com.google.common.truth.Platform.makeComparisonFailure;
-import static com.google.common.truth.SubjectUtils.append;
 import static com.google.common.truth.SubjectUtils.concat;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.List;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -54,9 +58,23 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 public final class FailureMetadata {
   static FailureMetadata forFailureStrategy(FailureStrategy failureStrategy) {
     return new FailureMetadata(
-        failureStrategy, ImmutableList.<LazyMessage>of(), ImmutableList.<Step>of());
+        failureStrategy,
+        /* messages= */ null,
+        /* steps= */ null,
+        DEFAULT_MAX_FACT_VALUE_LENGTH,
+        DEFAULT_MAX_REPORTED_DIFFERENCES);
   }
 
+  /**
+   * The default for {@link StandardSubjectBuilder#withMaxFactValueLength}: enough to display any
+   * value that a person would want to read in full, but far short of what it takes to slow down or
+   * crash a test runner.
+   */
+  static final int DEFAULT_MAX_FACT_VALUE_LENGTH = 100_000;
+
+  /** The default for {@link StandardSubjectBuilder#withMaxReportedDifferences}. */
+  static final int DEFAULT_MAX_REPORTED_DIFFERENCES = 100;
+
   private final FailureStrategy strategy;
 
   /**
@@ -101,23 +119,71 @@ public final class FailureMetadata {
     }
   }
 
+  /**
+   * An immutable cactus stack: a nonempty sequence that shares all but its last element with the
+   * chain it was derived from. Appending to a chain is O(1), so a deeply chained assertion doesn't
+   * copy its context at every step. We need the elements as a list only when an assertion fails.
+   */
+  private static final class Chain<T> {
+    static <T> Chain<T> append(@Nullable Chain<T> chain, T element) {
+      return new Chain<>(chain, element);
+    }
+
+    static <T> ImmutableList<T> toList(@Nullable Chain<T> chain) {
+      return chain == null ? ImmutableList.<T>of() : chain.toList();
+    }
+
+    private final @Nullable Chain<T> previous;
+    private final T last;
+    private final int size;
+
+    // Computed on first use. Races are harmless, since every thread computes an equal list.
+    private @Nullable ImmutableList<T> list;
+
+    private Chain(@Nullable Chain<T> previous, T last) {
+      this.previous = previous;
+      this.last = checkNotNull(last);
+      this.size = previous == null ? 1 : previous.size + 1;
+    }
+
+    ImmutableList<T> toList() {
+      ImmutableList<T> result = list;
+      if (result == null) {
+        List<T> reversed = new ArrayList<>(size);
+        for (Chain<T> chain = this; chain != null; chain = chain.previous) {
+          reversed.add(chain.last);
+        }
+        list = result = ImmutableList.copyOf(Lists.reverse(reversed));
+      }
+      return result;
+    }
+  }
+
   /*
-   * TODO(cpovirk): This implementation is wasteful, especially because `steps` is used even by
-   * non-chaining assertions. If it ever does matter, we could use an immutable cactus stack -- or
-   * probably even avoid storing most of the chain entirely (unless we end up wanting more of the
-   * chain to show "telescoping context," as in "the int value of this optional in this list in this
-   * multimap").
+   * We could probably avoid storing most of the chain entirely (unless we end up wanting more of
+   * the chain to show "telescoping context," as in "the int value of this optional in this list in
+   * this multimap").
    */
 
-  private final ImmutableList<LazyMessage> messages;
+  private final @Nullable Chain<LazyMessage> messages;
+
+  private final @Nullable Chain<Step> steps;
 
-  private final ImmutableList<Step> steps;
+  private final int maxFactValueLength;
+
+  private final int maxReportedDifferences;
 
   FailureMetadata(
-      FailureStrategy strategy, ImmutableList<LazyMessage> messages, ImmutableList<Step> steps) {
+      FailureStrategy strategy,
+      @Nullable Chain<LazyMessage> messages,
+      @Nullable Chain<Step> steps,
+      int maxFactValueLength,
+      int maxReportedDifferences) {
     this.strategy = checkNotNull(strategy);
-    this.messages = checkNotNull(messages);
-    this.steps = checkNotNull(steps);
+    this.messages = messages;
+    this.steps = steps;
+    this.maxFactValueLength = maxFactValueLength;
+    this.maxReportedDifferences = maxReportedDifferences;
   }
 
   /**
@@ -127,21 +193,18 @@ public final class FailureMetadata {
    * ThrowableSubject#hasMessageThat}.
    */
   FailureMetadata updateForSubject(Subject subject) {
-    ImmutableList<Step> steps = append(this.steps, Step.subjectCreation(subject));
-    return derive(messages, steps);
+    return derive(messages, Chain.append(steps, Step.subjectCreation(subject)));
   }
 
   FailureMetadata updateForCheckCall() {
-    ImmutableList<Step> steps = append(this.steps, Step.checkCall(null, null));
-    return derive(messages, steps);
+    return derive(messages, Chain.append(steps, Step.checkCall(null, null)));
   }
 
   FailureMetadata updateForCheckCall(
       OldAndNewValuesAreSimilar valuesAreSimilar, Function<String, String> descriptionUpdate) {
     checkNotNull(descriptionUpdate);
-    ImmutableList<Step> steps =
-        append(this.steps, Step.checkCall(valuesAreSimilar, descriptionUpdate));
-    return derive(messages, steps);
+    return derive(
+        messages, Chain.append(steps, Step.checkCall(valuesAreSimilar, descriptionUpdate)));
   }
 
   /**
@@ -162,10 +225,47 @@ public final class FailureMetadata {
    * {@code Subject}) or {@link Truth#assertWithMessage} (for most other calls).
    */
   FailureMetadata withMessage(String format, /*@Nullable*/ Object[] args) {
-    ImmutableList<LazyMessage> messages = append(this.messages, new LazyMessage(format, args));
-    return derive(messages, steps);
+    return derive(Chain.append(messages, new LazyMessage(format, args)), steps);
+  }
+
+  /**
+   * Returns a new instance whose failures will abbreviate each fact value that is longer than the
+   * given number of characters.
+   */
+  FailureMetadata withMaxFactValueLength(int maxFactValueLength) {
+    checkArgument(
+        maxFactValueLength >= 0, "maxFactValueLength (%s) must be >= 0", maxFactValueLength);
+    return new FailureMetadata(
+        strategy, messages, steps, maxFactValueLength, maxReportedDifferences);
   }
 
+  /**
+   * Returns a new instance whose failures will list at most the given number of differences of
+   * each kind (for example, missing map entries) individually.
+   */
+  FailureMetadata withMaxReportedDifferences(int maxReportedDifferences) {
+    checkArgument(
+        maxReportedDifferences > 0,
+        "maxReportedDifferences (%s) must be > 0",
+        maxReportedDifferences);
+    return new FailureMetadata(
+        strategy, messages, steps, maxFactValueLength, maxReportedDifferences);
+  }
+
+  /**
+   * Returns the number of differences of each kind that a failure should list individually. See
+   * {@link StandardSubjectBuilder#withMaxReportedDifferences}.
+   */
+  int maxReportedDifferences() {
+    return maxReportedDifferences;
+  }
+
+  /*
+   * The fail methods render their facts right away, rather than when the message is displayed, so
+   * that the message shows each value as it was when the assertion failed. Otherwise, a test that
+   * changed a value after a soft failure from Expect would see the value's new contents reported.
+   */
+
   void failEqualityCheck(
       ImmutableList<Fact> headFacts,
       ImmutableList<Fact> tailFacts,
@@ -173,12 +273,14 @@ public final class FailureMetadata {
       String actual) {
     doFail(
         makeComparisonFailure(
-            evaluateAll(messages),
-            makeComparisonFailureFacts(
-                concat(description(), headFacts),
-                concat(tailFacts, rootUnlessThrowable()),
-                expected,
-                actual),
+            evaluateAll(Chain.toList(messages)),
+            renderAll(
+                makeComparisonFailureFacts(
+                    concat(description(), headFacts),
+                    concat(tailFacts, rootUnlessThrowable()),
+                    expected,
+                    actual),
+                maxFactValueLength),
             expected,
             actual,
             rootCause()));
@@ -187,8 +289,9 @@ public final class FailureMetadata {
   void fail(ImmutableList<Fact> facts) {
     doFail(
         new AssertionErrorWithFacts(
-            evaluateAll(messages),
-            concat(description(), facts, rootUnlessThrowable()),
+            evaluateAll(Chain.toList(messages)),
+            renderAll(
+                concat(description(), facts, rootUnlessThrowable()), maxFactValueLength),
             rootCause()));
   }
 
@@ -197,8 +300,10 @@ public final class FailureMetadata {
     strategy.fail(failure);
   }
 
-  private FailureMetadata derive(ImmutableList<LazyMessage> messages, ImmutableList<Step> steps) {
-    return new FailureMetadata(strategy, messages, steps);
+  private FailureMetadata derive(
+      @Nullable Chain<LazyMessage> messages, @Nullable Chain<Step> steps) {
+    return new FailureMetadata(
+        strategy, messages, steps, maxFactValueLength, maxReportedDifferences);
   }
 
   /**
@@ -228,7 +333,7 @@ public final class FailureMetadata {
   private ImmutableList<Fact> description() {
     String description = inferDescription();
     boolean descriptionIsInteresting = description != null;
-    for (Step step : steps) {
+    for (Step step : Chain.toList(steps)) {
       if (step.isCheckCall()) {
         checkState(description != null);
         if (step.descriptionUpdate == null) {
@@ -274,7 +379,7 @@ public final class FailureMetadata {
   private ImmutableList<Fact> rootUnlessThrowable() {
     Step rootSubject = null;
     boolean seenDerivation = false;
-    for (Step step : steps) {
+    for (Step step : Chain.toList(steps)) {
       if (step.isCheckCall()) {
         /*
          * If we don't have a description update, don't trigger display of a root object. (If we
@@ -320,7 +425,7 @@ public final class FailureMetadata {
    * cause only if the assertion chain contains a {@link ThrowableSubject}.
    */
   private @Nullable Throwable rootCause() {
-    for (Step step : steps) {
+    for (Step step : Chain.toList(steps)) {
       if (!step.isCheckCall() && step.subject.actual() instanceof Throwable) {
         return (Throwable) step.subject.actual();
       }
@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.Multimap;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
@@ -55,6 +56,46 @@ final class GraphMatching {
     return HopcroftKarp.overBipartiteGraph(graph).perform();
   }
 
+  /**
+   * Returns the cardinality of a maximum matching of the bipartite graph with one vertex per value
+   * in {@code left} and in {@code right}, and an edge between each pair of values within {@code
+   * tolerance} of each other in the sense of {@link MathUtil#equalWithinTolerance(double, double,
+   * double)}. (In particular, non-finite values have no edges.) The {@code tolerance} must be
+   * finite and non-negative. Sorts both arrays in place.
+   *
+   * <p>This takes O(N log N) time, whereas {@link #maximumCardinalityBipartiteMatching} needs the
+   * graph's edges, of which there may be O(N^2). That's possible because the neighbors of each
+   * value form a contiguous run of the other sorted array, and those runs move monotonically along
+   * it as the value increases. So a single sweep that matches each right-hand value to the smallest
+   * remaining left-hand value within tolerance of it finds a maximum matching.
+   */
+  static int maximumCardinalityToleranceMatchingSize(
+      double[] left, double[] right, double tolerance) {
+    Arrays.sort(left);
+    Arrays.sort(right);
+    int size = 0;
+    int leftIndex = 0;
+    for (double rightValue : right) {
+      // Skip left-hand values that are too small for this right-hand value: they are also too
+      // small for every later one.
+      while (leftIndex < left.length
+          && left[leftIndex] < rightValue
+          && !MathUtil.equalWithinTolerance(left[leftIndex], rightValue, tolerance)) {
+        leftIndex++;
+      }
+      if (leftIndex == left.length) {
+        break;
+      }
+      if (MathUtil.equalWithinTolerance(left[leftIndex], rightValue, tolerance)) {
+        size++;
+        leftIndex++;
+      }
+      // Otherwise, the next left-hand value (and so every later one) is too big for this
+      // right-hand value, which can't be matched, but might be right for a later right-hand value.
+    }
+    return size;
+  }
+
   private GraphMatching() {}
 
   /**
@@ -41,7 +41,9 @@ import static java.util.Arrays.asList;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.BiMap;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
@@ -51,7 +53,6 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.LinkedHashMultiset;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
@@ -66,6 +67,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -90,14 +92,27 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 public class IterableSubject extends Subject {
 
   private final Iterable<?> actual;
+  private final @Nullable PrimitiveArrayKeys primitiveKeys;
 
   /**
    * Constructor for use by subclasses. If you want to create an instance of this class itself, call
    * {@link Subject#check(String, Object...) check(...)}{@code .that(actual)}.
    */
   protected IterableSubject(FailureMetadata metadata, @Nullable Iterable<?> iterable) {
+    this(metadata, iterable, null);
+  }
+
+  /**
+   * Constructor for subjects about a view of a primitive array as a list, whose elements are given
+   * again as {@code primitiveKeys} so that some assertions can check them without boxing.
+   */
+  IterableSubject(
+      FailureMetadata metadata,
+      @Nullable Iterable<?> iterable,
+      @Nullable PrimitiveArrayKeys primitiveKeys) {
     super(metadata, iterable);
     this.actual = iterable;
+    this.primitiveKeys = primitiveKeys;
   }
 
   @Override
@@ -107,13 +122,30 @@ public class IterableSubject extends Subject {
       // so we can avoid things like "com.google.common.graph.Traverser$GraphTraverser$1@5e316c74"
       String objectToString =
           actual.getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(actual));
-      if (actual.toString().equals(objectToString)) {
-        return Iterables.toString(actual);
-      }
+      String string = actual.toString();
+      // Otherwise, we know what the superclass would return, and we don't need to build it again.
+      return string.equals(objectToString) ? Iterables.toString(actual) : string;
     }
     return super.actualCustomStringRepresentation();
   }
 
+  /**
+   * Returns the actual value for use in a fact. If it's a {@link Collection} whose string form we
+   * know to be the usual "[a, b, c]" list of its elements, {@link Fact} can display just the first
+   * elements of a large collection. Otherwise, it displays {@link
+   * #actualCustomStringRepresentation} in full or truncated.
+   */
+  @Override
+  final Object actualForFacts() {
+    // A subclass may override actualCustomStringRepresentation(), so we check the exact class.
+    if (getClass() == IterableSubject.class
+        && actual instanceof Collection
+        && Platform.hasElementListToString(actual)) {
+      return Fact.elementsOf((Collection<?>) actual);
+    }
+    return super.actualForFacts();
+  }
+
   @Override
   public void isEqualTo(@Nullable Object expected) {
     @SuppressWarnings("UndefinedEquals") // method contract requires testing iterables for equality
@@ -188,6 +220,9 @@ public class IterableSubject extends Subject {
 
   /** Checks that the subject does not contain duplicate elements. */
   public final void containsNoDuplicates() {
+    if (primitiveKeys != null && !primitiveKeys.hasDuplicates()) {
+      return;
+    }
     List<Multiset.Entry<?>> duplicates = newArrayList();
     for (Multiset.Entry<?> entry : LinkedHashMultiset.create(actual).entrySet()) {
       if (entry.getCount() > 1) {
@@ -270,34 +305,29 @@ public class IterableSubject extends Subject {
    */
   @CanIgnoreReturnValue
   public final Ordered containsAtLeastElementsIn(Iterable<?> expectedIterable) {
-    List<?> actual = Lists.newLinkedList(this.actual);
+    Collection<?> actual = iterableToCollection(this.actual);
     final Collection<?> expected = iterableToCollection(expectedIterable);
 
-    List<Object> missing = newArrayList();
-    List<Object> actualNotInOrder = newArrayList();
-
-    boolean ordered = true;
-    // step through the expected elements...
-    for (Object e : expected) {
-      int index = actual.indexOf(e);
-      if (index != -1) { // if we find the element in the actual list...
-        // drain all the elements that come before that element into actualNotInOrder
-        moveElements(actual, actualNotInOrder, index);
-        // and remove the element from the actual list
-        actual.remove(0);
-      } else { // otherwise try removing it from actualNotInOrder...
-        if (actualNotInOrder.remove(e)) { // if it was in actualNotInOrder, we're not in order
-          ordered = false;
-        } else { // if it's not in actualNotInOrder, we're missing an expected element
-          missing.add(e);
+    if (primitiveKeys != null) {
+      PrimitiveArrayKeys expectedKeys = primitiveKeys.keysOfElements(expected);
+      if (expectedKeys != null) {
+        if (primitiveKeys.containsInOrder(expectedKeys)) {
+          return IN_ORDER;
+        }
+        if (primitiveKeys.containsAll(expectedKeys)) {
+          return containsAtLeastButNotInOrder(expected);
         }
       }
     }
+
+    List<Object> missing = findMissingAndExtra(expected, actual).missing;
     // if we have any missing expected elements, fail
     if (!missing.isEmpty()) {
       return failAtLeast(expected, missing);
     }
 
+    boolean ordered = containsInOrder(actual, expected);
+
     /*
      * TODO(cpovirk): In the NotInOrder case, also include a Fact that shows _only_ the required
      * elements (that is, without any extras) but in the order they were actually found. That should
@@ -306,16 +336,22 @@ public class IterableSubject extends Subject {
      * actual iterable than the default of "but was," which may _sound_ like it should show only the
      * required elements, rather than the full actual iterable.
      */
-    return ordered
-        ? IN_ORDER
-        : new Ordered() {
-          @Override
-          public void inOrder() {
-            failWithActual(
-                simpleFact("required elements were all found, but order was wrong"),
-                fact("expected order for required elements", expected));
-          }
-        };
+    return ordered ? IN_ORDER : containsAtLeastButNotInOrder(expected);
+  }
+
+  /**
+   * Returns the result of a {@code containsAtLeast} assertion that has passed, but whose expected
+   * elements we know don't appear in order within the actual elements.
+   */
+  private Ordered containsAtLeastButNotInOrder(final Collection<?> expected) {
+    return new Ordered() {
+      @Override
+      public void inOrder() {
+        failWithActual(
+            simpleFact("required elements were all found, but order was wrong"),
+            fact("expected order for required elements", expected));
+      }
+    };
   }
 
   /**
@@ -356,12 +392,108 @@ public class IterableSubject extends Subject {
   }
 
   /**
-   * Removes at most the given number of available elements from the input list and adds them to the
-   * given output collection.
+   * Returns whether the given expected elements appear, in the same order, within the given actual
+   * elements. They are not required to be consecutive.
+   */
+  private static boolean containsInOrder(Iterable<?> actual, Iterable<?> expected) {
+    Iterator<?> actualIter = actual.iterator();
+    for (Object e : expected) {
+      boolean found = false;
+      while (!found && actualIter.hasNext()) {
+        found = Objects.equal(e, actualIter.next());
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Pairs up equal elements from the given required and actual elements, and returns those that
+   * remain unpaired. Each actual element, in iteration order, is paired with the first unpaired
+   * required element that is equal to it, exactly as if it were removed from a list of the
+   * required elements using {@link List#remove(Object)}. The unpaired elements of each side are
+   * returned in the order in which they were given.
+   *
+   * <p>The elements are paired up by hashing, so this runs in linear time. Some types don't
+   * implement {@code hashCode()} consistently with {@code equals()} (e.g., MessageSet from old
+   * versions of protobuf), so any leftover elements are then also checked against each other using
+   * only {@code equals()}. If any element throws from {@code hashCode()}, we fall back to comparing
+   * every pair of elements.
+   */
+  private static MissingAndExtra findMissingAndExtra(Iterable<?> required, Iterable<?> actual) {
+    MissingAndExtra result;
+    try {
+      result = findMissingAndExtraByHashing(required, actual);
+    } catch (RuntimeException e) {
+      return findMissingAndExtraWithoutHashing(required, actual);
+    }
+    if (!result.missing.isEmpty() && !result.extra.isEmpty()) {
+      result = pairUpLeftoverElements(result.missing, result.extra);
+    }
+    return result;
+  }
+
+  private static MissingAndExtra findMissingAndExtraByHashing(
+      Iterable<?> required, Iterable<?> actual) {
+    Multiset<Object> unpairedRequired = HashMultiset.create(required);
+    Multiset<Object> paired = HashMultiset.create();
+    List<Object> extra = newArrayList();
+    for (Object item : actual) {
+      if (unpairedRequired.remove(item)) {
+        paired.add(item);
+      } else {
+        extra.add(item);
+      }
+    }
+    // The earliest occurrences of each required element are the ones that got paired.
+    List<Object> missing = newArrayList();
+    for (Object item : required) {
+      if (!paired.remove(item)) {
+        missing.add(item);
+      }
+    }
+    return new MissingAndExtra(missing, extra);
+  }
+
+  private static MissingAndExtra findMissingAndExtraWithoutHashing(
+      Iterable<?> required, Iterable<?> actual) {
+    List<Object> missing = newArrayList(required);
+    List<Object> extra = newArrayList();
+    for (Object item : actual) {
+      if (!missing.remove(item)) {
+        extra.add(item);
+      }
+    }
+    return new MissingAndExtra(missing, extra);
+  }
+
+  /**
+   * Pairs up equal elements between the given lists, which {@link #findMissingAndExtraByHashing}
+   * has failed to pair, presumably because of {@code hashCode()} implementations that are
+   * inconsistent with {@code equals()}. This compares each extra element against the missing ones
+   * using only {@code equals()}, which is cheap in the common case of few leftover elements.
    */
-  private static void moveElements(List<?> input, Collection<Object> output, int maxElements) {
-    for (int i = 0; i < maxElements; i++) {
-      output.add(input.remove(0));
+  private static MissingAndExtra pairUpLeftoverElements(List<Object> missing, List<Object> extra) {
+    List<Object> stillMissing = newArrayList(missing);
+    List<Object> stillExtra = newArrayList();
+    for (Object item : extra) {
+      if (!stillMissing.remove(item)) {
+        stillExtra.add(item);
+      }
+    }
+    return new MissingAndExtra(stillMissing, stillExtra);
+  }
+
+  /** Required elements and actual elements that could not be paired with an equal element. */
+  private static final class MissingAndExtra {
+    final List<Object> missing;
+    final List<Object> extra;
+
+    MissingAndExtra(List<Object> missing, List<Object> extra) {
+      this.missing = missing;
+      this.extra = extra;
     }
   }
 
@@ -416,6 +548,18 @@ public class IterableSubject extends Subject {
 
   private Ordered containsExactlyElementsIn(
       final Iterable<?> required, boolean addElementsInWarning) {
+    if (primitiveKeys != null) {
+      PrimitiveArrayKeys requiredKeys = primitiveKeys.keysOfElements(required);
+      if (requiredKeys != null) {
+        if (primitiveKeys.equalsInOrder(requiredKeys)) {
+          return IN_ORDER;
+        }
+        if (primitiveKeys.equalsIgnoringOrder(requiredKeys)) {
+          return containsExactlyButNotInOrder(required);
+        }
+      }
+    }
+
     Iterator<?> actualIter = actual.iterator();
     Iterator<?> requiredIter = required.iterator();
 
@@ -461,38 +605,27 @@ public class IterableSubject extends Subject {
               .failEqualityCheckForEqualsWithoutDescription(requiredElement);
           return ALREADY_FAILED;
         }
-        // Missing elements; elements that are not missing will be removed as we iterate.
-        Collection<Object> missing = newArrayList();
-        missing.add(requiredElement);
-        Iterators.addAll(missing, requiredIter);
-
+        // Pair up the remaining elements, ignoring order.
+        List<Object> requiredRest = newArrayList();
+        requiredRest.add(requiredElement);
+        Iterators.addAll(requiredRest, requiredIter);
+        List<Object> actualRest = newArrayList();
+        actualRest.add(actualElement);
+        Iterators.addAll(actualRest, actualIter);
+
+        MissingAndExtra missingAndExtra =
+            findMissingAndExtra(requiredRest, actualRest);
+        // Elements that the subject should have had but didn't.
+        List<Object> missing = missingAndExtra.missing;
         // Extra elements that the subject had but shouldn't have.
-        Collection<Object> extra = newArrayList();
-
-        // Remove all actual elements from missing, and add any that weren't in missing
-        // to extra.
-        if (!missing.remove(actualElement)) {
-          extra.add(actualElement);
-        }
-        while (actualIter.hasNext()) {
-          Object item = actualIter.next();
-          if (!missing.remove(item)) {
-            extra.add(item);
-          }
-        }
+        List<Object> extra = missingAndExtra.extra;
 
         if (missing.isEmpty() && extra.isEmpty()) {
           /*
            * This containsExactly() call is a success. But the iterables were not in the same order,
            * so return an object that will fail the test if the user calls inOrder().
            */
-          return new Ordered() {
-            @Override
-            public void inOrder() {
-              failWithActual(
-                  simpleFact("contents match, but order was wrong"), fact("expected", required));
-            }
-          };
+          return containsExactlyButNotInOrder(required);
         }
         return failExactly(required, addElementsInWarning, missing, extra);
       }
@@ -522,6 +655,20 @@ public class IterableSubject extends Subject {
     return IN_ORDER;
   }
 
+  /**
+   * Returns the result of a {@code containsExactly} assertion that has passed, but whose elements
+   * we know are not in the required order.
+   */
+  private Ordered containsExactlyButNotInOrder(final Iterable<?> required) {
+    return new Ordered() {
+      @Override
+      public void inOrder() {
+        failWithActual(
+            simpleFact("contents match, but order was wrong"), fact("expected", required));
+      }
+    };
+  }
+
   private Ordered failExactly(
       Iterable<?> required,
       boolean addElementsInWarning,
@@ -776,6 +923,11 @@ public class IterableSubject extends Subject {
   @SuppressWarnings({"unchecked"})
   public final void isInStrictOrder(final Comparator<?> comparator) {
     checkNotNull(comparator);
+    if (comparator == Ordering.natural()
+        && primitiveKeys != null
+        && primitiveKeys.isInOrder(/* strict= */ true)) {
+      return;
+    }
     pairwiseCheck(
         "expected to be in strict order",
         new PairwiseChecker() {
@@ -808,6 +960,11 @@ public class IterableSubject extends Subject {
   @SuppressWarnings({"unchecked"})
   public final void isInOrder(final Comparator<?> comparator) {
     checkNotNull(comparator);
+    if (comparator == Ordering.natural()
+        && primitiveKeys != null
+        && primitiveKeys.isInOrder(/* strict= */ false)) {
+      return;
+    }
     pairwiseCheck(
         "expected to be in order",
         new PairwiseChecker() {
@@ -876,7 +1033,7 @@ public class IterableSubject extends Subject {
   }
 
   private Fact fullContents() {
-    return fact("full contents", actualCustomStringRepresentationForPackageMembersToCall());
+    return fact("full contents", actualForFacts());
   }
 
   /**
@@ -946,21 +1103,29 @@ public class IterableSubject extends Subject {
     private final IterableSubject subject;
     private final Correspondence<? super A, ? super E> correspondence;
     private final Optional<Pairer> pairer;
+    private final Optional<Executor> executor;
 
     UsingCorrespondence(
         IterableSubject subject, Correspondence<? super A, ? super E> correspondence) {
-      this.subject = checkNotNull(subject);
-      this.correspondence = checkNotNull(correspondence);
-      this.pairer = Optional.absent();
+      this(subject, correspondence, Optional.<Pairer>absent(), Optional.<Executor>absent());
     }
 
     UsingCorrespondence(
         IterableSubject subject,
         Correspondence<? super A, ? super E> correspondence,
         Pairer pairer) {
+      this(subject, correspondence, Optional.of(pairer), Optional.<Executor>absent());
+    }
+
+    private UsingCorrespondence(
+        IterableSubject subject,
+        Correspondence<? super A, ? super E> correspondence,
+        Optional<Pairer> pairer,
+        Optional<Executor> executor) {
       this.subject = checkNotNull(subject);
       this.correspondence = checkNotNull(correspondence);
-      this.pairer = Optional.of(pairer);
+      this.pairer = pairer;
+      this.executor = executor;
     }
 
     /**
@@ -1049,7 +1214,36 @@ public class IterableSubject extends Subject {
     public UsingCorrespondence<A, E> displayingDiffsPairedBy(
         Function<? super A, ?> actualKeyFunction, Function<? super E, ?> expectedKeyFunction) {
       return new UsingCorrespondence<>(
-          subject, correspondence, new Pairer(actualKeyFunction, expectedKeyFunction));
+          subject,
+          correspondence,
+          Optional.of(new Pairer(actualKeyFunction, expectedKeyFunction)),
+          executor);
+    }
+
+    /**
+     * Specifies that assertions which compare every actual element with every expected element,
+     * such as {@link #containsExactlyElementsIn} when the elements don't correspond in order,
+     * should spread those comparisons over the threads of the given executor (as well as the
+     * calling thread). This can make a big difference to the wall time of assertions about many
+     * elements using an expensive {@link Correspondence#compare}, for example one that decodes
+     * images. For example:
+     *
+     * <pre>{@code
+     * assertThat(actualImages)
+     *     .comparingElementsUsing(LOOKS_THE_SAME)
+     *     .comparingInParallelUsing(executor)
+     *     .containsExactlyElementsIn(expectedImages);
+     * }</pre>
+     *
+     * <p>The correspondence must be safe to call from several threads at once. Apart from that,
+     * this does not change the behaviour of any assertion: in particular, failure messages are the
+     * same as without it, and the assertion still returns only when all the comparisons are done.
+     * The calling thread carries on with the comparisons itself while it waits, so it's fine to
+     * use an executor that might be busy. (Under GWT, all the comparisons are done on the calling
+     * thread.)
+     */
+    public UsingCorrespondence<A, E> comparingInParallelUsing(Executor executor) {
+      return new UsingCorrespondence<>(subject, correspondence, pairer, Optional.of(executor));
     }
 
     /**
@@ -1186,6 +1380,12 @@ public class IterableSubject extends Subject {
         return IN_ORDER;
       }
 
+      // For Correspondence.tolerance, we can check for a complete 1:1 mapping by sorting, without
+      // comparing every pair. If there isn't one, we use the general algorithm to explain why.
+      if (correspondWithinToleranceInAnyOrder(actualList, expectedList, /* allowExtra= */ false)) {
+        return contentsMatchButNotInOrder(expected);
+      }
+
       // We know they don't correspond in order, so we're going to have to do an any-order test.
       // Find a many:many mapping between the indexes of the elements which correspond, and check
       // it for completeness.
@@ -1222,6 +1422,14 @@ public class IterableSubject extends Subject {
       }
       // The 1:1 mapping is complete, so the test succeeds (but we know from above that the mapping
       // is not in order).
+      return contentsMatchButNotInOrder(expected);
+    }
+
+    /**
+     * Returns the result of a {@code containsExactlyElementsIn} assertion that has passed, but
+     * whose elements we know don't correspond in order.
+     */
+    private Ordered contentsMatchButNotInOrder(final Iterable<? extends E> expected) {
       return new Ordered() {
         @Override
         public void inOrder() {
@@ -1248,6 +1456,27 @@ public class IterableSubject extends Subject {
       return containsExactlyElementsIn(asList(expected));
     }
 
+    /**
+     * Like {@link #containsExactlyElementsIn(Iterable)}, for a primitive array whose correspondence
+     * holds exactly when the {@linkplain PrimitiveArrayKeys keys} of the elements are equal. If
+     * {@code actualKeys} is non-null, this passes by comparing keys, without boxing the elements.
+     * Otherwise, or if it doesn't pass, it falls back to the general implementation.
+     */
+    final Ordered containsExactlyElementsIn(
+        Iterable<? extends E> expected,
+        @Nullable PrimitiveArrayKeys actualKeys,
+        PrimitiveArrayKeys expectedKeys) {
+      if (actualKeys != null) {
+        if (actualKeys.equalsInOrder(expectedKeys)) {
+          return IN_ORDER;
+        }
+        if (actualKeys.equalsIgnoringOrder(expectedKeys)) {
+          return contentsMatchButNotInOrder(expected);
+        }
+      }
+      return containsExactlyElementsIn(expected);
+    }
+
     /**
      * Returns whether the actual and expected iterators have the same number of elements and, when
      * iterated pairwise, every pair of actual and expected values satisfies the correspondence.
@@ -1269,6 +1498,46 @@ public class IterableSubject extends Subject {
       return !(actual.hasNext() || expected.hasNext());
     }
 
+    /**
+     * Returns whether this is a {@link Correspondence#tolerance} correspondence and there is a 1:1
+     * mapping between all the expected elements and all the actual elements (or, if {@code
+     * allowExtra}, any subset of them) where each pair of elements correspond. Rather than finding
+     * the candidate mapping, which takes O(N*M) time, this sorts the elements, which takes O(N log
+     * N) time. Returns false for any other correspondence, and if any element is not a {@link
+     * Number} (e.g. is null), in which case the caller should fall back to the general algorithm,
+     * which will report the problem.
+     */
+    private boolean correspondWithinToleranceInAnyOrder(
+        List<? extends A> actual, List<? extends E> expected, boolean allowExtra) {
+      Double tolerance = correspondence.numericTolerance();
+      if (tolerance == null
+          || (allowExtra ? actual.size() < expected.size() : actual.size() != expected.size())
+          || !allNumbers(actual)
+          || !allNumbers(expected)) {
+        return false;
+      }
+      return GraphMatching.maximumCardinalityToleranceMatchingSize(
+              toDoubleArray(actual), toDoubleArray(expected), tolerance)
+          == expected.size();
+    }
+
+    private static boolean allNumbers(List<?> values) {
+      for (Object value : values) {
+        if (!(value instanceof Number)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static double[] toDoubleArray(List<?> numbers) {
+      double[] result = new double[numbers.size()];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = ((Number) numbers.get(i)).doubleValue();
+      }
+      return result;
+    }
+
     /**
      * Given a list of actual elements and a list of expected elements, finds a many:many mapping
      * between actual and expected elements where a pair of elements maps if it satisfies the
@@ -1280,6 +1549,18 @@ public class IterableSubject extends Subject {
         List<? extends A> actual,
         List<? extends E> expected,
         Correspondence.ExceptionStore exceptions) {
+      Correspondence.KeyFunctions<? super A, ? super E> keyFunctions =
+          correspondence.keyFunctions();
+      if (keyFunctions != null) {
+        ImmutableSetMultimap<Integer, Integer> mapping =
+            findCandidateMappingByKey(actual, expected, keyFunctions, exceptions);
+        if (mapping != null) {
+          return mapping;
+        }
+      }
+      if (executor.isPresent()) {
+        return findCandidateMappingInParallel(actual, expected, exceptions, executor.get());
+      }
       ImmutableSetMultimap.Builder<Integer, Integer> mapping = ImmutableSetMultimap.builder();
       for (int actualIndex = 0; actualIndex < actual.size(); actualIndex++) {
         for (int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++) {
@@ -1292,6 +1573,120 @@ public class IterableSubject extends Subject {
       return mapping.build();
     }
 
+    /**
+     * Like the general case of {@link #findCandidateMapping}, but compares each actual element with
+     * the expected elements in a separate task, run using the given executor. Each task records its
+     * results and exceptions separately, and we merge them in order of actual index afterwards, so
+     * the mapping and the stored exceptions are exactly what the sequential version would give.
+     */
+    private ImmutableSetMultimap<Integer, Integer> findCandidateMappingInParallel(
+        List<? extends A> actual,
+        final List<? extends E> expected,
+        Correspondence.ExceptionStore exceptions,
+        Executor executor) {
+      List<List<Integer>> expectedIndexesByActualIndex = new ArrayList<>(actual.size());
+      List<Correspondence.ExceptionStore> shards = new ArrayList<>(actual.size());
+      List<Runnable> tasks = new ArrayList<>(actual.size());
+      for (final A actualElement : actual) {
+        final List<Integer> expectedIndexes = new ArrayList<>();
+        final Correspondence.ExceptionStore shard = exceptions.newShard();
+        expectedIndexesByActualIndex.add(expectedIndexes);
+        shards.add(shard);
+        tasks.add(
+            new Runnable() {
+              @Override
+              public void run() {
+                for (int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++) {
+                  if (correspondence.safeCompare(
+                      actualElement, expected.get(expectedIndex), shard)) {
+                    expectedIndexes.add(expectedIndex);
+                  }
+                }
+              }
+            });
+      }
+      Platform.runInParallel(executor, tasks);
+
+      ImmutableSetMultimap.Builder<Integer, Integer> mapping = ImmutableSetMultimap.builder();
+      for (int actualIndex = 0; actualIndex < actual.size(); actualIndex++) {
+        mapping.putAll(actualIndex, expectedIndexesByActualIndex.get(actualIndex));
+        exceptions.addAll(shards.get(actualIndex));
+      }
+      return mapping.build();
+    }
+
+    /**
+     * Like {@link #findCandidateMapping}, but compares only elements whose keys are equal, which
+     * takes linear time unless many elements share a key. Returns null if a key function (or a
+     * key's {@code hashCode()} or {@code equals()}) threw, in which case the caller should fall
+     * back to comparing every pair, which will report the exception (if it recurs) in the usual
+     * way.
+     *
+     * <p>If the keys are supposed to determine the correspondence by themselves, as with {@link
+     * Correspondence#equality}, they are arbitrary objects whose {@code hashCode()} may not be
+     * consistent with {@code equals()}. So we then also compare every pair of elements that are
+     * left without a candidate, as {@link IterableSubject#containsExactly} does for its leftovers.
+     */
+    private @Nullable ImmutableSetMultimap<Integer, Integer> findCandidateMappingByKey(
+        List<? extends A> actual,
+        List<? extends E> expected,
+        Correspondence.KeyFunctions<? super A, ? super E> keyFunctions,
+        Correspondence.ExceptionStore exceptions) {
+      // Look up all the candidates up front so that, if a key function throws, we haven't yet
+      // called compare() and stored any exceptions from it.
+      List<List<Integer>> candidatesByActualIndex = new ArrayList<>(actual.size());
+      try {
+        ListMultimap<Object, Integer> expectedIndexesByKey = ArrayListMultimap.create();
+        for (int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++) {
+          expectedIndexesByKey.put(
+              keyFunctions.expectedKey(expected.get(expectedIndex)), expectedIndex);
+        }
+        for (A actualElement : actual) {
+          candidatesByActualIndex.add(
+              expectedIndexesByKey.get(keyFunctions.actualKey(actualElement)));
+        }
+      } catch (RuntimeException e) {
+        return null;
+      }
+
+      ImmutableSetMultimap.Builder<Integer, Integer> mapping = ImmutableSetMultimap.builder();
+      boolean[] expectedHasCandidate = new boolean[expected.size()];
+      List<Integer> actualIndexesWithoutCandidates = new ArrayList<>();
+      for (int actualIndex = 0; actualIndex < actual.size(); actualIndex++) {
+        boolean hasCandidate = false;
+        for (int expectedIndex : candidatesByActualIndex.get(actualIndex)) {
+          if (keyFunctions.keysDetermineCorrespondence()
+              || correspondence.safeCompare(
+                  actual.get(actualIndex), expected.get(expectedIndex), exceptions)) {
+            mapping.put(actualIndex, expectedIndex);
+            expectedHasCandidate[expectedIndex] = true;
+            hasCandidate = true;
+          }
+        }
+        if (!hasCandidate) {
+          actualIndexesWithoutCandidates.add(actualIndex);
+        }
+      }
+
+      if (keyFunctions.keysDetermineCorrespondence() && !actualIndexesWithoutCandidates.isEmpty()) {
+        List<Integer> expectedIndexesWithoutCandidates = new ArrayList<>();
+        for (int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++) {
+          if (!expectedHasCandidate[expectedIndex]) {
+            expectedIndexesWithoutCandidates.add(expectedIndex);
+          }
+        }
+        for (int actualIndex : actualIndexesWithoutCandidates) {
+          for (int expectedIndex : expectedIndexesWithoutCandidates) {
+            if (correspondence.safeCompare(
+                actual.get(actualIndex), expected.get(expectedIndex), exceptions)) {
+              mapping.put(actualIndex, expectedIndex);
+            }
+          }
+        }
+      }
+      return mapping.build();
+    }
+
     /**
      * Given a list of actual elements, a list of expected elements, and a many:many mapping between
      * actual and expected elements specified as a multimap of indexes into the actual list to
@@ -1526,6 +1921,10 @@ public class IterableSubject extends Subject {
       if (correspondInOrderAllIn(actualList.iterator(), expectedList.iterator())) {
         return IN_ORDER;
       }
+      // As in containsExactlyElementsIn, we can check Correspondence.tolerance by sorting.
+      if (correspondWithinToleranceInAnyOrder(actualList, expectedList, /* allowExtra= */ true)) {
+        return requiredElementsFoundButNotInOrder(expected);
+      }
       // We know they don't correspond in order, so we're going to have to do an any-order test.
       // Find a many:many mapping between the indexes of the elements which correspond, and check
       // it for completeness.
@@ -1561,6 +1960,14 @@ public class IterableSubject extends Subject {
       }
       // The 1:1 mapping maps all the expected elements, so the test succeeds (but we know from
       // above that the mapping is not in order).
+      return requiredElementsFoundButNotInOrder(expected);
+    }
+
+    /**
+     * Returns the result of a {@code containsAtLeastElementsIn} assertion that has passed, but
+     * whose expected elements we know don't correspond in order to any subset of the actual ones.
+     */
+    private Ordered requiredElementsFoundButNotInOrder(final Iterable<? extends E> expected) {
       return new Ordered() {
         @Override
         public void inOrder() {
@@ -1588,6 +1995,27 @@ public class IterableSubject extends Subject {
       return containsAtLeastElementsIn(asList(expected));
     }
 
+    /**
+     * Like {@link #containsAtLeastElementsIn(Iterable)}, for a primitive array whose
+     * correspondence holds exactly when the {@linkplain PrimitiveArrayKeys keys} of the elements
+     * are equal. See {@link #containsExactlyElementsIn(Iterable, PrimitiveArrayKeys,
+     * PrimitiveArrayKeys)}.
+     */
+    final Ordered containsAtLeastElementsIn(
+        Iterable<? extends E> expected,
+        @Nullable PrimitiveArrayKeys actualKeys,
+        PrimitiveArrayKeys expectedKeys) {
+      if (actualKeys != null) {
+        if (actualKeys.containsInOrder(expectedKeys)) {
+          return IN_ORDER;
+        }
+        if (actualKeys.containsAll(expectedKeys)) {
+          return requiredElementsFoundButNotInOrder(expected);
+        }
+      }
+      return containsAtLeastElementsIn(expected);
+    }
+
     /**
      * Returns whether all the elements of the expected iterator and any subset of the elements of
      * the actual iterator can be paired up in order, such that every pair of actual and expected
@@ -31,12 +31,12 @@ import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.LinkedHashMultiset;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import com.google.common.truth.Correspondence.DiffFormatter;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -62,6 +62,22 @@ public class MapSubject extends Subject {
     this.actual = map;
   }
 
+  /**
+   * Returns the actual value for use in a fact. If its string form is known to be the usual "{k=v}"
+   * list of its entries, {@link Fact} can display just the first entries of a large map. Otherwise,
+   * it displays {@link #actualCustomStringRepresentation} in full or truncated.
+   */
+  @Override
+  final Object actualForFacts() {
+    // A subclass may override actualCustomStringRepresentation(), so we check the exact class.
+    if (getClass() == MapSubject.class
+        && actual != null
+        && Platform.hasElementListToString(actual)) {
+      return Fact.entriesOf(actual);
+    }
+    return super.actualForFacts();
+  }
+
   @Override
   public final void isEqualTo(@Nullable Object other) {
     if (Objects.equal(actual, other)) {
@@ -136,7 +152,7 @@ public class MapSubject extends Subject {
                 "though it did contain keys",
                 countDuplicatesAndAddTypeInfo(
                     retainMatchingToString(actual.keySet(), /* itemsToCheck= */ keyList))),
-            fact("full contents", actualCustomStringRepresentationForPackageMembersToCall()));
+            fact("full contents", actualForFacts()));
       } else if (actual.containsValue(value)) {
         Set<Object> keys = new LinkedHashSet<>();
         for (Map.Entry<?, ?> actualEntry : actual.entrySet()) {
@@ -148,7 +164,7 @@ public class MapSubject extends Subject {
             fact("expected to contain entry", entry),
             simpleFact("but did not"),
             fact("though it did contain keys with that value", keys),
-            fact("full contents", actualCustomStringRepresentationForPackageMembersToCall()));
+            fact("full contents", actualForFacts()));
       } else if (hasMatchingToStringPair(actual.values(), valueList)) {
         failWithoutActual(
             fact("expected to contain entry", entry),
@@ -158,7 +174,7 @@ public class MapSubject extends Subject {
                 "though it did contain values",
                 countDuplicatesAndAddTypeInfo(
                     retainMatchingToString(actual.values(), /* itemsToCheck= */ valueList))),
-            fact("full contents", actualCustomStringRepresentationForPackageMembersToCall()));
+            fact("full contents", actualForFacts()));
       } else {
         failWithActual("expected to contain entry", entry);
       }
@@ -260,7 +276,8 @@ public class MapSubject extends Subject {
   @CanIgnoreReturnValue
   private boolean containsEntriesInAnyOrder(Map<?, ?> expectedMap, boolean allowUnexpected) {
     MapDifference<Object, Object, Object> diff =
-        MapDifference.create(actual, expectedMap, allowUnexpected, EQUALITY);
+        MapDifference.create(
+            actual, expectedMap, allowUnexpected, EQUALITY, maxReportedDifferences());
     if (diff.isEmpty()) {
       return true;
     }
@@ -303,74 +320,99 @@ public class MapSubject extends Subject {
 
   // This is mostly like the MapDifference code in com.google.common.collect, generalized to remove
   // the requirement that the values of the two maps are of the same type and are compared with a
-  // symmetric Equivalence.
+  // symmetric Equivalence. Unlike that code, it makes a single pass over each map, looking keys up
+  // in the other map instead of copying either one, and it keeps at most maxSamples differences of
+  // each kind (but counts all of them).
   private static class MapDifference<K, A, E> {
-    private final Map<K, E> missing;
-    private final Map<K, A> unexpected;
-    private final Map<K, ValueDifference<A, E>> wrongValues;
+    private final Map<K, E> missing = new LinkedHashMap<>();
+    private final Map<K, A> unexpected = new LinkedHashMap<>();
+    private final Map<K, ValueDifference<A, E>> wrongValues = new LinkedHashMap<>();
+    private int missingCount;
+    private int unexpectedCount;
+    private int wrongValueCount;
     private final Set<K> allKeys;
+    private final int maxSamples;
 
     static <K, A, E> MapDifference<K, A, E> create(
         Map<? extends K, ? extends A> actual,
         Map<? extends K, ? extends E> expected,
         boolean allowUnexpected,
-        ValueTester<? super A, ? super E> valueTester) {
-      Map<K, A> unexpected = new LinkedHashMap<>(actual);
-      Map<K, E> missing = new LinkedHashMap<>();
-      Map<K, ValueDifference<A, E>> wrongValues = new LinkedHashMap<>();
+        ValueTester<? super A, ? super E> valueTester,
+        int maxSamples) {
+      MapDifference<K, A, E> diff =
+          new MapDifference<>(Sets.union(actual.keySet(), expected.keySet()), maxSamples);
+      int presentKeyCount = 0;
       for (Map.Entry<? extends K, ? extends E> expectedEntry : expected.entrySet()) {
         K expectedKey = expectedEntry.getKey();
         E expectedValue = expectedEntry.getValue();
-        if (actual.containsKey(expectedKey)) {
-          A actualValue = unexpected.remove(expectedKey);
+        A actualValue = actual.get(expectedKey);
+        if (actualValue != null || actual.containsKey(expectedKey)) {
+          presentKeyCount++;
           if (!valueTester.test(actualValue, expectedValue)) {
-            wrongValues.put(expectedKey, new ValueDifference<>(actualValue, expectedValue));
+            diff.addWrongValue(expectedKey, actualValue, expectedValue);
           }
         } else {
-          missing.put(expectedKey, expectedValue);
+          diff.addMissing(expectedKey, expectedValue);
         }
       }
-      if (allowUnexpected) {
-        unexpected.clear();
+      // Every key of the actual map that we didn't find above is unexpected, so we look for them
+      // only if there are any.
+      if (!allowUnexpected && presentKeyCount < actual.size()) {
+        for (Map.Entry<? extends K, ? extends A> actualEntry : actual.entrySet()) {
+          if (!expected.containsKey(actualEntry.getKey())) {
+            diff.addUnexpected(actualEntry.getKey(), actualEntry.getValue());
+          }
+        }
       }
-      return new MapDifference<>(
-          missing, unexpected, wrongValues, Sets.union(actual.keySet(), expected.keySet()));
-    }
-
-    private MapDifference(
-        Map<K, E> missing,
-        Map<K, A> unexpected,
-        Map<K, ValueDifference<A, E>> wrongValues,
-        Set<K> allKeys) {
-      this.missing = missing;
-      this.unexpected = unexpected;
-      this.wrongValues = wrongValues;
+      return diff;
+    }
+
+    private MapDifference(Set<K> allKeys, int maxSamples) {
       this.allKeys = allKeys;
+      this.maxSamples = maxSamples;
+    }
+
+    private void addMissing(K key, E expectedValue) {
+      if (missingCount++ < maxSamples) {
+        missing.put(key, expectedValue);
+      }
+    }
+
+    private void addUnexpected(K key, A actualValue) {
+      if (unexpectedCount++ < maxSamples) {
+        unexpected.put(key, actualValue);
+      }
+    }
+
+    private void addWrongValue(K key, A actualValue, E expectedValue) {
+      if (wrongValueCount++ < maxSamples) {
+        wrongValues.put(key, new ValueDifference<>(actualValue, expectedValue));
+      }
     }
 
     boolean isEmpty() {
-      return missing.isEmpty() && unexpected.isEmpty() && wrongValues.isEmpty();
+      return missingCount == 0 && unexpectedCount == 0 && wrongValueCount == 0;
     }
 
     ImmutableList<Fact> describe(@Nullable Differ<? super A, ? super E> differ) {
       boolean includeKeyTypes = includeKeyTypes();
       ImmutableList.Builder<Fact> facts = ImmutableList.builder();
       if (!wrongValues.isEmpty()) {
-        facts.add(simpleFact("keys with wrong values"));
+        facts.add(simpleFact(heading("keys with wrong values", wrongValues, wrongValueCount)));
       }
       for (Map.Entry<K, ValueDifference<A, E>> entry : wrongValues.entrySet()) {
         facts.add(fact("for key", maybeAddType(entry.getKey(), includeKeyTypes)));
         facts.addAll(entry.getValue().describe(differ));
       }
       if (!missing.isEmpty()) {
-        facts.add(simpleFact("missing keys"));
+        facts.add(simpleFact(heading("missing keys", missing, missingCount)));
       }
       for (Map.Entry<K, E> entry : missing.entrySet()) {
         facts.add(fact("for key", maybeAddType(entry.getKey(), includeKeyTypes)));
         facts.add(fact("expected value", entry.getValue()));
       }
       if (!unexpected.isEmpty()) {
-        facts.add(simpleFact("unexpected keys"));
+        facts.add(simpleFact(heading("unexpected keys", unexpected, unexpectedCount)));
       }
       for (Map.Entry<K, A> entry : unexpected.entrySet()) {
         facts.add(fact("for key", maybeAddType(entry.getKey(), includeKeyTypes)));
@@ -379,14 +421,21 @@ public class MapSubject extends Subject {
       return facts.build();
     }
 
+    private static String heading(String heading, Map<?, ?> samples, int count) {
+      return samples.size() < count
+          ? lenientFormat("%s (showing first %s of %s)", heading, samples.size(), count)
+          : heading;
+    }
+
     private boolean includeKeyTypes() {
       // We will annotate all the keys in the diff with their types if any of the keys involved have
-      // the same toString() without being equal.
+      // the same toString() without being equal. We index the keys in the diff, rather than all the
+      // keys, since the diff is usually the smaller of the two.
       Set<K> keys = Sets.newHashSet();
       keys.addAll(missing.keySet());
       keys.addAll(unexpected.keySet());
       keys.addAll(wrongValues.keySet());
-      return hasMatchingToStringPair(keys, allKeys);
+      return hasMatchingToStringPair(allKeys, keys);
     }
   }
 
@@ -446,29 +495,66 @@ public class MapSubject extends Subject {
      */
     @Override
     public void inOrder() {
-      // We're using the fact that Sets.intersection keeps the order of the first set.
-      List<?> expectedKeyOrder =
-          Lists.newArrayList(Sets.intersection(expectedMap.keySet(), actual.keySet()));
-      List<?> actualKeyOrder =
-          Lists.newArrayList(Sets.intersection(actual.keySet(), expectedMap.keySet()));
-      if (!actualKeyOrder.equals(expectedKeyOrder)) {
-        ImmutableList.Builder<Fact> facts =
-            ImmutableList.<Fact>builder()
-                .add(
-                    simpleFact(
-                        allowUnexpected
-                            ? "required entries were all found, but order was wrong"
-                            : "entries match, but order was wrong"))
-                .add(
-                    fact(
-                        allowUnexpected ? "expected to contain at least" : "expected",
-                        expectedMap));
-        if (correspondence != null) {
-          facts.addAll(correspondence.describeForMapValues());
+      // We walk the keys that the two maps have in common in each map's order, side by side, and
+      // stop at the first position where they disagree.
+      Iterator<?> expectedKeys = expectedMap.keySet().iterator();
+      for (Object actualKey : actual.keySet()) {
+        if (!expectedMap.containsKey(actualKey)) {
+          continue;
+        }
+        Object expectedKey = nextKeyAlsoIn(actual, expectedKeys);
+        if (expectedKey == NO_MORE_KEYS) {
+          // This can happen only if the maps disagree about which keys are equal.
+          failOutOfOrder(ImmutableList.of(fact("first key out of order", actualKey)));
+          return;
+        }
+        if (!Objects.equal(actualKey, expectedKey)) {
+          failOutOfOrder(
+              ImmutableList.of(
+                  fact("first key out of order", actualKey),
+                  fact("expected key at that position", expectedKey)));
+          return;
         }
-        failWithActual(facts.build());
+      }
+      if (nextKeyAlsoIn(actual, expectedKeys) != NO_MORE_KEYS) {
+        failOutOfOrder(ImmutableList.<Fact>of());
+      }
+    }
+
+    private void failOutOfOrder(ImmutableList<Fact> firstDifference) {
+      ImmutableList.Builder<Fact> facts =
+          ImmutableList.<Fact>builder()
+              .add(
+                  simpleFact(
+                      allowUnexpected
+                          ? "required entries were all found, but order was wrong"
+                          : "entries match, but order was wrong"))
+              .addAll(firstDifference)
+              .add(
+                  fact(
+                      allowUnexpected ? "expected to contain at least" : "expected",
+                      expectedMap));
+      if (correspondence != null) {
+        facts.addAll(correspondence.describeForMapValues());
+      }
+      failWithActual(facts.build());
+    }
+  }
+
+  private static final Object NO_MORE_KEYS = new Object();
+
+  /**
+   * Returns the next key from {@code keys} that is also a key of {@code map}, or {@link
+   * #NO_MORE_KEYS} if there are none left.
+   */
+  private static @Nullable Object nextKeyAlsoIn(Map<?, ?> map, Iterator<?> keys) {
+    while (keys.hasNext()) {
+      Object key = keys.next();
+      if (map.containsKey(key)) {
+        return key;
       }
     }
+    return NO_MORE_KEYS;
   }
 
   /** Ordered implementation that does nothing because it's already known to be true. */
@@ -584,7 +670,7 @@ public class MapSubject extends Subject {
                   .addAll(correspondence.describeForMapValues())
                   .add(fact("but got value", actualValue))
                   .add(fact("diff", diff))
-                  .add(fact("full map", actualCustomStringRepresentationForPackageMembersToCall()))
+                  .add(fact("full map", actualForFacts()))
                   .addAll(exceptions.describeAsAdditionalInfo())
                   .build());
         } else {
@@ -594,7 +680,7 @@ public class MapSubject extends Subject {
                   .add(fact("expected value", expectedValue))
                   .addAll(correspondence.describeForMapValues())
                   .add(fact("but got value", actualValue))
-                  .add(fact("full map", actualCustomStringRepresentationForPackageMembersToCall()))
+                  .add(fact("full map", actualForFacts()))
                   .addAll(exceptions.describeAsAdditionalInfo())
                   .build());
         }
@@ -616,7 +702,7 @@ public class MapSubject extends Subject {
                   .addAll(correspondence.describeForMapValues())
                   .add(simpleFact("but was missing"))
                   .add(fact("other keys with matching values", keys))
-                  .add(fact("full map", actualCustomStringRepresentationForPackageMembersToCall()))
+                  .add(fact("full map", actualForFacts()))
                   .addAll(exceptions.describeAsAdditionalInfo())
                   .build());
         } else {
@@ -627,7 +713,7 @@ public class MapSubject extends Subject {
                   .add(fact("expected value", expectedValue))
                   .addAll(correspondence.describeForMapValues())
                   .add(simpleFact("but was missing"))
-                  .add(fact("full map", actualCustomStringRepresentationForPackageMembersToCall()))
+                  .add(fact("full map", actualForFacts()))
                   .addAll(exceptions.describeAsAdditionalInfo())
                   .build());
         }
@@ -651,7 +737,7 @@ public class MapSubject extends Subject {
                   .add(fact("expected not to contain", immutableEntry(excludedKey, excludedValue)))
                   .addAll(correspondence.describeForMapValues())
                   .add(fact("but contained", immutableEntry(excludedKey, actualValue)))
-                  .add(fact("full map", actualCustomStringRepresentationForPackageMembersToCall()))
+                  .add(fact("full map", actualForFacts()))
                   .addAll(exceptions.describeAsAdditionalInfo())
                   .build());
         }
@@ -663,7 +749,7 @@ public class MapSubject extends Subject {
                   .add(fact("expected not to contain", immutableEntry(excludedKey, excludedValue)))
                   .addAll(correspondence.describeForMapValues())
                   .add(simpleFact("found no match (but failing because of exception)"))
-                  .add(fact("full map", actualCustomStringRepresentationForPackageMembersToCall()))
+                  .add(fact("full map", actualForFacts()))
                   .build());
         }
       }
@@ -751,7 +837,8 @@ public class MapSubject extends Subject {
                 public boolean test(A actualValue, E expectedValue) {
                   return correspondence.safeCompare(actualValue, expectedValue, exceptions);
                 }
-              });
+              },
+              maxReportedDifferences());
       if (diff.isEmpty()) {
         // The maps correspond exactly. There's no need to check exceptions here, because if
         // Correspondence.compare() threw then safeCompare() would return false and the diff would
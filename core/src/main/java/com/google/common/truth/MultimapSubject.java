@@ -26,17 +26,22 @@ import static com.google.common.truth.SubjectUtils.countDuplicatesAndAddTypeInfo
 import static com.google.common.truth.SubjectUtils.hasMatchingToStringPair;
 import static com.google.common.truth.SubjectUtils.objectToTypeName;
 import static com.google.common.truth.SubjectUtils.retainMatchingToString;
+import static java.util.Arrays.asList;
 
+import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import com.google.common.truth.Correspondence.KeyFunctions;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -45,6 +50,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -378,17 +384,24 @@ public class MultimapSubject extends Subject {
      */
     @Override
     public void inOrder() {
-      // We use the fact that Sets.intersection's result has the same order as the first parameter
-      boolean keysInOrder =
-          Lists.newArrayList(Sets.intersection(actual.keySet(), expectedMultimap.keySet()))
-              .equals(Lists.newArrayList(expectedMultimap.keySet()));
+      // Every expected key is present in actual, so the keys are in order if the actual keys that
+      // are also expected keys come in the same order as the expected keys.
+      boolean keysInOrder = true;
+      Iterator<?> expectedKeys = expectedMultimap.keySet().iterator();
+      for (Object key : actual.keySet()) {
+        if (expectedMultimap.containsKey(key)
+            && !(expectedKeys.hasNext() && Objects.equal(key, expectedKeys.next()))) {
+          keysInOrder = false;
+          break;
+        }
+      }
 
       LinkedHashSet<Object> keysWithValuesOutOfOrder = Sets.newLinkedHashSet();
-      for (Object key : expectedMultimap.keySet()) {
-        List<?> actualVals = Lists.newArrayList(get(actual, key));
-        List<?> expectedVals = Lists.newArrayList(get(expectedMultimap, key));
-        Iterator<?> actualIterator = actualVals.iterator();
-        for (Object value : expectedVals) {
+      for (Map.Entry<?, ? extends Collection<?>> expectedEntry :
+          expectedMultimap.asMap().entrySet()) {
+        Object key = expectedEntry.getKey();
+        Iterator<?> actualIterator = get(actual, key).iterator();
+        for (Object value : expectedEntry.getValue()) {
           if (!advanceToFind(actualIterator, value)) {
             keysWithValuesOutOfOrder.add(key);
             break;
@@ -449,19 +462,29 @@ public class MultimapSubject extends Subject {
     }
   }
 
+  /**
+   * Returns the entries of {@code minuend} that are not in {@code subtrahend}, respecting
+   * multiplicity. This compares the values for each key separately, and it compares them by hashing
+   * only if they are not simply equal and in the same order, as they are for most keys in practice.
+   */
   private static ListMultimap<?, ?> difference(Multimap<?, ?> minuend, Multimap<?, ?> subtrahend) {
     ListMultimap<Object, Object> difference = LinkedListMultimap.create();
-    for (Object key : minuend.keySet()) {
-      List<?> valDifference =
-          difference(
-              Lists.newArrayList(get(minuend, key)), Lists.newArrayList(get(subtrahend, key)));
-      difference.putAll(key, valDifference);
+    for (Map.Entry<?, ? extends Collection<?>> minuendEntry : minuend.asMap().entrySet()) {
+      Object key = minuendEntry.getKey();
+      Collection<?> minuendValues = minuendEntry.getValue();
+      Collection<?> subtrahendValues = get(subtrahend, key);
+      if (!Iterables.elementsEqual(minuendValues, subtrahendValues)) {
+        difference.putAll(key, difference(minuendValues, subtrahendValues));
+      }
     }
     return difference;
   }
 
-  private static List<?> difference(List<?> minuend, List<?> subtrahend) {
-    LinkedHashMultiset<Object> remaining = LinkedHashMultiset.<Object>create(subtrahend);
+  private static List<?> difference(Collection<?> minuend, Collection<?> subtrahend) {
+    if (subtrahend.isEmpty()) {
+      return Lists.newArrayList(minuend);
+    }
+    HashMultiset<Object> remaining = HashMultiset.<Object>create(subtrahend);
     List<Object> difference = Lists.newArrayList();
     for (Object elem : minuend) {
       if (!remaining.remove(elem)) {
@@ -545,9 +568,26 @@ public class MultimapSubject extends Subject {
   public final class UsingCorrespondence<A, E> {
 
     private final Correspondence<? super A, ? super E> correspondence;
+    private final Optional<Executor> executor;
 
     private UsingCorrespondence(Correspondence<? super A, ? super E> correspondence) {
+      this(correspondence, Optional.<Executor>absent());
+    }
+
+    private UsingCorrespondence(
+        Correspondence<? super A, ? super E> correspondence, Optional<Executor> executor) {
       this.correspondence = checkNotNull(correspondence);
+      this.executor = executor;
+    }
+
+    /**
+     * Specifies that {@link #containsExactlyEntriesIn} and {@link #containsAtLeastEntriesIn} should
+     * spread their comparisons between actual and expected values over the threads of the given
+     * executor. See {@link IterableSubject.UsingCorrespondence#comparingInParallelUsing} for
+     * details.
+     */
+    public UsingCorrespondence<A, E> comparingInParallelUsing(Executor executor) {
+      return new UsingCorrespondence<>(correspondence, Optional.of(executor));
     }
 
     /**
@@ -722,10 +762,7 @@ public class MultimapSubject extends Subject {
       // the case where inOrder() fails it says the keys and/or the values for some keys are out of
       // order. We don't bother with that here. It would be nice, but it would be a lot of added
       // complexity for little gain.
-      return check()
-          .about(iterableEntries())
-          .that(actual.entries())
-          .comparingElementsUsing(new EntryCorrespondence<K, A, V>(correspondence))
+      return entriesUsing(new EntryCorrespondence<K, A, V>(correspondence))
           .containsExactlyElementsIn(expectedMultimap.entries());
     }
 
@@ -756,10 +793,7 @@ public class MultimapSubject extends Subject {
       // the case where inOrder() fails it says the keys and/or the values for some keys are out of
       // order. We don't bother with that here. It would be nice, but it would be a lot of added
       // complexity for little gain.
-      return check()
-          .about(iterableEntries())
-          .that(actual.entries())
-          .comparingElementsUsing(new EntryCorrespondence<K, A, V>(correspondence))
+      return entriesUsing(new EntryCorrespondence<K, A, V>(correspondence))
           .containsAtLeastElementsIn(expectedMultimap.entries());
     }
 
@@ -797,6 +831,18 @@ public class MultimapSubject extends Subject {
       return containsAtLeastEntriesIn(expectedMultimap);
     }
 
+    /** Returns a subject for the entries, comparing them using the given correspondence. */
+    private <K, V extends E>
+        IterableSubject.UsingCorrespondence<Map.Entry<K, A>, Map.Entry<K, V>> entriesUsing(
+            Correspondence<Map.Entry<K, A>, Map.Entry<K, V>> entryCorrespondence) {
+      IterableSubject.UsingCorrespondence<Map.Entry<K, A>, Map.Entry<K, V>> entries =
+          check()
+              .about(iterableEntries())
+              .that(actual.entries())
+              .comparingElementsUsing(entryCorrespondence);
+      return executor.isPresent() ? entries.comparingInParallelUsing(executor.get()) : entries;
+    }
+
     @SuppressWarnings("unchecked") // throwing ClassCastException is the correct behaviour
     private Multimap<?, A> getCastActual() {
       return (Multimap<?, A>) actual;
@@ -807,9 +853,11 @@ public class MultimapSubject extends Subject {
       extends Correspondence<Map.Entry<K, A>, Map.Entry<K, E>> {
 
     private final Correspondence<? super A, ? super E> valueCorrespondence;
+    private final KeyFunctions<Map.Entry<K, A>, Map.Entry<K, E>> keyFunctions;
 
     EntryCorrespondence(Correspondence<? super A, ? super E> valueCorrespondence) {
       this.valueCorrespondence = valueCorrespondence;
+      this.keyFunctions = entryKeyFunctions(valueCorrespondence.keyFunctions());
     }
 
     @Override
@@ -818,6 +866,56 @@ public class MultimapSubject extends Subject {
           && valueCorrespondence.compare(actual.getValue(), expected.getValue());
     }
 
+    /*
+     * Entries can correspond only if their keys are equal, so we let IterableSubject compare only
+     * the entries that share a key, rather than every actual entry with every expected entry. If
+     * the value correspondence has key functions of its own, we narrow things down further by
+     * those, too.
+     */
+    @Override
+    KeyFunctions<Map.Entry<K, A>, Map.Entry<K, E>> keyFunctions() {
+      return keyFunctions;
+    }
+
+    @SuppressWarnings("UnnecessaryAnonymousClass") // for Java 7 compatibility
+    private static <K, A, E> KeyFunctions<Map.Entry<K, A>, Map.Entry<K, E>> entryKeyFunctions(
+        final @Nullable KeyFunctions<? super A, ? super E> valueKeyFunctions) {
+      if (valueKeyFunctions == null) {
+        return KeyFunctions.narrowingCandidates(
+            new Function<Map.Entry<K, A>, Object>() {
+              @Override
+              public Object apply(Map.Entry<K, A> entry) {
+                return entry.getKey();
+              }
+            },
+            new Function<Map.Entry<K, E>, Object>() {
+              @Override
+              public Object apply(Map.Entry<K, E> entry) {
+                return entry.getKey();
+              }
+            });
+      }
+      Function<Map.Entry<K, A>, Object> actualKeyFunction =
+          new Function<Map.Entry<K, A>, Object>() {
+            @Override
+            public Object apply(Map.Entry<K, A> entry) {
+              return asList(entry.getKey(), valueKeyFunctions.actualKey(entry.getValue()));
+            }
+          };
+      Function<Map.Entry<K, E>, Object> expectedKeyFunction =
+          new Function<Map.Entry<K, E>, Object>() {
+            @Override
+            public Object apply(Map.Entry<K, E> entry) {
+              return asList(entry.getKey(), valueKeyFunctions.expectedKey(entry.getValue()));
+            }
+          };
+      // Entries correspond exactly when their keys are equal and their values correspond, so if
+      // the value keys determine whether values correspond, the combined keys do the same.
+      return valueKeyFunctions.keysDetermineCorrespondence()
+          ? KeyFunctions.determiningCorrespondence(actualKeyFunction, expectedKeyFunction)
+          : KeyFunctions.narrowingCandidates(actualKeyFunction, expectedKeyFunction);
+    }
+
     @Override
     public String toString() {
       return lenientFormat(
@@ -22,11 +22,22 @@ import static com.google.common.truth.Fact.fact;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.ComparisonFailure;
@@ -201,6 +212,42 @@ final class Platform {
     return Float.toString(value);
   }
 
+  /**
+   * Returns whether the arrays have the same length and elements, where elements are compared as
+   * by {@link Double#equals}.
+   */
+  static boolean doubleArraysEqual(double[] expected, double[] actual) {
+    return Arrays.equals(expected, actual);
+  }
+
+  /**
+   * Returns whether the arrays have the same length and elements, where elements are compared as
+   * by {@link Float#equals}.
+   */
+  static boolean floatArraysEqual(float[] expected, float[] actual) {
+    return Arrays.equals(expected, actual);
+  }
+
+  /**
+   * Returns whether the given collection or map inherits its {@code toString()} from one of the
+   * standard implementations, which list its elements as "[a, b]" or its entries as "{k=v}".
+   */
+  static boolean hasElementListToString(Object collectionOrMap) {
+    try {
+      Method toString = collectionOrMap.getClass().getMethod("toString");
+      return ELEMENT_LIST_TO_STRING_CLASSES.contains(toString.getDeclaringClass());
+    } catch (NoSuchMethodException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static final ImmutableSet<Class<?>> ELEMENT_LIST_TO_STRING_CLASSES =
+      ImmutableSet.<Class<?>>of(
+          AbstractCollection.class,
+          AbstractMap.class,
+          ImmutableCollection.class,
+          ImmutableMap.class);
+
   /** Returns a human readable string representation of the throwable's stack trace. */
   static String getStackTraceAsString(Throwable throwable) {
     return Throwables.getStackTraceAsString(throwable);
@@ -211,6 +258,53 @@ final class Platform {
     return System.getProperty("java.runtime.name").contains("Android");
   }
 
+  /**
+   * Runs all the given tasks, on the threads of the given executor as well as the calling thread,
+   * and returns once they have all finished. If any tasks throw, rethrows the exception from the
+   * first of them in list order, so that the outcome doesn't depend on scheduling.
+   *
+   * <p>The calling thread runs any tasks that the executor's threads don't get to, so this doesn't
+   * deadlock if the executor is busy (or is running this very method).
+   */
+  static void runInParallel(Executor executor, final List<? extends Runnable> tasks) {
+    final AtomicInteger nextTask = new AtomicInteger();
+    final CountDownLatch finished = new CountDownLatch(tasks.size());
+    // Each element is written by at most one thread, and read only after the latch opens.
+    final Throwable[] failures = new Throwable[tasks.size()];
+    Runnable worker =
+        new Runnable() {
+          @Override
+          public void run() {
+            int i;
+            while ((i = nextTask.getAndIncrement()) < tasks.size()) {
+              try {
+                tasks.get(i).run();
+              } catch (Throwable t) {
+                failures[i] = t;
+              } finally {
+                finished.countDown();
+              }
+            }
+          }
+        };
+    int helpers = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()) - 1;
+    for (int i = 0; i < helpers; i++) {
+      try {
+        executor.execute(worker);
+      } catch (RejectedExecutionException e) {
+        break; // The calling thread will run whatever is left.
+      }
+    }
+    worker.run();
+    Uninterruptibles.awaitUninterruptibly(finished);
+    for (Throwable failure : failures) {
+      if (failure != null) {
+        throwIfUnchecked(failure);
+        throw new AssertionError(failure); // Runnable.run() can't throw checked exceptions.
+      }
+    }
+  }
+
   /**
    * Wrapping interface of {@link TestRule} to be used within truth.
    *
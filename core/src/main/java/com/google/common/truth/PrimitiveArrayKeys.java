@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The elements of a primitive array, as seen by assertions about the array's boxed elements (e.g.
+ * {@code assertThat(intArray).asList()}), but without boxing them.
+ *
+ * <p>Each element is represented by a {@code long} key. Two elements have equal keys exactly when
+ * their boxed forms are {@linkplain Object#equals equal}, and keys are ordered the same way as the
+ * boxed forms' natural ordering. (So, for example, all {@code NaN} values of a {@code double[]}
+ * have the same key, which is greater than that of positive infinity, and {@code -0.0} has a
+ * smaller key than {@code 0.0}.) This lets assertions check whether they pass by comparing or
+ * sorting keys. If an assertion doesn't pass, its caller should fall back to the general
+ * implementation, which describes the failure.
+ */
+abstract class PrimitiveArrayKeys {
+  static PrimitiveArrayKeys of(final boolean[] array) {
+    checkNotNull(array);
+    return new PrimitiveArrayKeys(array.length) {
+      @Override
+      long key(int index) {
+        return array[index] ? 1 : 0;
+      }
+
+      @Override
+      boolean isElement(@Nullable Object value) {
+        return value instanceof Boolean;
+      }
+
+      @Override
+      long keyOfElement(Object element) {
+        return (Boolean) element ? 1 : 0;
+      }
+    };
+  }
+
+  static PrimitiveArrayKeys of(final byte[] array) {
+    checkNotNull(array);
+    return new PrimitiveArrayKeys(array.length) {
+      @Override
+      long key(int index) {
+        return array[index];
+      }
+
+      @Override
+      boolean isElement(@Nullable Object value) {
+        return value instanceof Byte;
+      }
+
+      @Override
+      long keyOfElement(Object element) {
+        return (Byte) element;
+      }
+    };
+  }
+
+  static PrimitiveArrayKeys of(final char[] array) {
+    checkNotNull(array);
+    return new PrimitiveArrayKeys(array.length) {
+      @Override
+      long key(int index) {
+        return array[index];
+      }
+
+      @Override
+      boolean isElement(@Nullable Object value) {
+        return value instanceof Character;
+      }
+
+      @Override
+      long keyOfElement(Object element) {
+        return (Character) element;
+      }
+    };
+  }
+
+  static PrimitiveArrayKeys of(final short[] array) {
+    checkNotNull(array);
+    return new PrimitiveArrayKeys(array.length) {
+      @Override
+      long key(int index) {
+        return array[index];
+      }
+
+      @Override
+      boolean isElement(@Nullable Object value) {
+        return value instanceof Short;
+      }
+
+      @Override
+      long keyOfElement(Object element) {
+        return (Short) element;
+      }
+    };
+  }
+
+  static PrimitiveArrayKeys of(final int[] array) {
+    checkNotNull(array);
+    return new PrimitiveArrayKeys(array.length) {
+      @Override
+      long key(int index) {
+        return array[index];
+      }
+
+      @Override
+      boolean isElement(@Nullable Object value) {
+        return value instanceof Integer;
+      }
+
+      @Override
+      long keyOfElement(Object element) {
+        return (Integer) element;
+      }
+    };
+  }
+
+  static PrimitiveArrayKeys of(final long[] array) {
+    checkNotNull(array);
+    return new PrimitiveArrayKeys(array.length) {
+      @Override
+      long key(int index) {
+        return array[index];
+      }
+
+      @Override
+      boolean isElement(@Nullable Object value) {
+        return value instanceof Long;
+      }
+
+      @Override
+      long keyOfElement(Object element) {
+        return (Long) element;
+      }
+    };
+  }
+
+  static PrimitiveArrayKeys of(final float[] array) {
+    checkNotNull(array);
+    return new PrimitiveArrayKeys(array.length) {
+      @Override
+      long key(int index) {
+        return floatKey(array[index]);
+      }
+
+      @Override
+      boolean isElement(@Nullable Object value) {
+        return value instanceof Float;
+      }
+
+      @Override
+      long keyOfElement(Object element) {
+        return floatKey((Float) element);
+      }
+    };
+  }
+
+  static PrimitiveArrayKeys of(final double[] array) {
+    checkNotNull(array);
+    return new PrimitiveArrayKeys(array.length) {
+      @Override
+      long key(int index) {
+        return doubleKey(array[index]);
+      }
+
+      @Override
+      boolean isElement(@Nullable Object value) {
+        return value instanceof Double;
+      }
+
+      @Override
+      long keyOfElement(Object element) {
+        return doubleKey((Double) element);
+      }
+    };
+  }
+
+  /** Returns the keys of the given array, or null if it is not an array of primitives. */
+  static @Nullable PrimitiveArrayKeys ofArray(Object array) {
+    if (array instanceof boolean[]) {
+      return of((boolean[]) array);
+    } else if (array instanceof byte[]) {
+      return of((byte[]) array);
+    } else if (array instanceof char[]) {
+      return of((char[]) array);
+    } else if (array instanceof short[]) {
+      return of((short[]) array);
+    } else if (array instanceof int[]) {
+      return of((int[]) array);
+    } else if (array instanceof long[]) {
+      return of((long[]) array);
+    } else if (array instanceof float[]) {
+      return of((float[]) array);
+    } else if (array instanceof double[]) {
+      return of((double[]) array);
+    } else {
+      return null;
+    }
+  }
+
+  /*
+   * Double.compare orders values by their doubleToLongBits. Those bits order non-negative values
+   * correctly as longs, but order negative values backwards, which we fix by flipping all the
+   * bits apart from the sign bit. Likewise for floats.
+   */
+
+  private static long doubleKey(double value) {
+    long bits = Double.doubleToLongBits(value);
+    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+  }
+
+  private static long floatKey(float value) {
+    int bits = Float.floatToIntBits(value);
+    return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+  }
+
+  private final int size;
+
+  private PrimitiveArrayKeys(int size) {
+    this.size = size;
+  }
+
+  /** Returns the key of the element at the given index. */
+  abstract long key(int index);
+
+  /** Returns whether the given value has the boxed type of this array's elements. */
+  abstract boolean isElement(@Nullable Object value);
+
+  /** Returns the key of the given boxed element, which must satisfy {@link #isElement}. */
+  abstract long keyOfElement(Object element);
+
+  /**
+   * Returns the keys of the given boxed elements, or null if any of them doesn't have the boxed
+   * type of this array's elements (so is not equal to any of them).
+   */
+  final @Nullable PrimitiveArrayKeys keysOfElements(Iterable<?> elements) {
+    long[] keys =
+        new long[elements instanceof Collection ? ((Collection<?>) elements).size() : 16];
+    int size = 0;
+    for (Object element : elements) {
+      if (!isElement(element)) {
+        return null;
+      }
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2 + 1);
+      }
+      keys[size++] = keyOfElement(element);
+    }
+    // The result is only ever asked for its keys, so a long[] of them will do.
+    return of(size == keys.length ? keys : Arrays.copyOf(keys, size));
+  }
+
+  /**
+   * Returns whether each element is greater than (or, unless {@code strict}, equal to) the one
+   * before it, according to the natural ordering of the boxed elements.
+   */
+  final boolean isInOrder(boolean strict) {
+    for (int i = 1; i < size; i++) {
+      long previous = key(i - 1);
+      long next = key(i);
+      if (strict ? previous >= next : previous > next) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns whether any two elements are equal. */
+  final boolean hasDuplicates() {
+    long[] sorted = sortedKeys();
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i - 1] == sorted[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns whether the two arrays have equal elements in the same order. */
+  final boolean equalsInOrder(PrimitiveArrayKeys other) {
+    if (size != other.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (key(i) != other.key(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the first index at which the two arrays have unequal elements, the length of the
+   * shorter array if it is a prefix of the other, or -1 if the arrays are equal.
+   */
+  final int firstMismatch(PrimitiveArrayKeys other) {
+    int commonSize = Math.min(size, other.size);
+    for (int i = 0; i < commonSize; i++) {
+      if (key(i) != other.key(i)) {
+        return i;
+      }
+    }
+    return size == other.size ? -1 : commonSize;
+  }
+
+  /** Returns the number of indexes present in both arrays at which their elements are unequal. */
+  final int countMismatches(PrimitiveArrayKeys other) {
+    int commonSize = Math.min(size, other.size);
+    int count = 0;
+    for (int i = 0; i < commonSize; i++) {
+      if (key(i) != other.key(i)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Returns whether the two arrays have equal elements, each the same number of times. */
+  final boolean equalsIgnoringOrder(PrimitiveArrayKeys other) {
+    return size == other.size && Arrays.equals(sortedKeys(), other.sortedKeys());
+  }
+
+  /**
+   * Returns whether the elements of {@code required} appear, in the same order, within this array.
+   * They are not required to be consecutive.
+   */
+  final boolean containsInOrder(PrimitiveArrayKeys required) {
+    int i = 0;
+    for (int j = 0; j < required.size; j++) {
+      long requiredKey = required.key(j);
+      while (i < size && key(i) != requiredKey) {
+        i++;
+      }
+      if (i == size) {
+        return false;
+      }
+      i++;
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether each element of {@code required} appears in this array at least as many times
+   * as it does in {@code required}.
+   */
+  final boolean containsAll(PrimitiveArrayKeys required) {
+    if (required.size > size) {
+      return false;
+    }
+    long[] sorted = sortedKeys();
+    long[] sortedRequired = required.sortedKeys();
+    int i = 0;
+    for (long requiredKey : sortedRequired) {
+      while (i < sorted.length && sorted[i] < requiredKey) {
+        i++;
+      }
+      if (i == sorted.length || sorted[i] != requiredKey) {
+        return false;
+      }
+      i++;
+    }
+    return true;
+  }
+
+  private long[] sortedKeys() {
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = key(i);
+    }
+    Arrays.sort(keys);
+    return keys;
+  }
+}
@@ -33,6 +33,8 @@ public final class PrimitiveBooleanArraySubject extends AbstractArraySubject {
   }
 
   public IterableSubject asList() {
-    return checkNoNeedToDisplayBothValues("asList()").that(Booleans.asList(actual));
+    return checkNoNeedToDisplayBothValues("asList()")
+        .about(elementsOf(PrimitiveArrayKeys.of(actual)))
+        .that(Booleans.asList(actual));
   }
 }
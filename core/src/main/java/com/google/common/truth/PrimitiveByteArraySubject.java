@@ -33,6 +33,8 @@ public final class PrimitiveByteArraySubject extends AbstractArraySubject {
   }
 
   public IterableSubject asList() {
-    return checkNoNeedToDisplayBothValues("asList()").that(Bytes.asList(actual));
+    return checkNoNeedToDisplayBothValues("asList()")
+        .about(elementsOf(PrimitiveArrayKeys.of(actual)))
+        .that(Bytes.asList(actual));
   }
 }
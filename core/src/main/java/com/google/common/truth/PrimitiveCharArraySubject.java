@@ -33,6 +33,8 @@ public final class PrimitiveCharArraySubject extends AbstractArraySubject {
   }
 
   public IterableSubject asList() {
-    return checkNoNeedToDisplayBothValues("asList()").that(Chars.asList(actual));
+    return checkNoNeedToDisplayBothValues("asList()")
+        .about(elementsOf(PrimitiveArrayKeys.of(actual)))
+        .that(Chars.asList(actual));
   }
 }
@@ -113,7 +113,7 @@ public final class PrimitiveDoubleArraySubject extends AbstractArraySubject {
    *     Double#NaN}, {@link Double#POSITIVE_INFINITY}, or negative, including {@code -0.0}
    */
   public DoubleArrayAsIterable usingTolerance(double tolerance) {
-    return new DoubleArrayAsIterable(tolerance(tolerance), iterableSubject());
+    return new DoubleArrayAsIterable(tolerance(tolerance), iterableSubject(), null);
   }
 
   private static final Correspondence<Double, Number> EXACT_EQUALITY_CORRESPONDENCE =
@@ -183,7 +183,8 @@ public final class PrimitiveDoubleArraySubject extends AbstractArraySubject {
    * </ul>
    */
   public DoubleArrayAsIterable usingExactEquality() {
-    return new DoubleArrayAsIterable(EXACT_EQUALITY_CORRESPONDENCE, iterableSubject());
+    return new DoubleArrayAsIterable(
+        EXACT_EQUALITY_CORRESPONDENCE, iterableSubject(), PrimitiveArrayKeys.of(actual));
   }
 
   /**
@@ -198,10 +199,15 @@ public final class PrimitiveDoubleArraySubject extends AbstractArraySubject {
    */
   public static final class DoubleArrayAsIterable
       extends IterableSubject.UsingCorrespondence<Double, Number> {
+    /** The keys of the actual elements if comparing them exactly, which we can then do unboxed. */
+    private final @Nullable PrimitiveArrayKeys exactKeys;
 
     DoubleArrayAsIterable(
-        Correspondence<? super Double, Number> correspondence, IterableSubject subject) {
+        Correspondence<? super Double, Number> correspondence,
+        IterableSubject subject,
+        @Nullable PrimitiveArrayKeys exactKeys) {
       super(subject, correspondence);
+      this.exactKeys = exactKeys;
     }
 
     /**
@@ -209,7 +215,8 @@ public final class PrimitiveDoubleArraySubject extends AbstractArraySubject {
      */
     @CanIgnoreReturnValue
     public Ordered containsAtLeast(double[] expected) {
-      return containsAtLeastElementsIn(Doubles.asList(expected));
+      return containsAtLeastElementsIn(
+          Doubles.asList(expected), exactKeys, PrimitiveArrayKeys.of(expected));
     }
 
     /** As {@link #containsAnyOf(Object, Object, Object...)} but taking a primitive double array. */
@@ -220,7 +227,8 @@ public final class PrimitiveDoubleArraySubject extends AbstractArraySubject {
     /** As {@link #containsExactly(Object...)} but taking a primitive double array. */
     @CanIgnoreReturnValue
     public Ordered containsExactly(double[] expected) {
-      return containsExactlyElementsIn(Doubles.asList(expected));
+      return containsExactlyElementsIn(
+          Doubles.asList(expected), exactKeys, PrimitiveArrayKeys.of(expected));
     }
 
     /**
@@ -112,7 +112,7 @@ public final class PrimitiveFloatArraySubject extends AbstractArraySubject {
    *     Float#NaN}, {@link Float#POSITIVE_INFINITY}, or negative, including {@code -0.0f}
    */
   public FloatArrayAsIterable usingTolerance(double tolerance) {
-    return new FloatArrayAsIterable(tolerance(tolerance), iterableSubject());
+    return new FloatArrayAsIterable(tolerance(tolerance), iterableSubject(), null);
   }
 
   private static final Correspondence<Float, Number> EXACT_EQUALITY_CORRESPONDENCE =
@@ -190,7 +190,8 @@ public final class PrimitiveFloatArraySubject extends AbstractArraySubject {
    * </ul>
    */
   public FloatArrayAsIterable usingExactEquality() {
-    return new FloatArrayAsIterable(EXACT_EQUALITY_CORRESPONDENCE, iterableSubject());
+    return new FloatArrayAsIterable(
+        EXACT_EQUALITY_CORRESPONDENCE, iterableSubject(), PrimitiveArrayKeys.of(actual));
   }
 
   /**
@@ -205,10 +206,15 @@ public final class PrimitiveFloatArraySubject extends AbstractArraySubject {
    */
   public static final class FloatArrayAsIterable
       extends IterableSubject.UsingCorrespondence<Float, Number> {
+    /** The keys of the actual elements if comparing them exactly, which we can then do unboxed. */
+    private final @Nullable PrimitiveArrayKeys exactKeys;
 
     FloatArrayAsIterable(
-        Correspondence<? super Float, Number> correspondence, IterableSubject subject) {
+        Correspondence<? super Float, Number> correspondence,
+        IterableSubject subject,
+        @Nullable PrimitiveArrayKeys exactKeys) {
       super(subject, correspondence);
+      this.exactKeys = exactKeys;
     }
 
     /**
@@ -216,7 +222,8 @@ public final class PrimitiveFloatArraySubject extends AbstractArraySubject {
      */
     @CanIgnoreReturnValue
     public Ordered containsAtLeast(float[] expected) {
-      return containsAtLeastElementsIn(Floats.asList(expected));
+      return containsAtLeastElementsIn(
+          Floats.asList(expected), exactKeys, PrimitiveArrayKeys.of(expected));
     }
 
     /** As {@link #containsAnyOf(Object, Object, Object...)} but taking a primitive float array. */
@@ -227,7 +234,8 @@ public final class PrimitiveFloatArraySubject extends AbstractArraySubject {
     /** As {@link #containsExactly(Object...)} but taking a primitive float array. */
     @CanIgnoreReturnValue
     public Ordered containsExactly(float[] expected) {
-      return containsExactlyElementsIn(Floats.asList(expected));
+      return containsExactlyElementsIn(
+          Floats.asList(expected), exactKeys, PrimitiveArrayKeys.of(expected));
     }
 
     /** As {@link #containsNoneOf(Object, Object, Object...)} but taking a primitive float array. */
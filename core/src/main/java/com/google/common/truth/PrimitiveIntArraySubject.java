@@ -33,6 +33,8 @@ public final class PrimitiveIntArraySubject extends AbstractArraySubject {
   }
 
   public IterableSubject asList() {
-    return checkNoNeedToDisplayBothValues("asList()").that(Ints.asList(actual));
+    return checkNoNeedToDisplayBothValues("asList()")
+        .about(elementsOf(PrimitiveArrayKeys.of(actual)))
+        .that(Ints.asList(actual));
   }
 }
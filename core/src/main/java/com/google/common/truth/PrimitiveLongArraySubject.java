@@ -33,6 +33,8 @@ public final class PrimitiveLongArraySubject extends AbstractArraySubject {
   }
 
   public IterableSubject asList() {
-    return checkNoNeedToDisplayBothValues("asList()").that(Longs.asList(actual));
+    return checkNoNeedToDisplayBothValues("asList()")
+        .about(elementsOf(PrimitiveArrayKeys.of(actual)))
+        .that(Longs.asList(actual));
   }
 }
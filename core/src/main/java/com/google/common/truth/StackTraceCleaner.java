@@ -19,6 +19,12 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import static java.lang.Thread.currentThread;
 
 import com.google.common.annotations.GwtIncompatible;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
@@ -26,6 +32,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /** Utility that cleans stack traces to remove noise from common frameworks. */
 @GwtIncompatible
@@ -196,7 +203,11 @@ final class StackTraceCleaner {
       ImmutableSet.of(StandardSubjectBuilder.class.getCanonicalName());
 
   private static boolean isTruthEntrance(StackTraceElement stackTraceElement) {
-    return isFromClassOrClassNestedInside(stackTraceElement, SUBJECT_CLASS)
+    return classify(stackTraceElement.getClassName()).isTruthEntrance;
+  }
+
+  private static boolean isTruthEntrance(Class<?> stackClass) {
+    return isFromClassOrClassNestedInside(stackClass, SUBJECT_CLASS)
         /*
          * Don't match classes _nested inside_ StandardSubjectBuilder because that would match
          * Expect's Statement implementation. While we want to strip everything from there _down_, we
@@ -205,25 +216,23 @@ final class StackTraceCleaner {
          * (StandardSubjectBuilder is listed here only for its fail() methods, anyway, so we don't
          * have to worry about nested classes like we do with Subject.)
          */
-        || isFromClassDirectly(stackTraceElement, STANDARD_SUBJECT_BUILDER_CLASS);
+        || isFromClassDirectly(stackClass, STANDARD_SUBJECT_BUILDER_CLASS);
   }
 
   private static final ImmutableSet<String> JUNIT_INFRASTRUCTURE_CLASSES =
       ImmutableSet.of("org.junit.runner.Runner", "org.junit.runners.model.Statement");
 
   private static boolean isJUnitIntrastructure(StackTraceElement stackTraceElement) {
+    return classify(stackTraceElement.getClassName()).isJUnitInfrastructure;
+  }
+
+  private static boolean isJUnitIntrastructure(Class<?> stackClass) {
     // It's not clear whether looking at nested classes here is useful, harmful, or neutral.
-    return isFromClassOrClassNestedInside(stackTraceElement, JUNIT_INFRASTRUCTURE_CLASSES);
+    return isFromClassOrClassNestedInside(stackClass, JUNIT_INFRASTRUCTURE_CLASSES);
   }
 
   private static boolean isFromClassOrClassNestedInside(
-      StackTraceElement stackTraceElement, ImmutableSet<String> recognizedClasses) {
-    Class<?> stackClass;
-    try {
-      stackClass = loadClass(stackTraceElement.getClassName());
-    } catch (ClassNotFoundException e) {
-      return false;
-    }
+      Class<?> stackClass, ImmutableSet<String> recognizedClasses) {
     try {
       for (; stackClass != null; stackClass = stackClass.getEnclosingClass()) {
         for (String recognizedClass : recognizedClasses) {
@@ -262,13 +271,7 @@ final class StackTraceCleaner {
   }
 
   private static boolean isFromClassDirectly(
-      StackTraceElement stackTraceElement, ImmutableSet<String> recognizedClasses) {
-    Class<?> stackClass;
-    try {
-      stackClass = loadClass(stackTraceElement.getClassName());
-    } catch (ClassNotFoundException e) {
-      return false;
-    }
+      Class<?> stackClass, ImmutableSet<String> recognizedClasses) {
     for (String recognizedClass : recognizedClasses) {
       if (isSubtypeOf(stackClass, recognizedClass)) {
         return true;
@@ -277,6 +280,93 @@ final class StackTraceCleaner {
     return false;
   }
 
+  /**
+   * The most class names whose classification we remember per class loader. Stack traces tend to
+   * mention the same few hundred classes over and over, so this is plenty.
+   */
+  private static final int MAX_CACHED_CLASSIFICATIONS_PER_LOADER = 10000;
+
+  /**
+   * The classification of each class that we've recently checked for being a Truth entrance or
+   * JUnit infrastructure. Without this, we'd load each such class and walk its superclasses and
+   * enclosing classes again for every failure. (Other frames need only their class names, so we
+   * never load their classes.)
+   *
+   * <p>The cache holds its class loaders weakly so that we don't prevent them from being unloaded.
+   * (The values don't refer to any classes from those loaders.)
+   */
+  private static final LoadingCache<ClassLoader, Cache<String, FrameClassification>>
+      frameClassificationsByLoader =
+          CacheBuilder.newBuilder()
+              .weakKeys()
+              .build(
+                  new CacheLoader<ClassLoader, Cache<String, FrameClassification>>() {
+                    @Override
+                    public Cache<String, FrameClassification> load(ClassLoader loader) {
+                      return CacheBuilder.newBuilder()
+                          .maximumSize(MAX_CACHED_CLASSIFICATIONS_PER_LOADER)
+                          .build();
+                    }
+                  });
+
+  @VisibleForTesting
+  static FrameClassification classify(String className) {
+    ClassLoader loader = classLoader();
+    Cache<String, FrameClassification> cache = frameClassificationsByLoader.getUnchecked(loader);
+    FrameClassification classification = cache.getIfPresent(className);
+    if (classification == null) {
+      classification = FrameClassification.compute(loader, className);
+      // If another thread classified the same class concurrently, we just overwrite its result.
+      cache.put(className, classification);
+    }
+    return classification;
+  }
+
+  /** What the cleaner needs to load the class of a stack frame to find out. */
+  @VisibleForTesting
+  static final class FrameClassification {
+    static FrameClassification compute(ClassLoader loader, String className) {
+      Class<?> stackClass;
+      try {
+        stackClass = loader.loadClass(className);
+      } catch (ClassNotFoundException e) {
+        return new FrameClassification(false, false);
+      }
+      return new FrameClassification(
+          isTruthEntrance(stackClass), isJUnitIntrastructure(stackClass));
+    }
+
+    final boolean isTruthEntrance;
+    final boolean isJUnitInfrastructure;
+
+    private FrameClassification(boolean isTruthEntrance, boolean isJUnitInfrastructure) {
+      this.isTruthEntrance = isTruthEntrance;
+      this.isJUnitInfrastructure = isJUnitInfrastructure;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof FrameClassification)) {
+        return false;
+      }
+      FrameClassification that = (FrameClassification) o;
+      return isTruthEntrance == that.isTruthEntrance
+          && isJUnitInfrastructure == that.isJUnitInfrastructure;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(isTruthEntrance, isJUnitInfrastructure);
+    }
+
+    @Override
+    public String toString() {
+      return isTruthEntrance
+          ? "Truth entrance"
+          : isJUnitInfrastructure ? "JUnit infrastructure" : "other";
+    }
+  }
+
   // Using plain Class.forName can cause problems.
   /*
    * TODO(cpovirk): Consider avoiding classloading entirely by reading classes with ASM. But that
@@ -287,11 +377,9 @@ final class StackTraceCleaner {
    * loaded, anyway, since they appear on the stack, so we just have to hope that we have the right
    * classloader.
    */
-  private static Class<?> loadClass(String name) throws ClassNotFoundException {
-    ClassLoader loader =
-        firstNonNull(
-            currentThread().getContextClassLoader(), StackTraceCleaner.class.getClassLoader());
-    return loader.loadClass(name);
+  private static ClassLoader classLoader() {
+    return firstNonNull(
+        currentThread().getContextClassLoader(), StackTraceCleaner.class.getClassLoader());
   }
 
   /**
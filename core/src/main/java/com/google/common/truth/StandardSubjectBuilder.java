@@ -193,6 +193,35 @@ public class StandardSubjectBuilder {
     return new StandardSubjectBuilder(metadata().withMessage(format, args));
   }
 
+  /**
+   * Returns a new instance whose failure messages display at most roughly {@code maxLength}
+   * characters of each value. Longer values are cut short and followed by a note saying how much
+   * was left out. For a large collection or map, only as many elements as fit are converted to
+   * strings, so a failing assertion about a huge value doesn't need to build a huge string. The
+   * default is 100,000 characters.
+   *
+   * <p>This applies to the values of facts (the "xyz" in "but was: xyz"), not to messages set with
+   * {@link #withMessage}.
+   *
+   * @throws IllegalArgumentException if {@code maxLength} is negative
+   */
+  public final StandardSubjectBuilder withMaxFactValueLength(int maxLength) {
+    return new StandardSubjectBuilder(metadata().withMaxFactValueLength(maxLength));
+  }
+
+  /**
+   * Returns a new instance whose failure messages list at most {@code maxDifferences} differences
+   * of each kind individually. For example, a failing {@link MapSubject#containsExactlyEntriesIn}
+   * assertion lists up to that many missing entries, up to that many unexpected entries, and up to
+   * that many entries with the wrong value, and then says how many more of each it found. The
+   * default is 100.
+   *
+   * @throws IllegalArgumentException if {@code maxDifferences} is not positive
+   */
+  public final StandardSubjectBuilder withMaxReportedDifferences(int maxDifferences) {
+    return new StandardSubjectBuilder(metadata().withMaxReportedDifferences(maxDifferences));
+  }
+
   /**
    * Given a factory for some {@code Subject} class, returns a builder whose {@code that(actual)}
    * method creates instances of that class. Created subjects use the previously set failure
@@ -19,6 +19,7 @@ import static com.google.common.base.CaseFormat.LOWER_CAMEL;
 import static com.google.common.base.CaseFormat.UPPER_CAMEL;
 import static com.google.common.base.CharMatcher.whitespace;
 import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.lenientFormat;
 import static com.google.common.truth.Fact.fact;
 import static com.google.common.truth.Fact.simpleFact;
@@ -29,6 +30,8 @@ import static com.google.common.truth.SubjectUtils.accumulate;
 import static com.google.common.truth.SubjectUtils.append;
 import static com.google.common.truth.SubjectUtils.concat;
 import static com.google.common.truth.SubjectUtils.sandwich;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.util.Arrays.asList;
 
 import com.google.common.base.Function;
@@ -93,7 +96,12 @@ public class Subject {
         public void fail(AssertionError failure) {}
       };
 
-  private final FailureMetadata metadata;
+  /**
+   * The metadata passed to our constructor, which does not yet include this subject in its chain of
+   * values. See {@link #metadata()}.
+   */
+  private final FailureMetadata metadataWithoutSubject;
+
   private final Object actual;
   private String customName = null;
   private final @Nullable String typeDescriptionOverride;
@@ -119,7 +127,7 @@ public class Subject {
    */
   Subject(
       FailureMetadata metadata, @Nullable Object actual, @Nullable String typeDescriptionOverride) {
-    this.metadata = metadata.updateForSubject(this);
+    this.metadataWithoutSubject = checkNotNull(metadata);
     this.actual = actual;
     this.typeDescriptionOverride = typeDescriptionOverride;
   }
@@ -170,7 +178,11 @@ public class Subject {
   }
 
   private void standardIsEqualTo(@Nullable Object expected) {
-    ComparisonResult difference = compareForEquality(expected);
+    if (actual == expected) {
+      // Every rule in compareForEquality treats a value as equal to itself, even NaN.
+      return;
+    }
+    ComparisonResult difference = compareForEquality(actual, expected);
     if (!difference.valuesAreEqual()) {
       failEqualityCheck(EqualityCheck.EQUAL, expected, difference);
     }
@@ -185,7 +197,7 @@ public class Subject {
   }
 
   private void standardIsNotEqualTo(@Nullable Object unexpected) {
-    ComparisonResult difference = compareForEquality(unexpected);
+    ComparisonResult difference = compareForEquality(actual, unexpected);
     if (difference.valuesAreEqual()) {
       String unexpectedAsString = formatActualOrExpected(unexpected);
       if (actualCustomStringRepresentation().equals(unexpectedAsString)) {
@@ -205,24 +217,23 @@ public class Subject {
    * of how they differ.
    *
    * <p>The equality check follows the rules described on {@link #isEqualTo}.
+   *
+   * <p>This method is static so that passing it the actual value doesn't let the subject itself
+   * escape: That lets the JIT avoid allocating the subject for a passing {@code isEqualTo} call.
    */
-  private ComparisonResult compareForEquality(@Nullable Object expected) {
+  private static ComparisonResult compareForEquality(
+      @Nullable Object actual, @Nullable Object expected) {
     if (actual == null && expected == null) {
       return ComparisonResult.equal();
     } else if (actual == null || expected == null) {
       return ComparisonResult.differentNoDescription();
-    } else if (actual instanceof byte[] && expected instanceof byte[]) {
+    } else if (isPrimitiveArray(actual) && actual.getClass() == expected.getClass()) {
       /*
-       * For a special error message and to use faster Arrays.equals to avoid at least one timeout.
-       *
-       * TODO(cpovirk): For performance, use Arrays.equals for other array types (here and/or in
-       * checkArrayEqualsRecursive)? Exception: double[] and float[], whose GWT implementations I
-       * think may have both false positives and false negatives (so we can't even use Arrays.equals
-       * as a fast path for them, nor deepEquals for an Object[] that might contain them). We would
-       * still fall back to the slower checkArrayEqualsRecursive to produce a nicer failure message
-       * -- but naturally only for tests that are about to fail, when performance matters less.
+       * Compare in bulk, and fall back to the slower element-by-element comparison only to describe
+       * a failure, when performance matters less. (For double[] and float[], whose GWT
+       * implementations of Arrays.equals may disagree with the JVM's, see Platform.)
        */
-      return checkByteArrayEquals((byte[]) expected, (byte[]) actual);
+      return checkPrimitiveArrayEquals(expected, actual);
     } else if (actual.getClass().isArray() && expected.getClass().isArray()) {
       return checkArrayEqualsRecursive(expected, actual, "");
     } else if (isIntegralBoxedPrimitive(actual) && isIntegralBoxedPrimitive(expected)) {
@@ -274,7 +285,7 @@ public class Subject {
            * content, since people calling isSameInstanceAs() are explicitly not interested in
            * content, only object identity.
            */
-          compareForEquality(expected).withoutDescription());
+          compareForEquality(actual, expected).withoutDescription());
     }
   }
 
@@ -511,18 +522,52 @@ public class Subject {
   }
 
   /**
-   * Returns null if the arrays are equal. If not equal, returns a string comparing the two arrays,
-   * displaying them in the style "[1, 2, 3]" to supplement the main failure message, which uses the
-   * style "010203."
+   * Compares two primitive arrays of the same type. If they're not equal, describes the difference
+   * in a way that depends on the type and on whether the arrays are {@linkplain
+   * #areLongPrimitiveArraysOfSameType too long to display in full}.
    */
-  private static ComparisonResult checkByteArrayEquals(byte[] expected, byte[] actual) {
-    if (Arrays.equals(expected, actual)) {
+  private static ComparisonResult checkPrimitiveArrayEquals(Object expected, Object actual) {
+    if (primitiveArraysEqual(expected, actual)) {
       return ComparisonResult.equal();
+    } else if (areLongPrimitiveArraysOfSameType(expected, actual)) {
+      return describeLongArrayDifference(expected, actual);
+    } else if (expected instanceof byte[]) {
+      return describeByteArrayDifference((byte[]) expected, (byte[]) actual);
+    } else {
+      return checkArrayEqualsRecursive(expected, actual, "");
     }
+  }
+
+  /**
+   * Returns a description of the difference between two unequal byte arrays, displaying them in
+   * the style "[1, 2, 3]" to supplement the main failure message, which uses the style "010203."
+   */
+  private static ComparisonResult describeByteArrayDifference(byte[] expected, byte[] actual) {
     return ComparisonResult.differentWithDescription(
         fact("expected", Arrays.toString(expected)), fact("but was", Arrays.toString(actual)));
   }
 
+  /**
+   * Returns a description of the difference between two unequal primitive arrays of the same type,
+   * at least one of which is too long to display in full. The description doesn't include the
+   * elements themselves, which {@link #failEqualityCheckForLongArrays} displays separately.
+   */
+  private static ComparisonResult describeLongArrayDifference(Object expected, Object actual) {
+    PrimitiveArrayKeys expectedKeys = PrimitiveArrayKeys.ofArray(expected);
+    PrimitiveArrayKeys actualKeys = PrimitiveArrayKeys.ofArray(actual);
+    int expectedLength = Array.getLength(expected);
+    int actualLength = Array.getLength(actual);
+    if (expectedLength != actualLength) {
+      return ComparisonResult.differentWithDescription(
+          simpleFact("wrong length"),
+          fact("expected", expectedLength),
+          fact("but was", actualLength));
+    }
+    return ComparisonResult.differentWithDescription(
+        fact("differs at index", "[" + expectedKeys.firstMismatch(actualKeys) + "]"),
+        fact("number of differing elements", expectedKeys.countMismatches(actualKeys)));
+  }
+
   /**
    * Returns null if the arrays are equal, recursively. If not equal, returns the string of the
    * index at which they're different.
@@ -556,6 +601,10 @@ public class Subject {
       return ComparisonResult.differentWithDescription(
           indexFact, fact("expected", expectedLength), fact("but was", actualLength));
     }
+    if (isPrimitiveArray(actualArray) && primitiveArraysEqual(expectedArray, actualArray)) {
+      // The types match, and equal primitive arrays are common enough to be worth a fast path.
+      return ComparisonResult.equal();
+    }
     for (int i = 0; i < actualLength; i++) {
       String index = lastIndex + "[" + i + "]";
       Object expected = Array.get(expectedArray, i);
@@ -597,6 +646,91 @@ public class Subject {
     }
   }
 
+  private static boolean isPrimitiveArray(Object o) {
+    return o instanceof boolean[]
+        || o instanceof byte[]
+        || o instanceof char[]
+        || o instanceof short[]
+        || o instanceof int[]
+        || o instanceof long[]
+        || o instanceof float[]
+        || o instanceof double[];
+  }
+
+  /** Compares two primitive arrays of the same type as {@link #gwtSafeObjectEquals} would. */
+  private static boolean primitiveArraysEqual(Object expected, Object actual) {
+    if (expected instanceof boolean[]) {
+      return Arrays.equals((boolean[]) expected, (boolean[]) actual);
+    } else if (expected instanceof byte[]) {
+      return Arrays.equals((byte[]) expected, (byte[]) actual);
+    } else if (expected instanceof char[]) {
+      return Arrays.equals((char[]) expected, (char[]) actual);
+    } else if (expected instanceof short[]) {
+      return Arrays.equals((short[]) expected, (short[]) actual);
+    } else if (expected instanceof int[]) {
+      return Arrays.equals((int[]) expected, (int[]) actual);
+    } else if (expected instanceof long[]) {
+      return Arrays.equals((long[]) expected, (long[]) actual);
+    } else if (expected instanceof float[]) {
+      return Platform.floatArraysEqual((float[]) expected, (float[]) actual);
+    } else {
+      return Platform.doubleArraysEqual((double[]) expected, (double[]) actual);
+    }
+  }
+
+  /**
+   * Returns whether the values are primitive arrays of the same type, at least one of which is too
+   * long for failure messages to display in full.
+   */
+  private static boolean areLongPrimitiveArraysOfSameType(
+      @Nullable Object expected, @Nullable Object actual) {
+    return expected != null
+        && actual != null
+        && isPrimitiveArray(expected)
+        && expected.getClass() == actual.getClass()
+        && max(Array.getLength(expected), Array.getLength(actual))
+            > MAX_ARRAY_LENGTH_TO_DISPLAY_IN_FULL;
+  }
+
+  /**
+   * Returns a string like "[…, 8, 9, 10, …] (indexes 8 to 10 of 100)" showing the elements near
+   * the given index, which may be equal to the array's length.
+   */
+  private static String describeArrayAround(Object array, int index) {
+    int length = Array.getLength(array);
+    int from = max(0, min(index, length) - ARRAY_CONTEXT);
+    int to = min(length, index + ARRAY_CONTEXT + 1);
+    StringBuilder builder = new StringBuilder("[");
+    if (from > 0) {
+      builder.append("…, ");
+    }
+    for (int i = from; i < to; i++) {
+      Object element = Array.get(array, i);
+      if (element instanceof Double) {
+        builder.append(doubleToString((Double) element));
+      } else if (element instanceof Float) {
+        builder.append(floatToString((Float) element));
+      } else {
+        builder.append(element);
+      }
+      if (i < to - 1) {
+        builder.append(", ");
+      }
+    }
+    if (to < length) {
+      builder.append(to > from ? ", …" : "…");
+    }
+    builder.append(']');
+    if (from > 0 || to < length) {
+      builder.append(" (indexes ").append(from).append(" to ").append(to - 1);
+      builder.append(" of ").append(length).append(')');
+    }
+    return builder.toString();
+  }
+
+  private static final int MAX_ARRAY_LENGTH_TO_DISPLAY_IN_FULL = 1000;
+  private static final int ARRAY_CONTEXT = 10;
+
   private static boolean gwtSafeObjectEquals(Object actual, Object expected) {
     if (actual instanceof Double && expected instanceof Double) {
       return Double.doubleToLongBits((Double) actual) == Double.doubleToLongBits((Double) expected);
@@ -633,7 +767,7 @@ public class Subject {
    */
   @Deprecated
   final StandardSubjectBuilder check() {
-    return new StandardSubjectBuilder(metadata.updateForCheckCall());
+    return new StandardSubjectBuilder(metadata().updateForCheckCall());
   }
 
   /**
@@ -685,7 +819,7 @@ public class Subject {
           }
         };
     return new StandardSubjectBuilder(
-        metadata.updateForCheckCall(valuesAreSimilar, descriptionUpdate));
+        metadata().updateForCheckCall(valuesAreSimilar, descriptionUpdate));
   }
 
   /**
@@ -812,6 +946,10 @@ public class Subject {
 
   private void failEqualityCheck(
       EqualityCheck equalityCheck, Object expected, ComparisonResult difference) {
+    if (areLongPrimitiveArraysOfSameType(expected, actual)) {
+      failEqualityCheckForLongArrays(equalityCheck, expected, difference);
+      return;
+    }
     String actualString = actualCustomStringRepresentation();
     String expectedString = formatActualOrExpected(expected);
     String actualClass = actual == null ? "(null reference)" : actual.getClass().getName();
@@ -859,7 +997,7 @@ public class Subject {
       }
     } else {
       if (equalityCheck == EqualityCheck.EQUAL && actual != null && expected != null) {
-        metadata.failEqualityCheck(
+        metadata().failEqualityCheck(
             nameAsFacts(), difference.factsOrEmpty(), expectedString, actualString);
       } else {
         failEqualityCheckNoComparisonFailure(
@@ -981,6 +1119,28 @@ public class Subject {
     return r;
   }
 
+  /**
+   * Fails an equality check between two arrays that are too long to display in full, by displaying
+   * only the elements around the first index at which they differ.
+   */
+  private void failEqualityCheckForLongArrays(
+      EqualityCheck equalityCheck, Object expected, ComparisonResult difference) {
+    int index =
+        PrimitiveArrayKeys.ofArray(expected).firstMismatch(PrimitiveArrayKeys.ofArray(actual));
+    if (index == -1) {
+      // Only isSameInstanceAs() fails for equal values.
+      failEqualityCheckNoComparisonFailure(
+          difference,
+          fact(equalityCheck.keyForExpected, describeArrayAround(expected, 0)),
+          fact("but was", "(different but equal instance of same class)"));
+    } else {
+      failEqualityCheckNoComparisonFailure(
+          difference,
+          fact(equalityCheck.keyForExpected, describeArrayAround(expected, index)),
+          fact("but was", describeArrayAround(actual, index)));
+    }
+  }
+
   private void failEqualityCheckNoComparisonFailure(ComparisonResult difference, Fact... facts) {
     // TODO(cpovirk): Is it possible for difference.factsOrEmpty() to be nonempty? If not, remove.
     doFail(concat(asList(facts), difference.factsOrEmpty()));
@@ -1145,7 +1305,17 @@ public class Subject {
    * probably not enough reason to avoid adding this, but we can hold it back for now.
    */
   final Fact butWas() {
-    return fact("but was", actualCustomStringRepresentation());
+    return fact("but was", actualForFacts());
+  }
+
+  /**
+   * Returns the actual value as it should be displayed in a fact: by default, its {@linkplain
+   * #actualCustomStringRepresentation custom string representation}. Subjects for collections
+   * override this to let {@link Fact} abbreviate a large actual value without first converting all
+   * of it to a string.
+   */
+  Object actualForFacts() {
+    return actualCustomStringRepresentation();
   }
 
   /*
@@ -1183,7 +1353,26 @@ public class Subject {
   }
 
   private void doFail(ImmutableList<Fact> facts) {
-    metadata.fail(prependNameIfAny(facts));
+    metadata().fail(prependNameIfAny(facts));
+  }
+
+  /**
+   * Returns our metadata, updated to include this subject in its chain of values.
+   *
+   * <p>We compute this only when needed, rather than in the constructor, because most subjects are
+   * used only for assertions that pass, which never need it. That way, creating a subject and
+   * making a passing assertion on it need not allocate anything beyond the subject itself.
+   */
+  private FailureMetadata metadata() {
+    return metadataWithoutSubject.updateForSubject(this);
+  }
+
+  /**
+   * Returns the number of differences of each kind that a failure message should list individually.
+   * See {@link StandardSubjectBuilder#withMaxReportedDifferences}.
+   */
+  final int maxReportedDifferences() {
+    return metadataWithoutSubject.maxReportedDifferences();
   }
 
   private ImmutableList<Fact> prependNameIfAny(ImmutableList<Fact> facts) {
@@ -25,10 +25,12 @@ import com.google.common.base.Equivalence.Wrapper;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.SetMultimap;
@@ -37,6 +39,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * Utility methods used in {@code Subject} implementors.
@@ -89,14 +92,22 @@ final class SubjectUtils {
     return (count > 1) ? item + " [" + count + " copies]" : item;
   }
 
-  private static <T> NonHashingMultiset<T> countDuplicatesToMultiset(Iterable<T> items) {
-    // We use avoid hashing in case the elements don't have a proper
-    // .hashCode() method (e.g., MessageSet from old versions of protobuf).
-    NonHashingMultiset<T> multiset = new NonHashingMultiset<>();
-    for (T item : items) {
-      multiset.add(item);
+  private static <T> GroupingMultiset<T> countDuplicatesToMultiset(Iterable<T> items) {
+    /*
+     * We group by hashing first, since that takes linear time. But some elements don't have a
+     * proper .hashCode() method (e.g., MessageSet from old versions of protobuf). If we detect that,
+     * we group again without hashing, which is slow but hopefully not much worse than what we get
+     * with a flat list.
+     */
+    try {
+      GroupingMultiset<T> multiset = GroupingMultiset.create(Equivalence.equals(), items);
+      if (!multiset.hasEqualElementsInDistinctEntries()) {
+        return multiset;
+      }
+    } catch (RuntimeException e) {
+      // Probably an element whose hashCode() throws. Group without hashing, below.
     }
-    return multiset;
+    return GroupingMultiset.create(EQUALITY_WITHOUT_USING_HASH_CODE, items);
   }
 
   /**
@@ -126,7 +137,7 @@ final class SubjectUtils {
       Collection<?> items = iterableToCollection(itemsIterable);
       Optional<String> homogeneousTypeName = getHomogeneousTypeName(items);
 
-      NonHashingMultiset<?> valuesWithCountsAndMaybeTypes =
+      GroupingMultiset<?> valuesWithCountsAndMaybeTypes =
           homogeneousTypeName.isPresent()
               ? countDuplicatesToMultiset(items)
               : countDuplicatesToMultiset(addTypeInfoToEveryItem(items));
@@ -138,7 +149,11 @@ final class SubjectUtils {
     }
   }
 
-  private static final class NonHashingMultiset<E> {
+  /**
+   * A multiset that groups elements according to an {@link Equivalence}, iterating over its entries
+   * in the order in which their elements were first added.
+   */
+  private static final class GroupingMultiset<E> {
     // This ought to be static, but the generics are easier when I can refer to <E>.
     private final Function<Multiset.Entry<Wrapper<E>>, Multiset.Entry<?>> unwrapKey =
         new Function<Multiset.Entry<Wrapper<E>>, Multiset.Entry<?>>() {
@@ -148,14 +163,27 @@ final class SubjectUtils {
           }
         };
 
+    private final Equivalence<Object> equivalence;
     private final Multiset<Equivalence.Wrapper<E>> contents = LinkedHashMultiset.create();
 
+    private GroupingMultiset(Equivalence<Object> equivalence) {
+      this.equivalence = equivalence;
+    }
+
+    static <E> GroupingMultiset<E> create(Equivalence<Object> equivalence, Iterable<E> items) {
+      GroupingMultiset<E> multiset = new GroupingMultiset<>(equivalence);
+      for (E item : items) {
+        multiset.add(item);
+      }
+      return multiset;
+    }
+
     void add(E element) {
-      contents.add(EQUALITY_WITHOUT_USING_HASH_CODE.wrap(element));
+      contents.add(equivalence.wrap(element));
     }
 
     boolean remove(E element) {
-      return contents.remove(EQUALITY_WITHOUT_USING_HASH_CODE.wrap(element));
+      return contents.remove(equivalence.wrap(element));
     }
 
     int totalCopies() {
@@ -170,6 +198,27 @@ final class SubjectUtils {
       return transform(contents.entrySet(), unwrapKey);
     }
 
+    /**
+     * Returns whether two distinct entries have elements that are equal to each other. That happens
+     * only if the elements were grouped by a {@code hashCode()} that is inconsistent with {@code
+     * equals()}. To avoid comparing every pair of entries, this compares only elements with the
+     * same string representation, which we will compute to display the elements, anyway.
+     */
+    boolean hasEqualElementsInDistinctEntries() {
+      ListMultimap<String, Object> elementsByString = ArrayListMultimap.create();
+      for (Equivalence.Wrapper<E> wrapper : contents.elementSet()) {
+        E element = wrapper.get();
+        List<Object> elementsWithSameString = elementsByString.get(String.valueOf(element));
+        for (Object other : elementsWithSameString) {
+          if (Objects.equal(element, other)) {
+            return true;
+          }
+        }
+        elementsWithSameString.add(element);
+      }
+      return false;
+    }
+
     String toStringWithBrackets() {
       List<String> parts = new ArrayList<>();
       for (Multiset.Entry<?> entry : entrySet()) {
@@ -183,20 +232,20 @@ final class SubjectUtils {
       String withBrackets = toStringWithBrackets();
       return withBrackets.substring(1, withBrackets.length() - 1);
     }
+  }
 
-    private static final Equivalence<Object> EQUALITY_WITHOUT_USING_HASH_CODE =
-        new Equivalence<Object>() {
-          @Override
-          protected boolean doEquivalent(Object a, Object b) {
-            return Objects.equal(a, b);
-          }
+  private static final Equivalence<Object> EQUALITY_WITHOUT_USING_HASH_CODE =
+      new Equivalence<Object>() {
+        @Override
+        protected boolean doEquivalent(Object a, Object b) {
+          return Objects.equal(a, b);
+        }
 
-          @Override
-          protected int doHash(Object o) {
-            return 0; // slow but hopefully not much worse than what we get with a flat list
-          }
-        };
-  }
+        @Override
+        protected int doHash(Object o) {
+          return 0; // slow but hopefully not much worse than what we get with a flat list
+        }
+      };
 
   /**
    * Missing or unexpected values from a collection assertion, with equal objects grouped together
@@ -208,11 +257,11 @@ final class SubjectUtils {
    * elements and even to output different elements on different lines.
    */
   static final class DuplicateGroupedAndTyped {
-    final NonHashingMultiset<?> valuesAndMaybeTypes;
+    final GroupingMultiset<?> valuesAndMaybeTypes;
     final Optional<String> homogeneousTypeToDisplay;
 
     DuplicateGroupedAndTyped(
-        NonHashingMultiset<?> valuesAndMaybeTypes, Optional<String> homogeneousTypeToDisplay) {
+        GroupingMultiset<?> valuesAndMaybeTypes, Optional<String> homogeneousTypeToDisplay) {
       this.valuesAndMaybeTypes = valuesAndMaybeTypes;
       this.homogeneousTypeToDisplay = homogeneousTypeToDisplay;
     }
@@ -352,8 +401,13 @@ final class SubjectUtils {
     }
   }
 
+  /**
+   * Returns the given iterable as a list that can be indexed in constant time, copying it unless it
+   * is already a {@link RandomAccess} list. (Sequential lists like {@code
+   * LinkedListMultimap.entries()} would otherwise make index-based loops quadratic.)
+   */
   static <T> List<T> iterableToList(Iterable<T> iterable) {
-    if (iterable instanceof List) {
+    if (iterable instanceof List && iterable instanceof RandomAccess) {
       return (List<T>) iterable;
     } else {
       return Lists.newArrayList(iterable);
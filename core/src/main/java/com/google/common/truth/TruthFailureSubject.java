@@ -152,7 +152,7 @@ public final class TruthFailureSubject extends ThrowableSubject {
           fact("fact count was", factsWithName.size()));
       return ignoreCheck().that("");
     }
-    String value = factsWithName.get(firstNonNull(index, 0)).value;
+    String value = factsWithName.get(firstNonNull(index, 0)).value();
     if (value == null) {
       if (index == null) {
         failWithoutActual(
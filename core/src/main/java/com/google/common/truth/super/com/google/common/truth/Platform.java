@@ -20,6 +20,8 @@ import static java.lang.Float.parseFloat;
 import static jsinterop.annotations.JsPackage.GLOBAL;
 
 import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.Executor;
 import jsinterop.annotations.JsProperty;
 import jsinterop.annotations.JsType;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -131,11 +133,48 @@ final class Platform {
     }
   }
 
+  static boolean hasElementListToString(Object collectionOrMap) {
+    // Without reflection, we can't tell, so we always convert the whole value to a string.
+    return false;
+  }
+
+  static boolean doubleArraysEqual(double[] expected, double[] actual) {
+    // Arrays.equals may compare with ==, so we compare bits to get the same answer as the JVM.
+    if (expected.length != actual.length) {
+      return false;
+    }
+    for (int i = 0; i < expected.length; i++) {
+      if (Double.doubleToLongBits(expected[i]) != Double.doubleToLongBits(actual[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean floatArraysEqual(float[] expected, float[] actual) {
+    if (expected.length != actual.length) {
+      return false;
+    }
+    for (int i = 0; i < expected.length; i++) {
+      if (Float.floatToIntBits(expected[i]) != Float.floatToIntBits(actual[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static String toLocaleString(double value) {
     // Recieve a double as a parameter so that "(Object) value" does not box it.
     return ((NativeNumber) (Object) value).toLocaleString("en-US", JavaLikeOptions.INSTANCE);
   }
 
+  /** Runs all the given tasks on the calling thread, since GWT is single-threaded. */
+  static void runInParallel(Executor executor, List<? extends Runnable> tasks) {
+    for (Runnable task : tasks) {
+      task.run();
+    }
+  }
+
   /** Tests if current platform is Android which is always false. */
   static boolean isAndroid() {
     return false;
@@ -17,9 +17,11 @@ package com.google.common.truth;
 
 import static com.google.common.truth.ExpectFailure.assertThat;
 import static com.google.common.truth.ExpectFailure.expectFailure;
+import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -180,6 +182,27 @@ public final class ActualValueInferenceTest {
     assertThat(failure).factKeys().doesNotContain("value of");
   }
 
+  @Test
+  public void repeatedFailuresInSameMethod() {
+    ExpectFailure.StandardSubjectBuilderCallback assertion =
+        whenTesting -> whenTesting.that(staticNoArg()).isEqualTo("b");
+
+    ImmutableMap<?, ?> before = ActualValueInference.cachedMethods();
+    assertThat(expectFailure(assertion)).factValue("value of").isEqualTo("staticNoArg()");
+    ImmutableMap<?, ?> afterFirst = ActualValueInference.cachedMethods();
+    assertThat(afterFirst.size()).isGreaterThan(before.size());
+    for (int i = 0; i < 2; i++) {
+      assertThat(expectFailure(assertion)).factValue("value of").isEqualTo("staticNoArg()");
+    }
+
+    // Only the first failure analyzes the method. The others reuse its result.
+    ImmutableMap<?, ?> afterAll = ActualValueInference.cachedMethods();
+    assertThat(afterAll.keySet()).isEqualTo(afterFirst.keySet());
+    for (Object key : afterFirst.keySet()) {
+      assertThat(afterAll.get(key)).isSameInstanceAs(afterFirst.get(key));
+    }
+  }
+
   static String staticNoArg() {
     return "a";
   }
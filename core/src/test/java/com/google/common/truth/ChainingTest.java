@@ -131,6 +131,27 @@ public final class ChainingTest extends BaseSubjectTestCase {
     assertNoCause("value of    : myObject.grandchild\nmessage\nmyObject was: root");
   }
 
+  @Test
+  public void manyLevelsNamed() {
+    MyObjectSubject subject = expectFailureWhenTestingThat("root");
+    StringBuilder description = new StringBuilder("myObject");
+    for (int i = 0; i < 30; i++) {
+      subject = subject.delegatingToNamed("level" + i, "level" + i);
+      description.append(".level").append(i);
+    }
+    subject.isThePresentKingOfFrance();
+    assertNoCause("value of    : " + description + "\nmessage\nmyObject was: root");
+  }
+
+  @Test
+  public void siblingsShareOnlyTheirCommonLevels() {
+    MyObjectSubject child =
+        expectFailureWhenTestingThat("root").delegatingToNamed("child", "child");
+    MyObjectSubject unused = child.delegatingToNamed("sibling", "sibling");
+    child.delegatingToNamed("grandchild", "grandchild").isThePresentKingOfFrance();
+    assertNoCause("value of    : myObject.child.grandchild\nmessage\nmyObject was: root");
+  }
+
   @Test
   public void oneLevelNamedNoNeedToDisplayBoth() {
     expectFailureWhenTestingThat("root")
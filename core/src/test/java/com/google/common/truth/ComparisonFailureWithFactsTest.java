@@ -265,6 +265,45 @@ public class ComparisonFailureWithFactsTest {
         Joiner.on('\n').join("@@ -18,3 +18,4 @@", " a", " a", " a", "+"));
   }
 
+  @GwtIncompatible
+  @Test
+  public void formatDiffLargeInputWithChangesAtBothEnds() {
+    StringBuilder middle = new StringBuilder();
+    for (int i = 1; i < 20000; i++) {
+      middle.append("a").append(i).append("\n");
+    }
+    runFormatTest(
+        "first\n" + middle + "last",
+        "FIRST\n" + middle + "LAST",
+        Joiner.on('\n')
+            .join(
+                "@@ -1,4 +1,4 @@",
+                "-first",
+                "+FIRST",
+                " a1",
+                " a2",
+                " a3",
+                "@@ -19998,4 +19998,4 @@",
+                " a19997",
+                " a19998",
+                " a19999",
+                "-last",
+                "+LAST"));
+  }
+
+  @GwtIncompatible
+  @Test
+  public void formatDiffFallsBackToCoarseOutputWhenOutOfWork() {
+    assertThat(
+            DiffUtils.generateUnifiedDiff(
+                ImmutableList.of("a", "b", "c", "x", "d"),
+                ImmutableList.of("a", "c", "b", "y", "d"),
+                /* contextSize= */ 1,
+                /* maxWork= */ 0))
+        .containsExactly("@@ -1,5 +1,5 @@", " a", "-b", "-c", "-x", "+c", "+b", "+y", " d")
+        .inOrder();
+  }
+
   @GwtIncompatible
   @Test
   public void testSerialization_ComparisonFailureWithFacts() {
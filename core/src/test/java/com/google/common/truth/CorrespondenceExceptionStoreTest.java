@@ -102,7 +102,7 @@ public final class CorrespondenceExceptionStoreTest extends BaseSubjectTestCase
     assertThat(first.key).isEqualTo(expectedFirstKey);
     assertThat(first.value).isNull();
     assertThat(second.key).isEqualTo("first exception");
-    assertThat(second.value)
+    assertThat(second.value())
         .matches( // an initial statement of the method that threw and the exception type:
             "compare\\(null, 123\\) threw java.lang.NullPointerException"
                 // some whitespace:
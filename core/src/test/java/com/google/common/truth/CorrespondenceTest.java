@@ -23,6 +23,7 @@ import static java.util.Arrays.asList;
 import static org.junit.Assert.fail;
 
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.collect.ImmutableList;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.Test;
@@ -663,4 +664,59 @@ public final class CorrespondenceTest extends BaseSubjectTestCase {
         .factValue("first exception", 1)
         .startsWith("formatDiff(null, 5) threw java.lang.NullPointerException");
   }
+
+  // Tests of indexingUsing.
+
+  private static final Correspondence<String, Integer> LENGTHS_WITH_DIFF_INDEXED =
+      // If we were allowed to use method references, this would be:
+      // LENGTHS_WITH_DIFF.indexingUsing(String::length, Functions.identity());
+      LENGTHS_WITH_DIFF.indexingUsing(
+          new Function<String, Integer>() {
+            @Override
+            public Integer apply(String str) {
+              return str.length();
+            }
+          },
+          Functions.<Integer>identity());
+
+  @Test
+  public void testIndexingUsing_compare() {
+    // The compare behaviour should be the same as the wrapped correspondence.
+    assertThat(LENGTHS_WITH_DIFF_INDEXED.compare("foo", 3)).isTrue();
+    assertThat(LENGTHS_WITH_DIFF_INDEXED.compare("foo", 4)).isFalse();
+  }
+
+  @Test
+  public void testIndexingUsing_formatDiff() {
+    // The formatDiff behaviour should be the same as the wrapped correspondence.
+    assertThat(LENGTHS_WITH_DIFF_INDEXED.formatDiff("foo", 4)).isEqualTo("-1");
+  }
+
+  @Test
+  public void testIndexingUsing_toString() {
+    // The toString behaviour should be the same as the wrapped correspondence.
+    assertThat(LENGTHS_WITH_DIFF_INDEXED.toString()).isEqualTo("has a length of");
+  }
+
+  @Test
+  public void testIndexingUsing_isEquality() {
+    // The isEquality behaviour should be the same as the wrapped correspondence.
+    assertThat(LENGTHS_WITH_DIFF_INDEXED.isEquality()).isFalse();
+    Correspondence<Integer, Integer> indexedEquality =
+        Correspondence.<Integer>equality()
+            .indexingUsing(Functions.<Integer>identity(), Functions.<Integer>identity());
+    assertThat(indexedEquality.isEquality()).isTrue();
+  }
+
+  @Test
+  public void testIndexingUsing_viaIterableSubjectContainsExactly_failure() {
+    expectFailure
+        .whenTesting()
+        .that(ImmutableList.of("gallons", "feet"))
+        .comparingElementsUsing(LENGTHS_WITH_DIFF_INDEXED)
+        .containsExactly(4, 5);
+    assertFailureValue("missing (1)", "5");
+    assertFailureValue("#1", "gallons");
+    assertFailureValue("diff", "2");
+  }
 }
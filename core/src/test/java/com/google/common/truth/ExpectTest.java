@@ -208,6 +208,118 @@ public class ExpectTest {
     thrown.expectMessage("1000 expectations failed:");
   }
 
+  @Test
+  public void maxReportedFailures() throws Throwable {
+    final Expect limited = Expect.createWithMaxReportedFailures(2);
+    Statement statement =
+        limited.apply(
+            new Statement() {
+              @Override
+              public void evaluate() {
+                for (int i = 0; i < 5; i++) {
+                  limited.withMessage("failure %s", i).fail();
+                }
+              }
+            },
+            Description.EMPTY);
+    try {
+      statement.evaluate();
+    } catch (AssertionError e) {
+      assertThat(e).hasMessageThat().contains("5 expectations failed:");
+      assertThat(e).hasMessageThat().contains("1. failure 0");
+      assertThat(e).hasMessageThat().contains("2. failure 1");
+      assertThat(e).hasMessageThat().doesNotContain("failure 2");
+      assertThat(e).hasMessageThat().contains("(3 more failures suppressed)");
+      return;
+    }
+    fail();
+  }
+
+  @Test
+  public void maxReportedFailures_oneSuppressed() throws Throwable {
+    final Expect limited = Expect.createWithMaxReportedFailures(2);
+    Statement statement =
+        limited.apply(
+            new Statement() {
+              @Override
+              public void evaluate() {
+                for (int i = 0; i < 3; i++) {
+                  limited.withMessage("failure %s", i).fail();
+                }
+              }
+            },
+            Description.EMPTY);
+    try {
+      statement.evaluate();
+    } catch (AssertionError e) {
+      assertThat(e).hasMessageThat().contains("3 expectations failed:");
+      assertThat(e).hasMessageThat().doesNotContain("failure 2");
+      assertThat(e).hasMessageThat().contains("(1 more failure suppressed)");
+      return;
+    }
+    fail();
+  }
+
+  @Test
+  public void maxReportedFailures_thenException() throws Throwable {
+    final Expect limited = Expect.createWithMaxReportedFailures(2);
+    Statement statement =
+        limited.apply(
+            new Statement() {
+              @Override
+              public void evaluate() {
+                for (int i = 0; i < 5; i++) {
+                  limited.withMessage("failure %s", i).fail();
+                }
+                throw new IllegalStateException("boom");
+              }
+            },
+            Description.EMPTY);
+    try {
+      statement.evaluate();
+    } catch (AssertionError e) {
+      assertThat(e).hasMessageThat().contains("2. failure 1");
+      assertThat(e).hasMessageThat().contains("3. Also, after those failures, an exception was");
+      assertThat(e).hasMessageThat().contains("(3 more failures suppressed)");
+      return;
+    }
+    fail();
+  }
+
+  @Test
+  public void valueChangedAfterFailure() throws Throwable {
+    final Expect expect = Expect.create();
+    Statement statement =
+        expect.apply(
+            new Statement() {
+              @Override
+              public void evaluate() {
+                List<Integer> list = new ArrayList<>();
+                list.add(1);
+                expect.that(list).isEmpty();
+                list.add(2);
+              }
+            },
+            Description.EMPTY);
+    try {
+      statement.evaluate();
+    } catch (AssertionError e) {
+      assertThat(e).hasMessageThat().contains("but was: [1]");
+      assertThat(e).hasMessageThat().doesNotContain("[1, 2]");
+      return;
+    }
+    fail();
+  }
+
+  @Test
+  public void maxReportedFailures_notPositive() {
+    try {
+      Expect.createWithMaxReportedFailures(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
   @Test
   public void failWhenCallingThatAfterTest() {
     ExecutorService executor = newSingleThreadExecutor();
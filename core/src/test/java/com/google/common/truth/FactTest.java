@@ -16,12 +16,20 @@
 
 package com.google.common.truth;
 
+import static com.google.common.testing.SerializableTester.reserialize;
 import static com.google.common.truth.Fact.fact;
 import static com.google.common.truth.Fact.makeMessage;
+import static com.google.common.truth.Fact.renderAll;
 import static com.google.common.truth.Fact.simpleFact;
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.annotations.GwtIncompatible;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -89,4 +97,82 @@ public class FactTest {
     assertThat(makeMessage(ImmutableList.<String>of("hello"), ImmutableList.of(fact("foo", "bar"))))
         .isEqualTo("hello\nfoo: bar");
   }
+
+  @Test
+  public void valueIsNotConvertedUntilRendered() {
+    Object value =
+        new Object() {
+          @Override
+          public String toString() {
+            throw new UnsupportedOperationException();
+          }
+        };
+    Fact unused = fact("foo", value);
+  }
+
+  @Test
+  public void render_short() {
+    Fact fact = fact("foo", "bar");
+    Fact simpleFact = simpleFact("baz");
+    assertThat(renderAll(ImmutableList.of(fact, simpleFact), 3))
+        .containsExactly(fact, simpleFact)
+        .inOrder();
+    assertThat(renderAll(ImmutableList.of(fact("foo", ImmutableList.of(1, 2))), 6).get(0).value)
+        .isEqualTo("[1, 2]");
+  }
+
+  @Test
+  public void render_longString() {
+    assertThat(renderAll(ImmutableList.of(fact("foo", "abcdefgh")), 3).get(0).value)
+        .isEqualTo("abc… (showing 3 of 8 characters)");
+  }
+
+  @Test
+  public void render_longString_surrogatePair() {
+    assertThat(renderAll(ImmutableList.of(fact("foo", "ab\uD83D\uDE00cd")), 3).get(0).value)
+        .isEqualTo("ab… (showing 2 of 6 characters)");
+  }
+
+  @Test
+  public void render_snapshotsValue() {
+    List<Integer> list = new ArrayList<>();
+    list.add(1);
+    ImmutableList<Fact> rendered = renderAll(ImmutableList.of(fact("k", list)), 100);
+    list.add(2);
+    assertThat(rendered.get(0).toString()).isEqualTo("k: [1]");
+  }
+
+  @Test
+  public void render_largeCollection() {
+    Object value = Fact.elementsOf(Collections.nCopies(1_000_000, "x"));
+    assertThat(renderAll(ImmutableList.of(fact("foo", value)), 10).get(0).value)
+        .isEqualTo("[x, x, x, …] (showing 3 of 1000000 elements)");
+  }
+
+  @Test
+  public void render_largeMap() {
+    ImmutableMap<String, Integer> map = ImmutableMap.of("a", 1, "b", 2, "c", 3, "d", 4, "e", 5);
+    assertThat(renderAll(ImmutableList.of(fact("foo", Fact.entriesOf(map))), 9).get(0).value)
+        .isEqualTo("{a=1, b=2, …} (showing 2 of 5 entries)");
+  }
+
+  @Test
+  public void render_largeCollectionWithOtherStringRepresentation() {
+    ImmutableMultiset<String> multiset = ImmutableMultiset.of("a", "a", "a", "a", "a", "b");
+    assertThat(renderAll(ImmutableList.of(fact("foo", multiset)), 5).get(0).value)
+        .isEqualTo("[a x … (showing 5 of 10 characters)");
+  }
+
+  @Test
+  @GwtIncompatible // SerializableTester
+  public void serialization_convertsValueToString() {
+    Object value =
+        new Object() {
+          @Override
+          public String toString() {
+            return "bar";
+          }
+        };
+    assertThat(reserialize(fact("foo", value)).value).isEqualTo("bar");
+  }
 }
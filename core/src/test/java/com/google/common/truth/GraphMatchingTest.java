@@ -16,6 +16,8 @@
 package com.google.common.truth;
 
 import static com.google.common.truth.GraphMatching.maximumCardinalityBipartiteMatching;
+import static com.google.common.truth.GraphMatching.maximumCardinalityToleranceMatchingSize;
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 import static org.junit.Assert.fail;
 
@@ -29,6 +31,7 @@ import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Deque;
 import java.util.Map;
@@ -153,6 +156,67 @@ public final class GraphMatchingTest {
     }
   }
 
+  @Test
+  public void maximumCardinalityToleranceMatchingSize_simple() {
+    assertThat(maximumCardinalityToleranceMatchingSize(new double[0], new double[0], 0.1))
+        .isEqualTo(0);
+    assertThat(
+            maximumCardinalityToleranceMatchingSize(
+                new double[] {1.0, 2.0, 3.0}, new double[] {3.05, 0.95, 2.0}, 0.1))
+        .isEqualTo(3);
+    // 1.0 could match either expected value, but only matching it to 0.95 leaves 1.1 a match.
+    assertThat(
+            maximumCardinalityToleranceMatchingSize(
+                new double[] {1.0, 1.1}, new double[] {1.05, 0.95}, 0.1))
+        .isEqualTo(2);
+  }
+
+  @Test
+  public void maximumCardinalityToleranceMatchingSize_nonFiniteValuesNeverMatch() {
+    double[] values = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.0};
+    assertThat(maximumCardinalityToleranceMatchingSize(values.clone(), values.clone(), 1.0))
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void maximumCardinalityToleranceMatchingSize_randomAgainstHopcroftKarp() {
+    Random rng = new Random(0x7011e5);
+    for (int i = 0; i < 500; i++) {
+      double[] left = randomValues(rng.nextInt(9), rng);
+      double[] right = randomValues(rng.nextInt(9), rng);
+      double tolerance = rng.nextInt(4) * 0.5;
+      ListMultimap<Integer, Integer> edges = LinkedListMultimap.create();
+      for (int l = 0; l < left.length; l++) {
+        for (int r = 0; r < right.length; r++) {
+          if (MathUtil.equalWithinTolerance(left[l], right[r], tolerance)) {
+            edges.put(l, r);
+          }
+        }
+      }
+      assertWithMessage(
+              "left %s, right %s, tolerance %s",
+              Arrays.toString(left), Arrays.toString(right), tolerance)
+          .that(maximumCardinalityToleranceMatchingSize(left.clone(), right.clone(), tolerance))
+          .isEqualTo(maximumCardinalityBipartiteMatching(edges).size());
+    }
+  }
+
+  /**
+   * Returns values from a small range so that there are plenty of ties and near misses, plus the
+   * occasional signed zero or non-finite value.
+   */
+  private static double[] randomValues(int count, Random rng) {
+    double[] specialValues = {-0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    double[] values = new double[count];
+    for (int i = 0; i < count; i++) {
+      values[i] =
+          rng.nextInt(10) == 0
+              ? specialValues[rng.nextInt(specialValues.length)]
+              : rng.nextInt(12) * 0.25;
+    }
+    return values;
+  }
+
   /** Representation of a bipartite graph to be used for testing. */
   private static class TestInstance {
 
@@ -19,6 +19,7 @@ import static com.google.common.base.Functions.identity;
 import static com.google.common.collect.Collections2.permutations;
 import static com.google.common.truth.Correspondence.equality;
 import static com.google.common.truth.Correspondence.tolerance;
+import static com.google.common.truth.ExpectFailure.expectFailure;
 import static com.google.common.truth.TestCorrespondences.CASE_INSENSITIVE_EQUALITY;
 import static com.google.common.truth.TestCorrespondences.CASE_INSENSITIVE_EQUALITY_HALF_NULL_SAFE;
 import static com.google.common.truth.TestCorrespondences.NULL_SAFE_RECORD_ID;
@@ -33,10 +34,15 @@ import static com.google.common.truth.TestCorrespondences.WITHIN_10_OF;
 import static com.google.common.truth.Truth.assertThat;
 import static java.util.Arrays.asList;
 
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.truth.TestCorrespondences.Record;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -593,6 +599,264 @@ public class IterableSubjectCorrespondenceTest extends BaseSubjectTestCase {
         .startsWith("compare(null, ABC) threw java.lang.NullPointerException");
   }
 
+  @Test
+  public void containsExactlyElementsIn_indexingUsing_comparesOnlyElementsWithEqualKeys() {
+    final List<String> compared = new ArrayList<>();
+    Correspondence<String, String> correspondence =
+        Correspondence.from(
+                new Correspondence.BinaryPredicate<String, String>() {
+                  @Override
+                  public boolean apply(String actual, String expected) {
+                    compared.add(actual + "=" + expected);
+                    return actual.equalsIgnoreCase(expected);
+                  }
+                },
+                "equals (ignoring case)")
+            .indexingUsing(LOWER_CASE, LOWER_CASE);
+    assertThat(ImmutableList.of("abc", "DEF", "ghi"))
+        .comparingElementsUsing(correspondence)
+        .containsExactly("GHI", "def", "ABC");
+    // The first three calls are from the failed attempt to pair the elements in order.
+    assertThat(compared).containsExactly("abc=GHI", "abc=ABC", "DEF=def", "ghi=GHI");
+  }
+
+  @Test
+  public void containsExactlyElementsIn_indexingUsing_failsMissingAndExtraCandidates() {
+    expectFailure
+        .whenTesting()
+        .that(ImmutableList.of("abc", "xyz", "def"))
+        .comparingElementsUsing(CASE_INSENSITIVE_EQUALITY.indexingUsing(LOWER_CASE, LOWER_CASE))
+        .containsExactly("DEF", "ABC", "GHI");
+    assertFailureKeys(
+        "missing (1)", "unexpected (1)", "---", "expected", "testing whether", "but was");
+    assertFailureValue("missing (1)", "GHI");
+    assertFailureValue("unexpected (1)", "[xyz]");
+    assertFailureValue("testing whether", "actual element equals (ignoring case) expected element");
+  }
+
+  @Test
+  public void containsExactlyElementsIn_indexingUsing_keyFunctionThrows() {
+    // LOWER_CASE throws on the null actual element, so we fall back to comparing every pair, and
+    // CASE_INSENSITIVE_EQUALITY.compare throws on it, too.
+    expectFailure
+        .whenTesting()
+        .that(asList(null, "xyz", "abc", "def"))
+        .comparingElementsUsing(CASE_INSENSITIVE_EQUALITY.indexingUsing(LOWER_CASE, LOWER_CASE))
+        .containsExactly("ABC", "DEF", "GHI", "JKL");
+    assertFailureValue("missing (2)", "GHI, JKL");
+    assertFailureValue("unexpected (2)", "null, xyz");
+    assertThatFailure()
+        .factValue("first exception")
+        .startsWith("compare(null, ABC) threw java.lang.NullPointerException");
+  }
+
+  @Test
+  public void containsExactlyElementsIn_transforming_keyEqualsThrows() {
+    // Looking up each actual key calls equals() on the expected key with the same hash code, which
+    // throws, so we fall back to comparing every pair, and compare() throws, too.
+    Function<Integer, EqualsThrower> toKey =
+        new Function<Integer, EqualsThrower>() {
+          @Override
+          public EqualsThrower apply(Integer i) {
+            return new EqualsThrower(i);
+          }
+        };
+    expectFailure
+        .whenTesting()
+        .that(ImmutableList.of(1, 2))
+        .comparingElementsUsing(Correspondence.transforming(toKey, toKey, "has the key of"))
+        .containsExactly(2, 1);
+    assertThatFailure()
+        .factValue("first exception")
+        .startsWith("compare(1, 2) threw java.lang.UnsupportedOperationException");
+  }
+
+  /** Hashes as the given value but throws from {@code equals()} unless given itself. */
+  private static final class EqualsThrower {
+    final int hash;
+
+    EqualsThrower(int hash) {
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other == this) {
+        return true;
+      }
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  @Test
+  public void formattingDiffsUsing_elementsWithInconsistentHashCode() {
+    ImmutableList<InconsistentHashCode> actual =
+        ImmutableList.of(new InconsistentHashCode("a"), new InconsistentHashCode("b"));
+    Correspondence.DiffFormatter<Object, Object> formatter =
+        new Correspondence.DiffFormatter<Object, Object>() {
+          @Override
+          public String formatDiff(Object actual, Object expected) {
+            return actual + " vs. " + expected;
+          }
+        };
+    assertThat(actual)
+        .formattingDiffsUsing(formatter)
+        .containsExactly(new InconsistentHashCode("b"), new InconsistentHashCode("a"));
+
+    expectFailure
+        .whenTesting()
+        .that(actual)
+        .formattingDiffsUsing(formatter)
+        .containsExactly(new InconsistentHashCode("c"), new InconsistentHashCode("a"));
+    assertFailureValue("missing (1)", "c");
+    assertFailureValue("#1", "b");
+    assertFailureValue("diff", "b vs. c");
+  }
+
+  /** Compares equal to instances with the same name but (deliberately) doesn't hash that way. */
+  private static final class InconsistentHashCode {
+    final String name;
+
+    InconsistentHashCode(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof InconsistentHashCode
+          && ((InconsistentHashCode) other).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  @Test
+  public void containsExactlyElementsIn_transforming_manyElementsOutOfOrder() {
+    List<Record> actual = new ArrayList<>();
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      actual.add(Record.create(i, 1));
+      expected.add(19999 - i);
+    }
+    Correspondence<Record, Integer> hasId = Correspondence.transforming(RECORD_ID, "has an ID of");
+    assertThat(actual).comparingElementsUsing(hasId).containsExactlyElementsIn(expected);
+
+    expected.set(0, -1);
+    expectFailure
+        .whenTesting()
+        .that(actual)
+        .comparingElementsUsing(hasId)
+        .containsExactlyElementsIn(expected);
+    assertFailureValue("missing (1)", "-1");
+  }
+
+  @Test
+  public void containsExactlyElementsIn_tolerance_manyElementsOutOfOrder() {
+    List<Double> actual = new ArrayList<>();
+    List<Double> expected = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      actual.add(i * 0.1);
+      expected.add((19999 - i) * 0.1 + 0.05);
+    }
+    assertThat(actual).comparingElementsUsing(tolerance(0.06)).containsExactlyElementsIn(expected);
+    assertThat(actual).comparingElementsUsing(tolerance(0.06)).containsAtLeastElementsIn(expected);
+
+    expected.set(0, -1.0);
+    expectFailure
+        .whenTesting()
+        .that(actual)
+        .comparingElementsUsing(tolerance(0.06))
+        .containsAtLeastElementsIn(expected);
+    assertFailureValue("missing (1)", "-1.0");
+  }
+
+  @Test
+  public void containsExactlyElementsIn_tolerance_inOrder_failsOutOfOrder() {
+    ImmutableList<Double> actual = ImmutableList.of(1.0, 2.0, 3.0);
+    expectFailure
+        .whenTesting()
+        .that(actual)
+        .comparingElementsUsing(tolerance(0.1))
+        .containsExactly(3.0, 2.05, 1.0)
+        .inOrder();
+    assertFailureKeys(
+        "contents match, but order was wrong", "expected", "testing whether", "but was");
+  }
+
+  @Test
+  @GwtIncompatible("Executors")
+  public void containsExactlyElementsIn_comparingInParallel() {
+    List<String> actual = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      actual.add("item" + i);
+      expected.add("ITEM" + (199 - i));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      assertThat(actual)
+          .comparingElementsUsing(CASE_INSENSITIVE_EQUALITY)
+          .comparingInParallelUsing(executor)
+          .containsExactlyElementsIn(expected);
+      assertThat(actual)
+          .comparingElementsUsing(CASE_INSENSITIVE_EQUALITY)
+          .comparingInParallelUsing(executor)
+          .containsAtLeastElementsIn(expected.subList(0, 100));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  @GwtIncompatible("Executors")
+  public void containsExactlyElementsIn_comparingInParallel_failsAsSequential() {
+    final List<String> actual = asList("abc", null, "DEF", "xyz", null, "Ghi");
+    final List<String> expected = asList("ABC", "def", "GHI", "jkl");
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      AssertionError sequentialFailure =
+          expectFailure(
+              new ExpectFailure.StandardSubjectBuilderCallback() {
+                @Override
+                public void invokeAssertion(StandardSubjectBuilder whenTesting) {
+                  whenTesting
+                      .that(actual)
+                      .comparingElementsUsing(CASE_INSENSITIVE_EQUALITY)
+                      .containsExactlyElementsIn(expected);
+                }
+              });
+      AssertionError parallelFailure =
+          expectFailure(
+              new ExpectFailure.StandardSubjectBuilderCallback() {
+                @Override
+                public void invokeAssertion(StandardSubjectBuilder whenTesting) {
+                  whenTesting
+                      .that(actual)
+                      .comparingElementsUsing(CASE_INSENSITIVE_EQUALITY)
+                      .comparingInParallelUsing(executor)
+                      .containsExactlyElementsIn(expected);
+                }
+              });
+      assertThat(parallelFailure).hasMessageThat().isEqualTo(sequentialFailure.getMessage());
+      assertThat(parallelFailure).hasMessageThat().contains("compare(null, ABC) threw");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void containsExactlyElementsIn_diffOneMissingSomeExtraCandidate() {
     ImmutableList<Integer> expected = ImmutableList.of(30, 60, 90);
@@ -2042,4 +2306,13 @@ public class IterableSubjectCorrespondenceTest extends BaseSubjectTestCase {
       return super.toString();
     }
   }
+
+  private static final Function<String, String> LOWER_CASE =
+      // If we were allowed to use method references, this would be String::toLowerCase.
+      new Function<String, String>() {
+        @Override
+        public String apply(String input) {
+          return input.toLowerCase();
+        }
+      };
 }
@@ -681,6 +681,135 @@ public class IterableSubjectTest extends BaseSubjectTestCase {
     }
   }
 
+  @Test
+  public void iterableContainsExactlyWithElementsWithInconsistentHashCode() {
+    List<InconsistentHashCode> actual =
+        asList(new InconsistentHashCode("a"), new InconsistentHashCode("b"));
+
+    assertThat(actual)
+        .containsExactly(new InconsistentHashCode("b"), new InconsistentHashCode("a"));
+
+    expectFailureWhenTestingThat(actual)
+        .containsExactly(new InconsistentHashCode("c"), new InconsistentHashCode("a"));
+    assertFailureValue("missing (1)", "c");
+    assertFailureValue("unexpected (1)", "b");
+  }
+
+  @Test
+  public void iterableContainsAtLeastWithElementsWithInconsistentHashCode() {
+    List<InconsistentHashCode> actual =
+        asList(new InconsistentHashCode("a"), new InconsistentHashCode("b"));
+
+    assertThat(actual)
+        .containsAtLeast(new InconsistentHashCode("b"), new InconsistentHashCode("a"));
+
+    expectFailureWhenTestingThat(actual)
+        .containsAtLeast(new InconsistentHashCode("a"), new InconsistentHashCode("a"));
+    assertFailureValue("missing (1)", "a");
+  }
+
+  @Test
+  public void iterableContainsAtLeastWithInconsistentHashCodeDoesNotFormatExtras() {
+    Object unformattable =
+        new Object() {
+          @Override
+          public String toString() {
+            throw new AssertionError("containsAtLeast shouldn't format extra elements");
+          }
+        };
+
+    assertThat(asList(unformattable, new InconsistentHashCode("a")))
+        .containsAtLeastElementsIn(asList(new InconsistentHashCode("a")));
+  }
+
+  @Test
+  public void iterableContainsExactlyWithEqualsButNotHashCodeOrToString() {
+    assertThat(asList(new EqualsOnly(1), new EqualsOnly(2)))
+        .containsExactly(new EqualsOnly(2), new EqualsOnly(1));
+  }
+
+  /** Overrides {@code equals()} but keeps the default {@code hashCode()} and {@code toString()}. */
+  private static final class EqualsOnly {
+    final int value;
+
+    EqualsOnly(int value) {
+      this.value = value;
+    }
+
+    @Override
+    @SuppressWarnings("EqualsHashCode")
+    public boolean equals(Object other) {
+      return other instanceof EqualsOnly && ((EqualsOnly) other).value == value;
+    }
+  }
+
+  @Test
+  public void iterableContainsExactlyFailureGroupsDuplicatesWithInconsistentHashCode() {
+    expectFailureWhenTestingThat(asList(new InconsistentHashCode("a")))
+        .containsExactly(
+            new InconsistentHashCode("b"),
+            new InconsistentHashCode("c"),
+            new InconsistentHashCode("b"));
+    assertFailureValue("missing (3)", "b [2 copies], c");
+    assertFailureValue("unexpected (1)", "a");
+  }
+
+  /** Compares equal to instances with the same name but (deliberately) doesn't hash that way. */
+  private static final class InconsistentHashCode {
+    final String name;
+
+    InconsistentHashCode(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof InconsistentHashCode
+          && ((InconsistentHashCode) other).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  @Test
+  public void iterableContainsExactlyWithManyElementsOutOfOrder() {
+    ImmutableList.Builder<Integer> builder = ImmutableList.builder();
+    for (int i = 0; i < 200_000; i++) {
+      builder.add(i);
+    }
+    ImmutableList<Integer> actual = builder.build();
+    ImmutableList<Integer> expected = actual.reverse();
+
+    assertThat(actual).containsExactlyElementsIn(expected);
+    assertThat(actual).containsAtLeastElementsIn(expected);
+
+    expectFailureWhenTestingThat(actual).containsExactlyElementsIn(expected).inOrder();
+    assertFailureKeys("contents match, but order was wrong", "expected", "but was");
+  }
+
+  @Test
+  public void iterableContainsExactlyFailureWithManyElements() {
+    ImmutableList.Builder<Integer> actual = ImmutableList.builder();
+    ImmutableList.Builder<Integer> expected = ImmutableList.builder();
+    for (int i = 0; i < 100_000; i++) {
+      actual.add(i);
+      expected.add(-i - 1);
+    }
+
+    expectFailureWhenTestingThat(actual.build()).containsExactlyElementsIn(expected.build());
+    assertThatFailure().factKeys().containsAtLeast("missing (100000)", "unexpected (100000)");
+    assertFailureValueIndexed("#1", 0, "-1");
+    assertFailureValueIndexed("#1", 1, "0");
+  }
+
   @Test
   public void iterableContainsExactlyElementsInInOrderPassesWithEmptyExpectedAndActual() {
     assertThat(ImmutableList.of()).containsExactlyElementsIn(ImmutableList.of()).inOrder();
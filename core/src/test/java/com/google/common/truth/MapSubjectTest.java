@@ -294,6 +294,44 @@ public class MapSubjectTest extends BaseSubjectTestCase {
     assertFailureValue("unexpected value", "1");
   }
 
+  @Test
+  public void containsExactly_manyDifferences_listsFirstFewOfEach() {
+    ImmutableMap<String, Integer> actual = ImmutableMap.of("jan", 1, "feb", 2, "march", 3);
+    expectFailure
+        .whenTesting()
+        .withMaxReportedDifferences(1)
+        .that(actual)
+        .containsExactly("jan", 10, "feb", 20, "april", 4, "may", 5);
+    assertFailureKeys(
+        "keys with wrong values (showing first 1 of 2)",
+        "for key",
+        "expected value",
+        "but got value",
+        "missing keys (showing first 1 of 2)",
+        "for key",
+        "expected value",
+        "unexpected keys",
+        "for key",
+        "unexpected value",
+        "---",
+        "expected",
+        "but was");
+    assertFailureValueIndexed("for key", 0, "jan");
+    assertFailureValueIndexed("for key", 1, "april");
+    assertFailureValueIndexed("for key", 2, "march");
+  }
+
+  @Test
+  public void containsExactly_manyDifferences_listsFirstHundredByDefault() {
+    Map<Integer, Integer> expected = new LinkedHashMap<>();
+    for (int i = 0; i < 150; i++) {
+      expected.put(i, i);
+    }
+    expectFailureWhenTestingThat(ImmutableMap.of()).containsExactlyEntriesIn(expected);
+    assertThat(expectFailure.getFailure().getMessage())
+        .startsWith("missing keys (showing first 100 of 150)\n");
+  }
+
   @Test
   public void containsExactlyNotInOrder() {
     ImmutableMap<String, Integer> actual = ImmutableMap.of("jan", 1, "feb", 2, "march", 3);
@@ -302,7 +340,14 @@ public class MapSubjectTest extends BaseSubjectTestCase {
 
     assertThat(actual).containsExactly("jan", 1, "march", 3, "feb", 2);
     expectFailureWhenTestingThat(actual).containsExactly("jan", 1, "march", 3, "feb", 2).inOrder();
-    assertFailureKeys("entries match, but order was wrong", "expected", "but was");
+    assertFailureKeys(
+        "entries match, but order was wrong",
+        "first key out of order",
+        "expected key at that position",
+        "expected",
+        "but was");
+    assertFailureValue("first key out of order", "feb");
+    assertFailureValue("expected key at that position", "march");
     assertFailureValue("expected", "{jan=1, march=3, feb=2}");
     assertFailureValue("but was", "{jan=1, feb=2, march=3}");
   }
@@ -559,8 +604,12 @@ public class MapSubjectTest extends BaseSubjectTestCase {
     expectFailureWhenTestingThat(actual).containsAtLeast("march", 3, "feb", 2).inOrder();
     assertFailureKeys(
         "required entries were all found, but order was wrong",
+        "first key out of order",
+        "expected key at that position",
         "expected to contain at least",
         "but was");
+    assertFailureValue("first key out of order", "feb");
+    assertFailureValue("expected key at that position", "march");
     assertFailureValue("expected to contain at least", "{march=3, feb=2}");
     assertFailureValue("but was", "{jan=1, feb=2, march=3}");
   }
@@ -1505,7 +1554,12 @@ public class MapSubjectTest extends BaseSubjectTestCase {
         .containsExactly("def", 456, "abc", 123)
         .inOrder();
     assertFailureKeys(
-        "entries match, but order was wrong", "expected", "testing whether", "but was");
+        "entries match, but order was wrong",
+        "first key out of order",
+        "expected key at that position",
+        "expected",
+        "testing whether",
+        "but was");
     assertFailureValue("expected", "{def=456, abc=123}");
     assertFailureValue("but was", "{abc=123, def=456}");
   }
@@ -1725,7 +1779,12 @@ public class MapSubjectTest extends BaseSubjectTestCase {
         .containsExactlyEntriesIn(expected)
         .inOrder();
     assertFailureKeys(
-        "entries match, but order was wrong", "expected", "testing whether", "but was");
+        "entries match, but order was wrong",
+        "first key out of order",
+        "expected key at that position",
+        "expected",
+        "testing whether",
+        "but was");
   }
 
   @Test
@@ -1878,6 +1937,8 @@ public class MapSubjectTest extends BaseSubjectTestCase {
         .inOrder();
     assertFailureKeys(
         "required entries were all found, but order was wrong",
+        "first key out of order",
+        "expected key at that position",
         "expected to contain at least",
         "testing whether",
         "but was");
@@ -2084,6 +2145,8 @@ public class MapSubjectTest extends BaseSubjectTestCase {
         .inOrder();
     assertFailureKeys(
         "required entries were all found, but order was wrong",
+        "first key out of order",
+        "expected key at that position",
         "expected to contain at least",
         "testing whether",
         "but was");
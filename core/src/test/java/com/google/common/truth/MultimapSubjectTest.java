@@ -21,6 +21,8 @@ import static com.google.common.truth.TestCorrespondences.STRING_PARSES_TO_INTEG
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Function;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableListMultimap;
@@ -29,6 +31,10 @@ import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -1316,6 +1322,30 @@ public class MultimapSubjectTest extends BaseSubjectTestCase {
     assertThatFailure().factValue("unexpected (1)").isAnyOf("[def=+64]", "[def=0x40]");
   }
 
+  @Test
+  public void comparingValuesUsing_containsExactlyEntriesIn_comparesOnlyEntriesWithEqualKeys() {
+    final List<String> compared = new ArrayList<>();
+    Correspondence<String, String> correspondence =
+        Correspondence.from(
+                new Correspondence.BinaryPredicate<String, String>() {
+                  @Override
+                  public boolean apply(String actual, String expected) {
+                    compared.add(actual + "=" + expected);
+                    return actual.equalsIgnoreCase(expected);
+                  }
+                },
+                "equals (ignoring case)")
+            .indexingUsing(LOWER_CASE, LOWER_CASE);
+    ImmutableListMultimap<Integer, String> actual =
+        ImmutableListMultimap.of(1, "x", 1, "Y", 2, "x");
+    ImmutableListMultimap<Integer, String> expected =
+        ImmutableListMultimap.of(1, "y", 1, "X", 2, "X");
+    assertThat(actual).comparingValuesUsing(correspondence).containsExactlyEntriesIn(expected);
+    // The first call is from the failed attempt to pair the entries in order. After that, values
+    // are compared only with values that have both the same multimap key and the same index key.
+    assertThat(compared).containsExactly("x=y", "x=X", "Y=y", "x=X");
+  }
+
   @Test
   public void comparingValuesUsing_containsExactlyEntriesIn_handlesException() {
     ListMultimap<Integer, String> actual = LinkedListMultimap.create();
@@ -1873,7 +1903,37 @@ public class MultimapSubjectTest extends BaseSubjectTestCase {
         "expected order for required elements", "[abc=123, def=64, def=128, def=64]");
   }
 
+  @Test
+  @GwtIncompatible("Executors")
+  public void comparingValuesUsing_comparingInParallel() {
+    ImmutableListMultimap<String, String> actual =
+        ImmutableListMultimap.of("abc", "+123", "def", "+64", "def", "0x40", "def", "+128");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      assertThat(actual)
+          .comparingValuesUsing(STRING_PARSES_TO_INTEGER_CORRESPONDENCE)
+          .comparingInParallelUsing(executor)
+          .containsExactly("def", 64, "def", 128, "def", 64, "abc", 123);
+      expectFailureWhenTestingThat(actual)
+          .comparingValuesUsing(STRING_PARSES_TO_INTEGER_CORRESPONDENCE)
+          .comparingInParallelUsing(executor)
+          .containsExactly("def", 64, "def", 128, "def", 64, "abc", 124);
+    } finally {
+      executor.shutdown();
+    }
+    assertFailureValue("missing (1)", "abc=124");
+  }
+
   private MultimapSubject expectFailureWhenTestingThat(Multimap<?, ?> actual) {
     return expectFailure.whenTesting().that(actual);
   }
+
+  private static final Function<String, String> LOWER_CASE =
+      // If we were allowed to use method references, this would be String::toLowerCase.
+      new Function<String, String>() {
+        @Override
+        public String apply(String input) {
+          return input.toLowerCase();
+        }
+      };
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.primitives.Booleans;
+import com.google.common.primitives.Chars;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Floats;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link PrimitiveArrayKeys}. */
+@RunWith(JUnit4.class)
+public final class PrimitiveArrayKeysTest {
+
+  @Test
+  public void doubleKeysAgreeWithBoxedDoubles() {
+    double[] values = {
+      Double.NEGATIVE_INFINITY,
+      -Double.MAX_VALUE,
+      -1.0,
+      -Double.MIN_VALUE,
+      -0.0,
+      0.0,
+      Double.MIN_VALUE,
+      1.0,
+      Double.MAX_VALUE,
+      Double.POSITIVE_INFINITY,
+      Double.NaN,
+      Double.longBitsToDouble(0x7ff0000000000001L), // a NaN that isn't the canonical one
+    };
+    assertKeysAgreeWithBoxedElements(PrimitiveArrayKeys.of(values), Doubles.asList(values));
+  }
+
+  @Test
+  public void floatKeysAgreeWithBoxedFloats() {
+    float[] values = {
+      Float.NEGATIVE_INFINITY,
+      -Float.MAX_VALUE,
+      -1.0f,
+      -Float.MIN_VALUE,
+      -0.0f,
+      0.0f,
+      Float.MIN_VALUE,
+      1.0f,
+      Float.MAX_VALUE,
+      Float.POSITIVE_INFINITY,
+      Float.NaN,
+    };
+    assertKeysAgreeWithBoxedElements(PrimitiveArrayKeys.of(values), Floats.asList(values));
+  }
+
+  @Test
+  public void charKeysAgreeWithBoxedCharacters() {
+    char[] values = {Character.MIN_VALUE, 'a', 'b', '\u8000', Character.MAX_VALUE};
+    assertKeysAgreeWithBoxedElements(PrimitiveArrayKeys.of(values), Chars.asList(values));
+  }
+
+  @Test
+  public void booleanKeysAgreeWithBoxedBooleans() {
+    boolean[] values = {false, true};
+    assertKeysAgreeWithBoxedElements(PrimitiveArrayKeys.of(values), Booleans.asList(values));
+  }
+
+  @Test
+  public void keysOfElements_wrongType() {
+    PrimitiveArrayKeys keys = PrimitiveArrayKeys.of(new int[] {1, 2});
+    assertThat(keys.keysOfElements(Arrays.<Object>asList(1, 2L))).isNull();
+    assertThat(keys.keysOfElements(Arrays.<Object>asList(1, null))).isNull();
+    assertThat(keys.keysOfElements(Arrays.<Object>asList(2, 1))).isNotNull();
+  }
+
+  @Test
+  public void equalsIgnoringOrder() {
+    PrimitiveArrayKeys keys = PrimitiveArrayKeys.of(new int[] {3, 1, 3, 2});
+    assertThat(keys.equalsInOrder(PrimitiveArrayKeys.of(new int[] {3, 1, 3, 2}))).isTrue();
+    assertThat(keys.equalsInOrder(PrimitiveArrayKeys.of(new int[] {1, 2, 3, 3}))).isFalse();
+    assertThat(keys.equalsIgnoringOrder(PrimitiveArrayKeys.of(new int[] {1, 2, 3, 3}))).isTrue();
+    assertThat(keys.equalsIgnoringOrder(PrimitiveArrayKeys.of(new int[] {1, 2, 2, 3}))).isFalse();
+    assertThat(keys.equalsIgnoringOrder(PrimitiveArrayKeys.of(new int[] {1, 2, 3}))).isFalse();
+  }
+
+  @Test
+  public void containsInOrderAndContainsAll() {
+    PrimitiveArrayKeys keys = PrimitiveArrayKeys.of(new int[] {3, 1, 3, 2});
+    assertThat(keys.containsInOrder(PrimitiveArrayKeys.of(new int[] {3, 3, 2}))).isTrue();
+    assertThat(keys.containsInOrder(PrimitiveArrayKeys.of(new int[] {1, 3, 3}))).isFalse();
+    assertThat(keys.containsAll(PrimitiveArrayKeys.of(new int[] {1, 3, 3}))).isTrue();
+    assertThat(keys.containsAll(PrimitiveArrayKeys.of(new int[] {1, 1, 3}))).isFalse();
+    assertThat(keys.containsAll(PrimitiveArrayKeys.of(new int[] {}))).isTrue();
+  }
+
+  @Test
+  public void isInOrderAndHasDuplicates() {
+    assertThat(PrimitiveArrayKeys.of(new long[] {1, 2, 2}).isInOrder(/* strict= */ false))
+        .isTrue();
+    assertThat(PrimitiveArrayKeys.of(new long[] {1, 2, 2}).isInOrder(/* strict= */ true))
+        .isFalse();
+    assertThat(PrimitiveArrayKeys.of(new long[] {2, 1}).isInOrder(/* strict= */ false)).isFalse();
+    assertThat(PrimitiveArrayKeys.of(new long[] {2, 1, 2}).hasDuplicates()).isTrue();
+    assertThat(PrimitiveArrayKeys.of(new long[] {2, 1, 3}).hasDuplicates()).isFalse();
+  }
+
+  /**
+   * Checks that, for every pair of elements, their keys compare the same way as the boxed elements
+   * do under their natural ordering, and are equal exactly when the boxed elements are.
+   */
+  @SuppressWarnings("unchecked") // the boxed elements are all of the same Comparable type
+  private static void assertKeysAgreeWithBoxedElements(
+      PrimitiveArrayKeys keys, List<? extends Comparable<?>> boxed) {
+    for (int i = 0; i < boxed.size(); i++) {
+      for (int j = 0; j < boxed.size(); j++) {
+        Comparable<Object> left = (Comparable<Object>) boxed.get(i);
+        Object right = boxed.get(j);
+        assertWithMessage("comparing %s with %s", left, right)
+            .that(Long.signum(Long.compare(keys.key(i), keys.key(j))))
+            .isEqualTo(Integer.signum(left.compareTo(right)));
+        assertWithMessage("comparing %s with %s", left, right)
+            .that(keys.key(i) == keys.key(j))
+            .isEqualTo(left.equals(right));
+        assertThat(keys.isElement(right)).isTrue();
+        assertThat(keys.keyOfElement(right)).isEqualTo(keys.key(j));
+      }
+    }
+  }
+}
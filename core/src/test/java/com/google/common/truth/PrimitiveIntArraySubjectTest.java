@@ -48,6 +48,58 @@ public class PrimitiveIntArraySubjectTest extends BaseSubjectTestCase {
     assertThat(array(5, 2, 9)).asList().containsAtLeast(2, 9);
   }
 
+  @Test
+  public void asList_containsExactly() {
+    assertThat(array(5, 2, 9)).asList().containsExactly(5, 2, 9).inOrder();
+    assertThat(array(5, 2, 9)).asList().containsExactly(9, 5, 2);
+    assertThat(EMPTY).asList().containsExactly().inOrder();
+  }
+
+  @Test
+  public void asList_containsExactly_inOrderFail() {
+    expectFailureWhenTestingThat(array(5, 2, 9)).asList().containsExactly(9, 5, 2).inOrder();
+    assertFailureKeys("value of", "contents match, but order was wrong", "expected", "but was");
+    assertFailureValue("expected", "[9, 5, 2]");
+  }
+
+  @Test
+  public void asList_containsExactly_wrongTypeFail() {
+    expectFailureWhenTestingThat(array(5, 2)).asList().containsExactly(5, 2L);
+    assertFailureKeys("value of", "missing (1)", "unexpected (1)", "---", "expected", "but was");
+    assertFailureValue("missing (1)", "2 (java.lang.Long)");
+  }
+
+  @Test
+  public void asList_containsAtLeast_inOrderFail() {
+    assertThat(array(5, 2, 9, 2)).asList().containsAtLeast(2, 2, 5);
+    expectFailureWhenTestingThat(array(5, 2, 9, 2)).asList().containsAtLeast(2, 2, 5).inOrder();
+    assertFailureKeys(
+        "value of",
+        "required elements were all found, but order was wrong",
+        "expected order for required elements",
+        "but was");
+  }
+
+  @Test
+  public void asList_containsNoDuplicates() {
+    assertThat(array(5, 2, 9)).asList().containsNoDuplicates();
+    expectFailureWhenTestingThat(array(5, 2, 5)).asList().containsNoDuplicates();
+    assertFailureValue("but contained", "[5 x 2]");
+  }
+
+  @Test
+  public void asList_isInOrder() {
+    assertThat(array(Integer.MIN_VALUE, 2, 2, Integer.MAX_VALUE)).asList().isInOrder();
+    assertThat(array(Integer.MIN_VALUE, 2, Integer.MAX_VALUE)).asList().isInStrictOrder();
+    expectFailureWhenTestingThat(array(1, 2, 2)).asList().isInStrictOrder();
+    assertFailureKeys(
+        "value of",
+        "expected to be in strict order",
+        "but contained",
+        "followed by",
+        "full contents");
+  }
+
   @Test
   public void hasLength() {
     assertThat(EMPTY).hasLength(0);
@@ -100,6 +152,38 @@ public class PrimitiveIntArraySubjectTest extends BaseSubjectTestCase {
     assertFailureValue("differs at index", "[0]");
   }
 
+  @Test
+  public void isEqualTo_Fail_Long() {
+    int[] expected = new int[2000];
+    int[] actual = new int[2000];
+    actual[5] = 1;
+    actual[1500] = 1;
+    expectFailureWhenTestingThat(actual).isEqualTo(expected);
+    assertFailureKeys("expected", "but was", "differs at index", "number of differing elements");
+    assertFailureValue(
+        "expected", "[0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, …] (indexes 0 to 15 of 2000)");
+    assertFailureValue(
+        "but was", "[0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, …] (indexes 0 to 15 of 2000)");
+    assertFailureValue("differs at index", "[5]");
+    assertFailureValue("number of differing elements", "2");
+  }
+
+  @Test
+  public void isEqualTo_Fail_Long_WrongLength() {
+    int[] expected = new int[2000];
+    int[] actual = new int[1995];
+    expectFailureWhenTestingThat(actual).isEqualTo(expected);
+    assertFailureKeys("expected", "but was", "wrong length", "expected", "but was");
+    assertFailureValueIndexed(
+        "expected",
+        0,
+        "[…, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0] (indexes 1985 to 1999 of 2000)");
+    assertFailureValueIndexed(
+        "but was", 0, "[…, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0] (indexes 1985 to 1994 of 1995)");
+    assertFailureValueIndexed("expected", 1, "2000");
+    assertFailureValueIndexed("but was", 1, "1995");
+  }
+
   @Test
   public void isEqualTo_Fail_NotAnArray() {
     expectFailureWhenTestingThat(array(2, 3, 4)).isEqualTo(new Object());
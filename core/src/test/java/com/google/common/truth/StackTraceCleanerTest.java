@@ -18,7 +18,13 @@ package com.google.common.truth;
 import static com.google.common.truth.ExpectFailure.expectFailure;
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Range;
+import com.google.common.truth.StackTraceCleaner.FrameClassification;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runner.Runner;
@@ -312,6 +318,70 @@ public class StackTraceCleanerTest extends BaseSubjectTestCase {
 
   abstract static class SomeRunner extends Runner {}
 
+  abstract static class SomeSubject extends Subject {
+    SomeSubject(FailureMetadata metadata, Object actual) {
+      super(metadata, actual);
+    }
+
+    static final class Nested {}
+  }
+
+  @Test
+  public void frameClassificationIsCachedPerLoader() {
+    ImmutableList<String> classNames =
+        ImmutableList.of(
+            StringSubject.class.getName(),
+            SomeSubject.class.getName(),
+            SomeSubject.Nested.class.getName(),
+            StandardSubjectBuilder.class.getName(),
+            SomeRunner.class.getName(),
+            SomeStatement.class.getName(),
+            "org.junit.Bar",
+            "com.example.MyTest",
+            StackTraceCleanerTest.class.getName());
+    ClassLoader loader = StackTraceCleanerTest.class.getClassLoader();
+    ClassLoader childLoader = new URLClassLoader(new URL[0], loader);
+
+    Thread thread = Thread.currentThread();
+    ClassLoader originalLoader = thread.getContextClassLoader();
+    try {
+      thread.setContextClassLoader(loader);
+      List<FrameClassification> classifications = new ArrayList<>();
+      for (String className : classNames) {
+        FrameClassification classification = StackTraceCleaner.classify(className);
+        assertThat(StackTraceCleaner.classify(className)).isSameInstanceAs(classification);
+        assertThat(classification).isEqualTo(FrameClassification.compute(loader, className));
+        classifications.add(classification);
+      }
+
+      thread.setContextClassLoader(childLoader);
+      for (int i = 0; i < classNames.size(); i++) {
+        FrameClassification classification = StackTraceCleaner.classify(classNames.get(i));
+        assertThat(classification).isNotSameInstanceAs(classifications.get(i));
+        assertThat(classification).isEqualTo(classifications.get(i));
+      }
+    } finally {
+      thread.setContextClassLoader(originalLoader);
+    }
+  }
+
+  @Test
+  public void frameClassificationOfSubclassesAndNestedClasses() {
+    assertThat(StackTraceCleaner.classify(StringSubject.class.getName()).isTruthEntrance).isTrue();
+    assertThat(StackTraceCleaner.classify(SomeSubject.class.getName()).isTruthEntrance).isTrue();
+    assertThat(StackTraceCleaner.classify(SomeSubject.Nested.class.getName()).isTruthEntrance)
+        .isTrue();
+    assertThat(StackTraceCleaner.classify(SomeRunner.class.getName()).isJUnitInfrastructure)
+        .isTrue();
+    assertThat(StackTraceCleaner.classify(SomeStatement.class.getName()).isJUnitInfrastructure)
+        .isTrue();
+
+    FrameClassification unrelated =
+        StackTraceCleaner.classify(StackTraceCleanerTest.class.getName());
+    assertThat(unrelated.isTruthEntrance).isFalse();
+    assertThat(unrelated.isJUnitInfrastructure).isFalse();
+  }
+
   /**
    * This scenario where truth class is called directly without any subject's subclass or {@link
    * StandardSubjectBuilder} in the call stack should not happen in practical, testing anyway to
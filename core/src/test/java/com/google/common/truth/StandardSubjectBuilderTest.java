@@ -16,7 +16,11 @@
 
 package com.google.common.truth;
 
+import static com.google.common.truth.Truth.assert_;
 
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Iterables;
+import java.util.Collections;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -29,4 +33,79 @@ public final class StandardSubjectBuilderTest extends BaseSubjectTestCase {
     expectFailure.whenTesting().fail();
     assertThatFailure().hasMessageThat().isEmpty();
   }
+
+  @Test
+  public void withMaxFactValueLength() {
+    expectFailure
+        .whenTesting()
+        .withMaxFactValueLength(10)
+        .that(Collections.nCopies(1_000_000, 0))
+        .containsExactly(1);
+    assertFailureValue("missing (1)", "1");
+    assertFailureValue("expected", "[1]");
+    assertFailureValue("but was", "[0, 0, 0, …] (showing 3 of 1000000 elements)");
+  }
+
+  @Test
+  public void withMaxFactValueLength_default() {
+    expectFailure.whenTesting().that(Collections.nCopies(1_000_000, 0)).isEmpty();
+    assertThatFailure()
+        .factValue("but was")
+        .isEqualTo(
+            Collections.nCopies(33_333, 0).toString().substring(0, 99_998)
+                + ", …] (showing 33333 of 1000000 elements)");
+  }
+
+  @Test
+  public void withMaxFactValueLength_customStringRepresentation() {
+    expectFailure
+        .whenTesting()
+        .withMaxFactValueLength(10)
+        .about(countedIterables())
+        .that(Collections.nCopies(1_000_000, 0))
+        .isEmpty();
+    assertFailureValue("but was", "1000000 ze… (showing 10 of 14 characters)");
+  }
+
+  @Test
+  public void withMaxFactValueLength_multiset() {
+    expectFailure
+        .whenTesting()
+        .withMaxFactValueLength(10)
+        .that(ImmutableMultiset.of("a", "a", "a", "b", "c"))
+        .isEmpty();
+    assertFailureValue("but was", "[a x 3, b,… (showing 10 of 13 characters)");
+  }
+
+  private static Subject.Factory<IterableSubject, Iterable<?>> countedIterables() {
+    return new Subject.Factory<IterableSubject, Iterable<?>>() {
+      @Override
+      public IterableSubject createSubject(FailureMetadata metadata, final Iterable<?> actual) {
+        return new IterableSubject(metadata, actual) {
+          @Override
+          protected String actualCustomStringRepresentation() {
+            return Iterables.size(actual) + " zeroes";
+          }
+        };
+      }
+    };
+  }
+
+  @Test
+  public void withMaxFactValueLength_negative() {
+    try {
+      assert_().withMaxFactValueLength(-1);
+      throw new AssertionError();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test
+  public void withMaxReportedDifferences_notPositive() {
+    try {
+      assert_().withMaxReportedDifferences(0);
+      throw new AssertionError();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
 }
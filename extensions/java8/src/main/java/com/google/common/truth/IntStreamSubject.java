@@ -15,12 +15,20 @@
  */
 package com.google.common.truth;
 
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.truth.Fact.fact;
+import static com.google.common.truth.Fact.simpleFact;
 import static java.util.stream.Collectors.toCollection;
 
+import com.google.common.primitives.Ints;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -36,37 +44,69 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * collect the contents of the stream into a collection, and then assert directly on that.
  *
  * <p>For very large or infinite streams you may want to first {@linkplain Stream#limit limit} the
- * stream before asserting on it.
+ * stream before asserting on it, or to assert on it with {@link #lazyIntStreams}.
  *
  * @author Kurt Alfred Kluever
  */
 public final class IntStreamSubject extends Subject {
 
-  private final List<?> actualList;
+  // Exactly one of these is non-null, unless the stream itself is null.
+  private final @Nullable List<?> actualList;
+  private final @Nullable LazyInts lazyElements;
 
-  private IntStreamSubject(FailureMetadata failureMetadata, @Nullable IntStream stream) {
+  private IntStreamSubject(
+      FailureMetadata failureMetadata, @Nullable IntStream stream, boolean lazy) {
     super(failureMetadata, stream);
-    this.actualList =
-        (stream == null) ? null : stream.boxed().collect(toCollection(ArrayList::new));
+    if (stream == null) {
+      this.actualList = null;
+      this.lazyElements = null;
+    } else if (lazy) {
+      this.actualList = null;
+      this.lazyElements = new LazyInts(stream.iterator());
+    } else {
+      this.actualList = stream.boxed().collect(toCollection(ArrayList::new));
+      this.lazyElements = null;
+    }
   }
 
   @Override
   protected String actualCustomStringRepresentation() {
-    return String.valueOf(actualList);
+    return lazyElements == null ? String.valueOf(actualList) : lazyElements.toString();
   }
 
   public static Factory<IntStreamSubject, IntStream> intStreams() {
-    return IntStreamSubject::new;
+    return (metadata, subject) -> new IntStreamSubject(metadata, subject, /* lazy= */ false);
+  }
+
+  /**
+   * Returns a factory for subjects that read the stream only as far as each assertion needs to,
+   * without boxing its elements. See {@link StreamSubject#lazyStreams} for which assertions
+   * benefit.
+   */
+  public static Factory<IntStreamSubject, IntStream> lazyIntStreams() {
+    return (metadata, subject) -> new IntStreamSubject(metadata, subject, /* lazy= */ true);
+  }
+
+  private @Nullable List<?> actualList() {
+    return lazyElements == null ? actualList : lazyElements.toList();
   }
 
   /** Fails if the subject is not empty. */
   public void isEmpty() {
-    check().that(actualList).isEmpty();
+    if (lazyElements == null) {
+      check().that(actualList).isEmpty();
+    } else if (lazyElements.iterator().hasNext()) {
+      failWithActual(simpleFact("expected to be empty"));
+    }
   }
 
   /** Fails if the subject is empty. */
   public void isNotEmpty() {
-    check().that(actualList).isNotEmpty();
+    if (lazyElements == null) {
+      check().that(actualList).isNotEmpty();
+    } else if (!lazyElements.iterator().hasNext()) {
+      failWithoutActual(simpleFact("expected not to be empty"));
+    }
   }
 
   /**
@@ -76,33 +116,52 @@ public final class IntStreamSubject extends Subject {
    * elements, use {@code assertThat(stream.count()).isEqualTo(...)}.
    */
   public void hasSize(int expectedSize) {
-    check().that(actualList).hasSize(expectedSize);
+    check().that(actualList()).hasSize(expectedSize);
   }
 
   /** Fails if the subject does not contain the given element. */
   public void contains(int element) {
-    check().that(actualList).contains(element);
+    if (lazyElements == null) {
+      check().that(actualList).contains(element);
+    } else if (!findAnyOf(new int[] {element}).isPresent()) {
+      failWithActual("expected to contain", element);
+    }
   }
 
   /** Fails if the subject contains the given element. */
   public void doesNotContain(int element) {
-    check().that(actualList).doesNotContain(element);
+    if (lazyElements == null) {
+      check().that(actualList).doesNotContain(element);
+    } else if (findAnyOf(new int[] {element}).isPresent()) {
+      failWithActual("expected not to contain", element);
+    }
   }
 
   /** Fails if the subject contains duplicate elements. */
   public void containsNoDuplicates() {
-    check().that(actualList).containsNoDuplicates();
+    check().that(actualList()).containsNoDuplicates();
   }
 
   /** Fails if the subject does not contain at least one of the given elements. */
   @SuppressWarnings("GoodTime") // false positive; b/122617528
   public void containsAnyOf(int first, int second, int... rest) {
-    check().that(actualList).containsAnyOf(first, second, box(rest));
+    if (lazyElements == null) {
+      check().that(actualList).containsAnyOf(first, second, box(rest));
+    } else {
+      int[] expected = Ints.concat(new int[] {first, second}, rest);
+      if (!findAnyOf(expected).isPresent()) {
+        failWithActual("expected to contain any of", Ints.asList(expected));
+      }
+    }
   }
 
   /** Fails if the subject does not contain at least one of the given elements. */
   public void containsAnyIn(Iterable<?> expected) {
-    check().that(actualList).containsAnyIn(expected);
+    if (lazyElements == null) {
+      check().that(actualList).containsAnyIn(expected);
+    } else if (!findAnyOf(intsIn(expected)).isPresent()) {
+      failWithActual("expected to contain any of", expected);
+    }
   }
 
   /**
@@ -117,7 +176,7 @@ public final class IntStreamSubject extends Subject {
   @SuppressWarnings("GoodTime") // false positive; b/122617528
   @CanIgnoreReturnValue
   public Ordered containsAtLeast(int first, int second, int... rest) {
-    return check().that(actualList).containsAtLeast(first, second, box(rest));
+    return check().that(actualList()).containsAtLeast(first, second, box(rest));
   }
 
   /**
@@ -131,7 +190,7 @@ public final class IntStreamSubject extends Subject {
    */
   @CanIgnoreReturnValue
   public Ordered containsAtLeastElementsIn(Iterable<?> expected) {
-    return check().that(actualList).containsAtLeastElementsIn(expected);
+    return check().that(actualList()).containsAtLeastElementsIn(expected);
   }
 
   /**
@@ -145,7 +204,7 @@ public final class IntStreamSubject extends Subject {
    */
   @CanIgnoreReturnValue
   public Ordered containsExactly(int... varargs) {
-    return check().that(actualList).containsExactly(box(varargs));
+    return check().that(actualList()).containsExactly(box(varargs));
   }
 
   /**
@@ -159,7 +218,7 @@ public final class IntStreamSubject extends Subject {
    */
   @CanIgnoreReturnValue
   public Ordered containsExactlyElementsIn(Iterable<?> expected) {
-    return check().that(actualList).containsExactlyElementsIn(expected);
+    return check().that(actualList()).containsExactlyElementsIn(expected);
   }
 
   /**
@@ -168,7 +227,12 @@ public final class IntStreamSubject extends Subject {
    */
   @SuppressWarnings("GoodTime") // false positive; b/122617528
   public void containsNoneOf(int first, int second, int... rest) {
-    check().that(actualList).containsNoneOf(first, second, box(rest));
+    if (lazyElements == null) {
+      check().that(actualList).containsNoneOf(first, second, box(rest));
+    } else {
+      int[] excluded = Ints.concat(new int[] {first, second}, rest);
+      failIfContainsAnyOf(excluded, Ints.asList(excluded));
+    }
   }
 
   /**
@@ -176,7 +240,11 @@ public final class IntStreamSubject extends Subject {
    * test, which fails if any of the actual elements equal any of the excluded.)
    */
   public void containsNoneIn(Iterable<?> excluded) {
-    check().that(actualList).containsNoneIn(excluded);
+    if (lazyElements == null) {
+      check().that(actualList).containsNoneIn(excluded);
+    } else {
+      failIfContainsAnyOf(intsIn(excluded), excluded);
+    }
   }
 
   /**
@@ -188,7 +256,11 @@ public final class IntStreamSubject extends Subject {
    * @throws NullPointerException if any element is null
    */
   public void isInStrictOrder() {
-    check().that(actualList).isInStrictOrder();
+    if (lazyElements == null) {
+      check().that(actualList).isInStrictOrder();
+    } else {
+      pairwiseCheck("expected to be in strict order", Integer::compare, /* strict= */ true);
+    }
   }
 
   /**
@@ -199,7 +271,11 @@ public final class IntStreamSubject extends Subject {
    * @throws ClassCastException if any pair of elements is not mutually Comparable
    */
   public void isInStrictOrder(Comparator<? super Integer> comparator) {
-    check().that(actualList).isInStrictOrder(comparator);
+    if (lazyElements == null) {
+      check().that(actualList).isInStrictOrder(comparator);
+    } else {
+      pairwiseCheck("expected to be in strict order", comparator::compare, /* strict= */ true);
+    }
   }
 
   /**
@@ -210,7 +286,11 @@ public final class IntStreamSubject extends Subject {
    * @throws NullPointerException if any element is null
    */
   public void isInOrder() {
-    check().that(actualList).isInOrder();
+    if (lazyElements == null) {
+      check().that(actualList).isInOrder();
+    } else {
+      pairwiseCheck("expected to be in order", Integer::compare, /* strict= */ false);
+    }
   }
 
   /**
@@ -220,13 +300,173 @@ public final class IntStreamSubject extends Subject {
    * @throws ClassCastException if any pair of elements is not mutually Comparable
    */
   public void isInOrder(Comparator<? super Integer> comparator) {
-    check().that(actualList).isInOrder(comparator);
+    if (lazyElements == null) {
+      check().that(actualList).isInOrder(comparator);
+    } else {
+      pairwiseCheck("expected to be in order", comparator::compare, /* strict= */ false);
+    }
   }
 
   private static Object[] box(int[] rest) {
     return IntStream.of(rest).boxed().toArray(Integer[]::new);
   }
 
+  private void failIfContainsAnyOf(int[] elements, Object excludedForDisplay) {
+    OptionalInt found = findAnyOf(elements);
+    if (found.isPresent()) {
+      failWithActual(
+          fact("expected not to contain any of", excludedForDisplay),
+          fact("but contained", found.getAsInt()));
+    }
+  }
+
+  /**
+   * Reads the stream until it finds one of the given elements and returns that element, if any.
+   */
+  private OptionalInt findAnyOf(int[] elements) {
+    elements = elements.clone();
+    Arrays.sort(elements);
+    for (PrimitiveIterator.OfInt iterator = lazyElements.iterator(); iterator.hasNext(); ) {
+      int element = iterator.nextInt();
+      if (Arrays.binarySearch(elements, element) >= 0) {
+        return OptionalInt.of(element);
+      }
+    }
+    return OptionalInt.empty();
+  }
+
+  /** Returns the elements of the given iterable that could be equal to an element of the stream. */
+  private static int[] intsIn(Iterable<?> iterable) {
+    List<Integer> result = new ArrayList<>();
+    for (Object item : iterable) {
+      if (item instanceof Integer) {
+        result.add((Integer) item);
+      }
+    }
+    return Ints.toArray(result);
+  }
+
+  /** Like {@link Comparator}, but for unboxed elements. */
+  private interface IntComparator {
+    int compare(int a, int b);
+  }
+
+  private void pairwiseCheck(String expectedFact, IntComparator comparator, boolean strict) {
+    PrimitiveIterator.OfInt iterator = lazyElements.iterator();
+    if (!iterator.hasNext()) {
+      return;
+    }
+    int prev = iterator.nextInt();
+    while (iterator.hasNext()) {
+      int next = iterator.nextInt();
+      int comparison = comparator.compare(prev, next);
+      if (strict ? comparison >= 0 : comparison > 0) {
+        failWithActual(
+            simpleFact(expectedFact), fact("but contained", prev), fact("followed by", next));
+        return;
+      }
+      prev = next;
+    }
+  }
+
+  /**
+   * The elements of a stream that we read only as far as we need to. We remember the first {@link
+   * #MAX_REMEMBERED_ELEMENTS} that we read, so that we can display them in failure messages and
+   * start over from the beginning for another assertion.
+   */
+  private static final class LazyInts {
+    private static final int MAX_REMEMBERED_ELEMENTS = 100;
+
+    private final PrimitiveIterator.OfInt rest;
+    private int[] remembered = new int[MAX_REMEMBERED_ELEMENTS];
+    private int rememberedCount;
+    // The number of elements that we have read but not remembered.
+    private long forgottenCount;
+
+    LazyInts(PrimitiveIterator.OfInt rest) {
+      this.rest = rest;
+    }
+
+    /** Returns an iterator over all the elements, starting from the beginning of the stream. */
+    PrimitiveIterator.OfInt iterator() {
+      checkCanStartOver();
+      return new PrimitiveIterator.OfInt() {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+          return index < rememberedCount || rest.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+          if (index < rememberedCount) {
+            return remembered[index++];
+          }
+          if (!rest.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          int next = rest.nextInt();
+          if (forgottenCount == 0 && rememberedCount < MAX_REMEMBERED_ELEMENTS) {
+            remembered[rememberedCount++] = next;
+            index++;
+          } else {
+            forgottenCount++;
+          }
+          return next;
+        }
+      };
+    }
+
+    /** Reads the rest of the stream and returns all its elements. */
+    List<Integer> toList() {
+      checkCanStartOver();
+      while (rest.hasNext()) {
+        if (rememberedCount == remembered.length) {
+          remembered = Arrays.copyOf(remembered, rememberedCount * 2);
+        }
+        remembered[rememberedCount++] = rest.nextInt();
+      }
+      return Ints.asList(remembered).subList(0, rememberedCount);
+    }
+
+    private void checkCanStartOver() {
+      checkState(
+          forgottenCount == 0,
+          "An earlier assertion read more of the stream than can be read again. Use a separate "
+              + "stream for each assertion.");
+    }
+
+    @Override
+    public String toString() {
+      if (forgottenCount == 0) {
+        // Show as many elements as we would remember, even if no assertion has read them yet.
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (rememberedCount < MAX_REMEMBERED_ELEMENTS && iterator.hasNext()) {
+          iterator.nextInt();
+        }
+      }
+      StringBuilder result = new StringBuilder("[");
+      int shown = Math.min(rememberedCount, MAX_REMEMBERED_ELEMENTS);
+      for (int i = 0; i < shown; i++) {
+        result.append(i == 0 ? "" : ", ").append(remembered[i]);
+      }
+      if (shown == rememberedCount + forgottenCount && !rest.hasNext()) {
+        return result.append("]").toString();
+      }
+      result.append(shown == 0 ? "…]" : ", …]");
+      if (!rest.hasNext()) {
+        result
+            .append(" (showing first ")
+            .append(shown)
+            .append(" of ")
+            .append(rememberedCount + forgottenCount)
+            .append(" elements)");
+      }
+      return result.toString();
+    }
+  }
+
   // TODO(user): Do we want to override + deprecate isEqualTo/isNotEqualTo?
 
   // TODO(user): Do we want to support comparingElementsUsing() on StreamSubject?
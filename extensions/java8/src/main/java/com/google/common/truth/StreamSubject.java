@@ -15,12 +15,22 @@
  */
 package com.google.common.truth;
 
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.truth.Fact.fact;
+import static com.google.common.truth.Fact.simpleFact;
+import static com.google.common.truth.SubjectUtils.accumulate;
 import static java.util.stream.Collectors.toCollection;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -35,36 +45,77 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * collect the contents of the stream into a collection, and then assert directly on that.
  *
  * <p>For very large or infinite streams you may want to first {@linkplain Stream#limit limit} the
- * stream before asserting on it.
+ * stream before asserting on it, or to assert on it with {@link #lazyStreams}.
  *
  * @author Kurt Alfred Kluever
  */
 public final class StreamSubject extends Subject {
 
-  private final List<?> actualList;
+  // Exactly one of these is non-null, unless the stream itself is null.
+  private final @Nullable List<?> actualList;
+  private final @Nullable LazyElements lazyElements;
 
-  private StreamSubject(FailureMetadata failureMetadata, @Nullable Stream<?> stream) {
+  private StreamSubject(
+      FailureMetadata failureMetadata, @Nullable Stream<?> stream, boolean lazy) {
     super(failureMetadata, stream);
-    this.actualList = (stream == null) ? null : stream.collect(toCollection(ArrayList::new));
+    if (stream == null) {
+      this.actualList = null;
+      this.lazyElements = null;
+    } else if (lazy) {
+      this.actualList = null;
+      this.lazyElements = new LazyElements(stream.iterator());
+    } else {
+      this.actualList = stream.collect(toCollection(ArrayList::new));
+      this.lazyElements = null;
+    }
   }
 
   @Override
   protected String actualCustomStringRepresentation() {
-    return String.valueOf(actualList);
+    return lazyElements == null ? String.valueOf(actualList) : lazyElements.toString();
   }
 
   public static Subject.Factory<StreamSubject, Stream<?>> streams() {
-    return (metadata, subject) -> new StreamSubject(metadata, subject);
+    return (metadata, subject) -> new StreamSubject(metadata, subject, /* lazy= */ false);
+  }
+
+  /**
+   * Returns a factory for subjects that read the stream only as far as each assertion needs to.
+   *
+   * <p>{@link #isEmpty}, {@link #isNotEmpty}, {@link #contains}, {@link #containsAnyOf}, {@link
+   * #containsAnyIn}, {@link #isInOrder} and {@link #isInStrictOrder} stop reading as soon as they
+   * know the answer, so they can pass for very large or even infinite streams. {@link
+   * #doesNotContain}, {@link #containsNoneOf} and {@link #containsNoneIn} stop at the first
+   * element that makes them fail. All of these keep only the first 100 elements, which they use in
+   * failure messages. The remaining assertions still read the whole stream into memory.
+   *
+   * <p>Since a stream can be read only once, a second assertion on the same subject works only if
+   * the first one read at most 100 elements.
+   */
+  public static Subject.Factory<StreamSubject, Stream<?>> lazyStreams() {
+    return (metadata, subject) -> new StreamSubject(metadata, subject, /* lazy= */ true);
+  }
+
+  private @Nullable List<?> actualList() {
+    return lazyElements == null ? actualList : lazyElements.toList();
   }
 
   /** Fails if the subject is not empty. */
   public void isEmpty() {
-    check().that(actualList).isEmpty();
+    if (lazyElements == null) {
+      check().that(actualList).isEmpty();
+    } else if (lazyElements.iterator().hasNext()) {
+      failWithActual(simpleFact("expected to be empty"));
+    }
   }
 
   /** Fails if the subject is empty. */
   public void isNotEmpty() {
-    check().that(actualList).isNotEmpty();
+    if (lazyElements == null) {
+      check().that(actualList).isNotEmpty();
+    } else if (!lazyElements.iterator().hasNext()) {
+      failWithoutActual(simpleFact("expected not to be empty"));
+    }
   }
 
   /**
@@ -74,33 +125,49 @@ public final class StreamSubject extends Subject {
    * elements, use {@code assertThat(stream.count()).isEqualTo(...)}.
    */
   public void hasSize(int expectedSize) {
-    check().that(actualList).hasSize(expectedSize);
+    check().that(actualList()).hasSize(expectedSize);
   }
 
   /** Fails if the subject does not contain the given element. */
   public void contains(@Nullable Object element) {
-    check().that(actualList).contains(element);
+    if (lazyElements == null) {
+      check().that(actualList).contains(element);
+    } else if (!Iterators.contains(lazyElements.iterator(), element)) {
+      failWithActual("expected to contain", element);
+    }
   }
 
   /** Fails if the subject contains the given element. */
   public void doesNotContain(@Nullable Object element) {
-    check().that(actualList).doesNotContain(element);
+    if (lazyElements == null) {
+      check().that(actualList).doesNotContain(element);
+    } else if (Iterators.contains(lazyElements.iterator(), element)) {
+      failWithActual("expected not to contain", element);
+    }
   }
 
   /** Fails if the subject contains duplicate elements. */
   public void containsNoDuplicates() {
-    check().that(actualList).containsNoDuplicates();
+    check().that(actualList()).containsNoDuplicates();
   }
 
   /** Fails if the subject does not contain at least one of the given elements. */
   public void containsAnyOf(
       @Nullable Object first, @Nullable Object second, @Nullable Object @Nullable ... rest) {
-    check().that(actualList).containsAnyOf(first, second, rest);
+    if (lazyElements == null) {
+      check().that(actualList).containsAnyOf(first, second, rest);
+    } else {
+      containsAnyIn(accumulate(first, second, rest));
+    }
   }
 
   /** Fails if the subject does not contain at least one of the given elements. */
   public void containsAnyIn(Iterable<?> expected) {
-    check().that(actualList).containsAnyIn(expected);
+    if (lazyElements == null) {
+      check().that(actualList).containsAnyIn(expected);
+    } else if (findAnyIn(expected) == NOT_FOUND) {
+      failWithActual("expected to contain any of", expected);
+    }
   }
 
   /**
@@ -115,7 +182,7 @@ public final class StreamSubject extends Subject {
   @CanIgnoreReturnValue
   public Ordered containsAtLeast(
       @Nullable Object first, @Nullable Object second, @Nullable Object @Nullable ... rest) {
-    return check().that(actualList).containsAtLeast(first, second, rest);
+    return check().that(actualList()).containsAtLeast(first, second, rest);
   }
 
   /**
@@ -129,7 +196,7 @@ public final class StreamSubject extends Subject {
    */
   @CanIgnoreReturnValue
   public Ordered containsAtLeastElementsIn(Iterable<?> expected) {
-    return check().that(actualList).containsAtLeastElementsIn(expected);
+    return check().that(actualList()).containsAtLeastElementsIn(expected);
   }
 
   // TODO(cpovirk): Add array overload of contains*ElementsIn methods? Also for int and long stream.
@@ -145,7 +212,7 @@ public final class StreamSubject extends Subject {
    */
   @CanIgnoreReturnValue
   public Ordered containsExactly(@Nullable Object @Nullable ... varargs) {
-    return check().that(actualList).containsExactly(varargs);
+    return check().that(actualList()).containsExactly(varargs);
   }
 
   /**
@@ -159,7 +226,7 @@ public final class StreamSubject extends Subject {
    */
   @CanIgnoreReturnValue
   public Ordered containsExactlyElementsIn(Iterable<?> expected) {
-    return check().that(actualList).containsExactlyElementsIn(expected);
+    return check().that(actualList()).containsExactlyElementsIn(expected);
   }
 
   /**
@@ -168,7 +235,11 @@ public final class StreamSubject extends Subject {
    */
   public void containsNoneOf(
       @Nullable Object first, @Nullable Object second, @Nullable Object @Nullable ... rest) {
-    check().that(actualList).containsNoneOf(first, second, rest);
+    if (lazyElements == null) {
+      check().that(actualList).containsNoneOf(first, second, rest);
+    } else {
+      containsNoneIn(accumulate(first, second, rest));
+    }
   }
 
   /**
@@ -176,7 +247,15 @@ public final class StreamSubject extends Subject {
    * test, which fails if any of the actual elements equal any of the excluded.)
    */
   public void containsNoneIn(Iterable<?> excluded) {
-    check().that(actualList).containsNoneIn(excluded);
+    if (lazyElements == null) {
+      check().that(actualList).containsNoneIn(excluded);
+      return;
+    }
+    Object found = findAnyIn(excluded);
+    if (found != NOT_FOUND) {
+      failWithActual(
+          fact("expected not to contain any of", excluded), fact("but contained", found));
+    }
   }
 
   /**
@@ -188,7 +267,11 @@ public final class StreamSubject extends Subject {
    * @throws NullPointerException if any element is null
    */
   public void isInStrictOrder() {
-    check().that(actualList).isInStrictOrder();
+    if (lazyElements == null) {
+      check().that(actualList).isInStrictOrder();
+    } else {
+      pairwiseCheck("expected to be in strict order", Ordering.natural(), /* strict= */ true);
+    }
   }
 
   /**
@@ -199,7 +282,11 @@ public final class StreamSubject extends Subject {
    * @throws ClassCastException if any pair of elements is not mutually Comparable
    */
   public void isInStrictOrder(Comparator<?> comparator) {
-    check().that(actualList).isInStrictOrder(comparator);
+    if (lazyElements == null) {
+      check().that(actualList).isInStrictOrder(comparator);
+    } else {
+      pairwiseCheck("expected to be in strict order", comparator, /* strict= */ true);
+    }
   }
 
   /**
@@ -210,7 +297,11 @@ public final class StreamSubject extends Subject {
    * @throws NullPointerException if any element is null
    */
   public void isInOrder() {
-    check().that(actualList).isInOrder();
+    if (lazyElements == null) {
+      check().that(actualList).isInOrder();
+    } else {
+      pairwiseCheck("expected to be in order", Ordering.natural(), /* strict= */ false);
+    }
   }
 
   /**
@@ -220,7 +311,139 @@ public final class StreamSubject extends Subject {
    * @throws ClassCastException if any pair of elements is not mutually Comparable
    */
   public void isInOrder(Comparator<?> comparator) {
-    check().that(actualList).isInOrder(comparator);
+    if (lazyElements == null) {
+      check().that(actualList).isInOrder(comparator);
+    } else {
+      pairwiseCheck("expected to be in order", comparator, /* strict= */ false);
+    }
+  }
+
+  private static final Object NOT_FOUND = new Object();
+
+  /**
+   * Reads the stream until it finds one of the given elements and returns that element, or returns
+   * {@link #NOT_FOUND} if there is none.
+   */
+  private @Nullable Object findAnyIn(Iterable<?> elements) {
+    Set<?> set = elements instanceof Set ? (Set<?>) elements : Sets.newHashSet(elements);
+    for (Iterator<?> iterator = lazyElements.iterator(); iterator.hasNext(); ) {
+      Object element = iterator.next();
+      if (set.contains(element)) {
+        return element;
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  @SuppressWarnings("unchecked") // throwing ClassCastException is the correct behaviour
+  private void pairwiseCheck(String expectedFact, Comparator<?> comparator, boolean strict) {
+    Comparator<Object> rawComparator = (Comparator<Object>) comparator;
+    Iterator<?> iterator = lazyElements.iterator();
+    if (!iterator.hasNext()) {
+      return;
+    }
+    Object prev = iterator.next();
+    while (iterator.hasNext()) {
+      Object next = iterator.next();
+      int comparison = rawComparator.compare(prev, next);
+      if (strict ? comparison >= 0 : comparison > 0) {
+        failWithActual(
+            simpleFact(expectedFact), fact("but contained", prev), fact("followed by", next));
+        return;
+      }
+      prev = next;
+    }
+  }
+
+  /**
+   * The elements of a stream that we read only as far as we need to. We remember the first {@link
+   * #MAX_REMEMBERED_ELEMENTS} that we read, so that we can display them in failure messages and
+   * start over from the beginning for another assertion.
+   */
+  private static final class LazyElements {
+    private static final int MAX_REMEMBERED_ELEMENTS = 100;
+
+    private final Iterator<?> rest;
+    private final List<@Nullable Object> remembered = new ArrayList<>();
+    // The number of elements that we have read but not remembered.
+    private long forgottenCount;
+
+    LazyElements(Iterator<?> rest) {
+      this.rest = rest;
+    }
+
+    /** Returns an iterator over all the elements, starting from the beginning of the stream. */
+    Iterator<@Nullable Object> iterator() {
+      checkCanStartOver();
+      return new Iterator<@Nullable Object>() {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+          return index < remembered.size() || rest.hasNext();
+        }
+
+        @Override
+        public @Nullable Object next() {
+          if (index < remembered.size()) {
+            return remembered.get(index++);
+          }
+          if (!rest.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          Object next = rest.next();
+          if (forgottenCount == 0 && remembered.size() < MAX_REMEMBERED_ELEMENTS) {
+            remembered.add(next);
+            index++;
+          } else {
+            forgottenCount++;
+          }
+          return next;
+        }
+      };
+    }
+
+    /** Reads the rest of the stream and returns all its elements. */
+    List<?> toList() {
+      checkCanStartOver();
+      Iterators.addAll(remembered, rest);
+      return remembered;
+    }
+
+    private void checkCanStartOver() {
+      checkState(
+          forgottenCount == 0,
+          "An earlier assertion read more of the stream than can be read again. Use a separate "
+              + "stream for each assertion.");
+    }
+
+    @Override
+    public String toString() {
+      if (forgottenCount == 0) {
+        // Show as many elements as we would remember, even if no assertion has read them yet.
+        Iterator<?> iterator = iterator();
+        while (remembered.size() < MAX_REMEMBERED_ELEMENTS && iterator.hasNext()) {
+          iterator.next();
+        }
+      }
+      StringBuilder result = new StringBuilder("[");
+      for (int i = 0; i < remembered.size() && i < MAX_REMEMBERED_ELEMENTS; i++) {
+        result.append(i == 0 ? "" : ", ").append(remembered.get(i));
+      }
+      long shown = Math.min(remembered.size(), MAX_REMEMBERED_ELEMENTS);
+      if (shown == remembered.size() + forgottenCount && !rest.hasNext()) {
+        return result.append("]").toString();
+      }
+      result.append(shown == 0 ? "…]" : ", …]");
+      if (!rest.hasNext()) {
+        result.append(" (showing first ")
+            .append(shown)
+            .append(" of ")
+            .append(remembered.size() + forgottenCount)
+            .append(" elements)");
+      }
+      return result.toString();
+    }
   }
 
   // TODO(user): Do we want to override + deprecate isEqualTo/isNotEqualTo?
@@ -15,14 +15,18 @@
  */
 package com.google.common.truth;
 
+import static com.google.common.truth.ExpectFailure.assertThat;
 import static com.google.common.truth.FailureAssertions.assertFailureKeys;
 import static com.google.common.truth.FailureAssertions.assertFailureValue;
+import static com.google.common.truth.StreamSubject.lazyStreams;
 import static com.google.common.truth.StreamSubject.streams;
+import static com.google.common.truth.Truth.assertAbout;
 import static com.google.common.truth.Truth8.assertThat;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.fail;
 
 import java.util.List;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -358,8 +362,95 @@ public final class StreamSubjectTest {
         expectFailure(whenTesting -> whenTesting.that(Stream.of(1, 2, 2, 4)).isInStrictOrder());
   }
 
+  @Test
+  public void testLazy_containsInInfiniteStream() {
+    assertAbout(lazyStreams()).that(Stream.iterate(0, i -> i + 1)).contains(1000);
+  }
+
+  @Test
+  public void testLazy_isNotEmptyForInfiniteStream() {
+    assertAbout(lazyStreams()).that(Stream.iterate(0, i -> i + 1)).isNotEmpty();
+  }
+
+  @Test
+  public void testLazy_isInOrder_failsForInfiniteStream() {
+    AssertionError expected =
+        expectFailureLazily(
+            whenTesting ->
+                whenTesting.that(Stream.iterate(0, i -> i + 1).map(i -> i % 5)).isInOrder());
+    assertFailureKeys(
+        expected, "expected to be in order", "but contained", "followed by", "but was");
+    assertFailureValue(expected, "but contained", "4");
+    assertFailureValue(expected, "followed by", "0");
+    assertThat(expected).factValue("but was").startsWith("[0, 1, 2, 3, 4, 0, 1, ");
+    assertThat(expected).factValue("but was").endsWith(", 3, 4, …]");
+  }
+
+  @Test
+  public void testLazy_contains_fails() {
+    AssertionError expected =
+        expectFailureLazily(
+            whenTesting -> whenTesting.that(IntStream.range(0, 1000).boxed()).contains(1000));
+    assertFailureKeys(expected, "expected to contain", "but was");
+    assertThat(expected)
+        .factValue("but was")
+        .endsWith(", 99, …] (showing first 100 of 1000 elements)");
+  }
+
+  @Test
+  public void testLazy_doesNotContain_fails() {
+    AssertionError expected =
+        expectFailureLazily(whenTesting -> whenTesting.that(Stream.of(1, 2, 3)).doesNotContain(2));
+    assertFailureKeys(expected, "expected not to contain", "but was");
+    assertFailureValue(expected, "but was", "[1, 2, 3]");
+  }
+
+  @Test
+  public void testLazy_containsAnyOf() {
+    assertAbout(lazyStreams()).that(Stream.iterate(0, i -> i + 1)).containsAnyOf(5000, -1);
+    AssertionError expected =
+        expectFailureLazily(
+            whenTesting -> whenTesting.that(Stream.of(1, 2, 3)).containsAnyOf(4, 5, 6));
+    assertFailureKeys(expected, "expected to contain any of", "but was");
+    assertFailureValue(expected, "expected to contain any of", "[4, 5, 6]");
+  }
+
+  @Test
+  public void testLazy_containsNoneIn_fails() {
+    AssertionError expected =
+        expectFailureLazily(
+            whenTesting ->
+                whenTesting.that(Stream.iterate(0, i -> i + 1)).containsNoneIn(asList(7, 3)));
+    assertFailureKeys(expected, "expected not to contain any of", "but contained", "but was");
+    assertFailureValue(expected, "but contained", "3");
+  }
+
+  @Test
+  public void testLazy_multipleAssertions() {
+    StreamSubject subject = assertAbout(lazyStreams()).that(IntStream.range(0, 10).boxed());
+    subject.contains(3);
+    subject.isInStrictOrder();
+    subject.containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9).inOrder();
+  }
+
+  @Test
+  public void testLazy_multipleAssertions_streamAlreadyRead() {
+    StreamSubject subject = assertAbout(lazyStreams()).that(IntStream.range(0, 1000).boxed());
+    subject.doesNotContain(-1);
+    try {
+      subject.isNotEmpty();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
   private static AssertionError expectFailure(
       ExpectFailure.SimpleSubjectBuilderCallback<StreamSubject, Stream<?>> assertionCallback) {
     return ExpectFailure.expectFailureAbout(streams(), assertionCallback);
   }
+
+  private static AssertionError expectFailureLazily(
+      ExpectFailure.SimpleSubjectBuilderCallback<StreamSubject, Stream<?>> assertionCallback) {
+    return ExpectFailure.expectFailureAbout(lazyStreams(), assertionCallback);
+  }
 }
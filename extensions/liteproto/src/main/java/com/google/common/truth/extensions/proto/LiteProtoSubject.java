@@ -20,12 +20,17 @@ import static com.google.common.base.Strings.lenientFormat;
 import static com.google.common.truth.Fact.fact;
 import static com.google.common.truth.Fact.simpleFact;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.truth.Fact;
 import com.google.common.truth.FailureMetadata;
 import com.google.common.truth.IntegerSubject;
 import com.google.common.truth.Subject;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.protobuf.MessageLite;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -64,6 +69,11 @@ public class LiteProtoSubject extends Subject {
   private final FailureMetadata metadata;
   private final MessageLite actual;
 
+  /** The largest messages for which {@link #isEqualTo} compares the messages' text. */
+  private static final int MAX_SERIALIZED_SIZE_TO_RENDER = 16 * 1024;
+
+  private static final int MAX_REPORTED_DIFFERENCES = 100;
+
   protected LiteProtoSubject(FailureMetadata failureMetadata, @Nullable MessageLite messageLite) {
     super(failureMetadata, messageLite);
     this.metadata = failureMetadata;
@@ -121,6 +131,8 @@ public class LiteProtoSubject extends Subject {
                   "Not true that (%s) proto is equal to the expected (%s) object. "
                       + "They are not of the same class.",
                   actual.getClass().getName(), expected.getClass().getName())));
+    } else if (isTooLargeToRender(actual) || isTooLargeToRender((MessageLite) expected)) {
+      failWithWireFormatDiff((MessageLite) expected);
     } else {
       /*
        * TODO(cpovirk): If we someday let subjects override formatActualOrExpected(), change this
@@ -137,6 +149,61 @@ public class LiteProtoSubject extends Subject {
     }
   }
 
+  /*
+   * The Lite runtime renders a message with reflection, into text several times the size of the
+   * message, and then we compare the two texts. For a large message, that can take longer than the
+   * rest of the test, so we instead compare the serialized messages.
+   */
+  private static boolean isTooLargeToRender(MessageLite message) {
+    return message.getSerializedSize() > MAX_SERIALIZED_SIZE_TO_RENDER;
+  }
+
+  private void failWithWireFormatDiff(MessageLite expected) {
+    WireFormatDiff diff =
+        WireFormatDiff.compare(
+            expected.toByteString(), actual.toByteString(), MAX_REPORTED_DIFFERENCES);
+    ImmutableList<String> reorderedFields = diff.reorderedFields();
+    if (diff.differenceCount() == 0 && reorderedFields.isEmpty()) {
+      /*
+       * The serialized messages are the same even though equals() says the messages aren't. That's
+       * unusual, but nothing guarantees that equals() agrees with the wire format. Since we have
+       * nothing more useful to report, fall back to the usual failure message, rendering and all.
+       */
+      new LiteProtoAsStringSubject(metadata, getTrimmedToString(actual))
+          .isEqualTo(getTrimmedToString(expected));
+      return;
+    }
+    ImmutableList<WireFormatDiff.Difference> differences = diff.differences();
+    List<Fact> rest = new ArrayList<>();
+    for (WireFormatDiff.Difference difference : differences) {
+      rest.add(
+          fact(
+              "field " + difference.path(),
+              lenientFormat(
+                  "expected: %s, but was: %s",
+                  difference.expectedValue(), difference.actualValue())));
+    }
+    if (!reorderedFields.isEmpty()) {
+      // equals() ignores the order of map entries, so these may not be differences at all.
+      rest.add(
+          fact(
+              "fields with the same values in a different order (may be maps; order only)",
+              Joiner.on(", ").join(reorderedFields)));
+    }
+    rest.add(
+        simpleFact(
+            "(Messages are too large to render, so their serialized forms were compared. Without"
+                + " descriptors, fields are identified by number.)"));
+    failWithoutActual(
+        fact(
+            "differing fields",
+            diff.differenceCount() > differences.size()
+                ? lenientFormat(
+                    "%s (showing first %s)", diff.differenceCount(), differences.size())
+                : diff.differenceCount()),
+        rest.toArray(new Fact[0]));
+  }
+
   /**
    * @deprecated A Builder can never compare equal to a MessageLite instance. Use {@code build()},
    *     or {@code buildPartial()} on the argument to get a MessageLite for comparison instead.
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth.extensions.proto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Compares two serialized protos field by field, using nothing but the wire format. This lets
+ * {@link LiteProtoSubject} describe how two large messages differ without rendering them with
+ * {@code toString()}, which for the Lite runtime uses reflection and produces text many times the
+ * size of the message.
+ *
+ * <p>Without descriptors, we can't know what a length-delimited field holds. Like {@code protoc
+ * --decode_raw}, we treat it as a submessage if it parses as one, and as a string or bytes
+ * otherwise. We parse submessages only when their bytes differ, so equal parts of the two messages
+ * cost no more than a byte comparison.
+ */
+final class WireFormatDiff {
+  /** A field whose value differs between the two messages. */
+  static final class Difference {
+    private final String path;
+    private final @Nullable Value expected;
+    private final @Nullable Value actual;
+
+    private Difference(String path, @Nullable Value expected, @Nullable Value actual) {
+      this.path = path;
+      this.expected = expected;
+      this.actual = actual;
+    }
+
+    /**
+     * The field numbers leading to the field, separated by dots, with an index after any field
+     * that has more than one value: for example, {@code "2.5[3].1"}.
+     */
+    String path() {
+      return path;
+    }
+
+    String expectedValue() {
+      return expected == null ? "(absent)" : expected.toString();
+    }
+
+    String actualValue() {
+      return actual == null ? "(absent)" : actual.toString();
+    }
+  }
+
+  /**
+   * Compares the two messages, remembering at most {@code maxDifferences} of the differences but
+   * counting all of them.
+   */
+  static WireFormatDiff compare(ByteString expected, ByteString actual, int maxDifferences) {
+    checkArgument(maxDifferences > 0, "maxDifferences (%s) must be > 0", maxDifferences);
+    WireFormatDiff diff = new WireFormatDiff(maxDifferences);
+    diff.compareValues(
+        "", Value.lengthDelimited(expected), Value.lengthDelimited(actual), /* depth= */ 0);
+    return diff;
+  }
+
+  /*
+   * CodedInputStream's default recursion limit. Besides matching what parsing would do, it keeps a
+   * deeply nested (or maliciously crafted) message from overflowing the stack.
+   */
+  private static final int MAX_DEPTH = 100;
+
+  private static final int MAX_RENDERED_LENGTH = 100;
+
+  private final int maxDifferences;
+  private final List<Difference> differences = new ArrayList<>();
+  private int differenceCount;
+  private final List<String> reorderedFields = new ArrayList<>();
+
+  private WireFormatDiff(int maxDifferences) {
+    this.maxDifferences = maxDifferences;
+  }
+
+  /** The first differences found, in order of field number. */
+  ImmutableList<Difference> differences() {
+    return ImmutableList.copyOf(differences);
+  }
+
+  /** The total number of differences, which may exceed the size of {@link #differences()}. */
+  int differenceCount() {
+    return differenceCount;
+  }
+
+  /**
+   * The paths of the first fields that have the same values in both messages, only in a different
+   * order. These aren't counted as differences: Map fields serialize in insertion order, so equal
+   * maps built in different orders look like this, and we can't tell maps from repeated fields.
+   */
+  ImmutableList<String> reorderedFields() {
+    return ImmutableList.copyOf(reorderedFields);
+  }
+
+  private void compareValues(
+      String path, @Nullable Value expected, @Nullable Value actual, int depth) {
+    if (Objects.equal(expected, actual)) {
+      return;
+    }
+    if (expected != null
+        && actual != null
+        && expected.wireType == actual.wireType
+        && depth < MAX_DEPTH) {
+      SortedMap<Integer, List<Value>> expectedFields = expected.fields();
+      SortedMap<Integer, List<Value>> actualFields = actual.fields();
+      if (expectedFields != null && actualFields != null) {
+        compareFields(path.isEmpty() ? "" : path + ".", expectedFields, actualFields, depth + 1);
+        return;
+      }
+    }
+    differenceCount++;
+    if (differences.size() < maxDifferences) {
+      differences.add(new Difference(path, expected, actual));
+    }
+  }
+
+  private void compareFields(
+      String prefix,
+      SortedMap<Integer, List<Value>> expected,
+      SortedMap<Integer, List<Value>> actual,
+      int depth) {
+    SortedSet<Integer> fieldNumbers = new TreeSet<>(expected.keySet());
+    fieldNumbers.addAll(actual.keySet());
+    for (int fieldNumber : fieldNumbers) {
+      List<Value> expectedValues = valuesOf(expected, fieldNumber);
+      List<Value> actualValues = valuesOf(actual, fieldNumber);
+      if (expectedValues.equals(actualValues)) {
+        continue;
+      }
+      // Pairing values by position would report every moved value as a difference.
+      if (expectedValues.size() == actualValues.size()
+          && HashMultiset.create(expectedValues).equals(HashMultiset.create(actualValues))) {
+        if (reorderedFields.size() < maxDifferences) {
+          reorderedFields.add(prefix + fieldNumber);
+        }
+        continue;
+      }
+      boolean repeated = expectedValues.size() > 1 || actualValues.size() > 1;
+      int count = Math.max(expectedValues.size(), actualValues.size());
+      for (int i = 0; i < count; i++) {
+        compareValues(
+            repeated ? prefix + fieldNumber + "[" + i + "]" : prefix + fieldNumber,
+            i < expectedValues.size() ? expectedValues.get(i) : null,
+            i < actualValues.size() ? actualValues.get(i) : null,
+            depth);
+      }
+    }
+  }
+
+  private static List<Value> valuesOf(SortedMap<Integer, List<Value>> fields, int fieldNumber) {
+    List<Value> values = fields.get(fieldNumber);
+    return values == null ? Collections.<Value>emptyList() : values;
+  }
+
+  /** A single value of a field, as it appears on the wire. */
+  private static final class Value {
+    static Value number(int wireType, long bits) {
+      return new Value(wireType, bits, null, null);
+    }
+
+    static Value lengthDelimited(ByteString bytes) {
+      return new Value(WireFormat.WIRETYPE_LENGTH_DELIMITED, 0, bytes, null);
+    }
+
+    static Value group(SortedMap<Integer, List<Value>> fields) {
+      return new Value(WireFormat.WIRETYPE_START_GROUP, 0, null, fields);
+    }
+
+    final int wireType;
+    final long bits;
+    final @Nullable ByteString bytes;
+    final @Nullable SortedMap<Integer, List<Value>> group;
+
+    private Value(
+        int wireType,
+        long bits,
+        @Nullable ByteString bytes,
+        @Nullable SortedMap<Integer, List<Value>> group) {
+      this.wireType = wireType;
+      this.bits = bits;
+      this.bytes = bytes;
+      this.group = group;
+    }
+
+    /**
+     * Returns the fields of this value if it's a group or if it parses as a message, or else null.
+     */
+    @Nullable SortedMap<Integer, List<Value>> fields() {
+      if (group != null) {
+        return group;
+      }
+      if (bytes == null) {
+        return null;
+      }
+      CodedInputStream input = bytes.newCodedInput();
+      try {
+        return parseFields(input, /* groupFieldNumber= */ 0, /* depth= */ 0);
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof Value)) {
+        return false;
+      }
+      Value that = (Value) o;
+      return wireType == that.wireType
+          && bits == that.bits
+          && Objects.equal(bytes, that.bytes)
+          && Objects.equal(group, that.group);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(wireType, bits, bytes, group);
+    }
+
+    @Override
+    public String toString() {
+      switch (wireType) {
+        case WireFormat.WIRETYPE_VARINT:
+          return Long.toString(bits);
+        case WireFormat.WIRETYPE_FIXED32:
+          return "0x" + Integer.toHexString((int) bits) + " (fixed32)";
+        case WireFormat.WIRETYPE_FIXED64:
+          return "0x" + Long.toHexString(bits) + " (fixed64)";
+        case WireFormat.WIRETYPE_START_GROUP:
+          return "(group)";
+        default:
+          return renderBytes(bytes);
+      }
+    }
+  }
+
+  /**
+   * Parses fields up to the end of the input or, if {@code groupFieldNumber} is nonzero, up to the
+   * end of that group.
+   */
+  private static SortedMap<Integer, List<Value>> parseFields(
+      CodedInputStream input, int groupFieldNumber, int depth) throws IOException {
+    if (depth >= MAX_DEPTH) {
+      throw new InvalidProtocolBufferException("Groups are nested too deeply.");
+    }
+    SortedMap<Integer, List<Value>> fields = new TreeMap<>();
+    while (true) {
+      int tag = input.readTag();
+      if (tag == 0) {
+        if (groupFieldNumber != 0) {
+          throw new InvalidProtocolBufferException("Group was not terminated.");
+        }
+        return fields;
+      }
+      int fieldNumber = WireFormat.getTagFieldNumber(tag);
+      Value value;
+      switch (WireFormat.getTagWireType(tag)) {
+        case WireFormat.WIRETYPE_VARINT:
+          value = Value.number(WireFormat.WIRETYPE_VARINT, input.readRawVarint64());
+          break;
+        case WireFormat.WIRETYPE_FIXED32:
+          value = Value.number(WireFormat.WIRETYPE_FIXED32, input.readRawLittleEndian32());
+          break;
+        case WireFormat.WIRETYPE_FIXED64:
+          value = Value.number(WireFormat.WIRETYPE_FIXED64, input.readRawLittleEndian64());
+          break;
+        case WireFormat.WIRETYPE_LENGTH_DELIMITED:
+          value = Value.lengthDelimited(input.readBytes());
+          break;
+        case WireFormat.WIRETYPE_START_GROUP:
+          value = Value.group(parseFields(input, fieldNumber, depth + 1));
+          break;
+        case WireFormat.WIRETYPE_END_GROUP:
+          if (fieldNumber != groupFieldNumber) {
+            throw new InvalidProtocolBufferException("Mismatched end of group.");
+          }
+          return fields;
+        default:
+          throw new InvalidProtocolBufferException("Invalid wire type.");
+      }
+      List<Value> values = fields.get(fieldNumber);
+      if (values == null) {
+        values = new ArrayList<>(1);
+        fields.put(fieldNumber, values);
+      }
+      values.add(value);
+    }
+  }
+
+  /**
+   * Renders a string or bytes field, quoting it if it's valid UTF-8 and printing it in hex
+   * otherwise. Long values are truncated, since the point is to render only what's needed.
+   */
+  private static String renderBytes(ByteString bytes) {
+    StringBuilder result = new StringBuilder();
+    boolean truncated;
+    if (bytes.isValidUtf8()) {
+      // No character takes more than 4 bytes, so this is enough to fill MAX_RENDERED_LENGTH.
+      String string =
+          bytes.substring(0, Math.min(bytes.size(), 4 * MAX_RENDERED_LENGTH + 4)).toStringUtf8();
+      truncated = string.length() > MAX_RENDERED_LENGTH;
+      int end = truncated ? MAX_RENDERED_LENGTH : string.length();
+      if (truncated && Character.isHighSurrogate(string.charAt(end - 1))) {
+        end--;
+      }
+      result.append('"').append(string, 0, end).append(truncated ? "…\"" : "\"");
+    } else {
+      int shown = Math.min(bytes.size(), MAX_RENDERED_LENGTH / 2);
+      truncated = shown < bytes.size();
+      result.append("0x");
+      for (int i = 0; i < shown; i++) {
+        int b = bytes.byteAt(i) & 0xff;
+        result.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      if (truncated) {
+        result.append('…');
+      }
+    }
+    if (truncated) {
+      result.append(" (").append(bytes.size()).append(" bytes)");
+    }
+    return result.toString();
+  }
+}
@@ -21,9 +21,12 @@ import static org.junit.Assert.fail;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.base.Optional;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.truth.Expect;
 import com.google.common.truth.Subject;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.MessageLite;
 import java.util.Arrays;
 import java.util.Collection;
@@ -204,6 +207,28 @@ public class LiteProtoSubjectTest {
     }
   }
 
+  @Test
+  public void testIsEqualTo_failure_largeMessages() throws Exception {
+    String longString = Strings.repeat("x", 20_000);
+    MessageLite expected = withSubMessageString(config.nonEmptyMessage(), longString);
+    MessageLite actual = withSubMessageString(config.nonEmptyMessage(), longString + "y");
+    try {
+      assertThat(actual).isEqualTo(expected);
+      fail("Should have failed.");
+    } catch (AssertionError e) {
+      expect.that(e.getMessage().length()).isLessThan(1000);
+      assertThat(e).factValue("differing fields").isEqualTo("1");
+      assertThat(e)
+          .factValue("field 2.1")
+          .isEqualTo(
+              "expected: \""
+                  + Strings.repeat("x", 100)
+                  + "…\" (20000 bytes), but was: \""
+                  + Strings.repeat("x", 100)
+                  + "…\" (20001 bytes)");
+    }
+  }
+
   @Test
   public void testHasAllRequiredFields_success() {
     expectThat(config.nonEmptyMessage()).hasAllRequiredFields();
@@ -289,6 +314,20 @@ public class LiteProtoSubjectTest {
     }
   }
 
+  /**
+   * Returns a copy of the given message with its sub_message.optional_string set. The field numbers
+   * are the same for the proto2 and proto3 messages, so we can merge in the serialized form.
+   */
+  private static MessageLite withSubMessageString(MessageLite message, String string)
+      throws InvalidProtocolBufferException {
+    ByteString subMessage =
+        TestMessageLite2.newBuilder()
+            .setSubMessage(TestMessageLite2.SubMessage.newBuilder().setOptionalString(string))
+            .build()
+            .toByteString();
+    return message.toBuilder().mergeFrom(subMessage).build();
+  }
+
   private void expectRegex(AssertionError e, String regex) {
     expect.that(e).hasMessageThat().matches(Pattern.compile(regex, Pattern.DOTALL));
   }
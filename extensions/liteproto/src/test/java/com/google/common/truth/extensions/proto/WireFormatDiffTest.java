@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth.extensions.proto;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Strings;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link WireFormatDiff}. */
+@RunWith(JUnit4.class)
+public class WireFormatDiffTest {
+  @Test
+  public void equalMessages() {
+    ByteString message = message("foo");
+    WireFormatDiff diff = WireFormatDiff.compare(message, message("foo"), 10);
+    assertThat(diff.differenceCount()).isEqualTo(0);
+    assertThat(diff.differences()).isEmpty();
+  }
+
+  @Test
+  public void differentSubMessageField() {
+    WireFormatDiff diff = WireFormatDiff.compare(message("foo"), message("bar"), 10);
+    assertThat(diff.differenceCount()).isEqualTo(1);
+    assertDifference(diff.differences().get(0), "2.1", "\"foo\"", "\"bar\"");
+  }
+
+  @Test
+  public void missingField() {
+    ByteString expected =
+        TestMessageLite2.newBuilder().setOptionalInt(3).build().toByteString();
+    ByteString actual = TestMessageLite2.getDefaultInstance().toByteString();
+    WireFormatDiff diff = WireFormatDiff.compare(expected, actual, 10);
+    assertDifference(diff.differences().get(0), "1", "3", "(absent)");
+  }
+
+  @Test
+  public void repeatedField() throws IOException {
+    ByteString expected = varints(3, 1, 2, 4);
+    ByteString actual = varints(3, 1, 5);
+    WireFormatDiff diff = WireFormatDiff.compare(expected, actual, 10);
+    assertThat(diff.differenceCount()).isEqualTo(2);
+    assertDifference(diff.differences().get(0), "3[1]", "2", "5");
+    assertDifference(diff.differences().get(1), "3[2]", "4", "(absent)");
+  }
+
+  @Test
+  public void reorderedRepeatedField() throws IOException {
+    ByteString expected = varints(3, 1, 2, 4, 2);
+    ByteString actual = varints(3, 2, 4, 2, 1);
+    WireFormatDiff diff = WireFormatDiff.compare(expected, actual, 10);
+    assertThat(diff.differenceCount()).isEqualTo(0);
+    assertThat(diff.reorderedFields()).containsExactly("3");
+  }
+
+  @Test
+  public void reorderedRepeatedFieldNextToDifference() throws IOException {
+    ByteString expected = varints(3, 1, 2).concat(varints(5, 7));
+    ByteString actual = varints(3, 2, 1).concat(varints(5, 8));
+    WireFormatDiff diff = WireFormatDiff.compare(expected, actual, 10);
+    assertThat(diff.differenceCount()).isEqualTo(1);
+    assertDifference(diff.differences().get(0), "5", "7", "8");
+    assertThat(diff.reorderedFields()).containsExactly("3");
+  }
+
+  @Test
+  public void repeatedFieldWithSameValuesInDifferentNumbers() throws IOException {
+    WireFormatDiff diff = WireFormatDiff.compare(varints(3, 1, 1, 2), varints(3, 1, 2, 2), 10);
+    assertThat(diff.differenceCount()).isEqualTo(1);
+    assertDifference(diff.differences().get(0), "3[1]", "1", "2");
+  }
+
+  @Test
+  public void fixedWidthFields() throws IOException {
+    ByteString.Output expected = ByteString.newOutput();
+    CodedOutputStream output = CodedOutputStream.newInstance(expected);
+    output.writeFixed32(1, 0x10);
+    output.writeFixed64(2, 0x20);
+    output.flush();
+    WireFormatDiff diff =
+        WireFormatDiff.compare(expected.toByteString(), ByteString.EMPTY, 10);
+    assertDifference(diff.differences().get(0), "1", "0x10 (fixed32)", "(absent)");
+    assertDifference(diff.differences().get(1), "2", "0x20 (fixed64)", "(absent)");
+  }
+
+  @Test
+  public void group() throws IOException {
+    WireFormatDiff diff = WireFormatDiff.compare(group(7), group(8), 10);
+    assertThat(diff.differenceCount()).isEqualTo(1);
+    assertDifference(diff.differences().get(0), "4.1", "7", "8");
+  }
+
+  @Test
+  public void bytesThatAreNotAMessage() {
+    ByteString expected = message(ByteString.copyFrom(new byte[] {(byte) 0xff, 0x00}));
+    ByteString actual = message(ByteString.copyFrom(new byte[] {(byte) 0xfe}));
+    WireFormatDiff diff = WireFormatDiff.compare(expected, actual, 10);
+    assertDifference(diff.differences().get(0), "2.1", "0xff00", "0xfe");
+  }
+
+  @Test
+  public void longValuesAreTruncated() {
+    String longString = Strings.repeat("x", 1000);
+    WireFormatDiff diff = WireFormatDiff.compare(message(longString), message("y"), 10);
+    assertThat(diff.differences().get(0).expectedValue())
+        .isEqualTo("\"" + Strings.repeat("x", 100) + "…\" (1000 bytes)");
+  }
+
+  @Test
+  public void maxDifferences() throws IOException {
+    WireFormatDiff diff = WireFormatDiff.compare(varints(1, 1, 2, 3, 4, 5), ByteString.EMPTY, 2);
+    assertThat(diff.differenceCount()).isEqualTo(5);
+    assertThat(diff.differences()).hasSize(2);
+    assertDifference(diff.differences().get(1), "1[1]", "2", "(absent)");
+  }
+
+  private static void assertDifference(
+      WireFormatDiff.Difference difference, String path, String expected, String actual) {
+    assertThat(difference.path()).isEqualTo(path);
+    assertThat(difference.expectedValue()).isEqualTo(expected);
+    assertThat(difference.actualValue()).isEqualTo(actual);
+  }
+
+  private static ByteString message(String subMessageString) {
+    return TestMessageLite2.newBuilder()
+        .setOptionalInt(3)
+        .setSubMessage(TestMessageLite2.SubMessage.newBuilder().setOptionalString(subMessageString))
+        .build()
+        .toByteString();
+  }
+
+  private static ByteString message(ByteString subMessageBytes) {
+    // SubMessage.optional_string is field 1, which we write as bytes so that it needn't be UTF-8.
+    ByteString subMessage =
+        ByteString.copyFrom(new byte[] {0x0a, (byte) subMessageBytes.size()})
+            .concat(subMessageBytes);
+    return ByteString.copyFrom(new byte[] {0x12, (byte) subMessage.size()}).concat(subMessage);
+  }
+
+  private static ByteString varints(int fieldNumber, int... values) throws IOException {
+    ByteString.Output bytes = ByteString.newOutput();
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+    for (int value : values) {
+      output.writeInt32(fieldNumber, value);
+    }
+    output.flush();
+    return bytes.toByteString();
+  }
+
+  private static ByteString group(int value) throws IOException {
+    ByteString.Output bytes = ByteString.newOutput();
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+    output.writeTag(4, 3); // start group
+    output.writeInt32(1, value);
+    output.writeTag(4, 4); // end group
+    output.flush();
+    return bytes.toByteString();
+  }
+}
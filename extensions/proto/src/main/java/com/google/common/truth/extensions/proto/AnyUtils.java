@@ -18,6 +18,7 @@ package com.google.common.truth.extensions.proto;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
 import com.google.protobuf.Any;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Descriptors.Descriptor;
@@ -27,6 +28,7 @@ import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.TypeRegistry;
+import java.util.Map;
 
 /** Helper methods for working with Any protos. */
 class AnyUtils {
@@ -79,19 +81,43 @@ class AnyUtils {
     String typeUrl = (String) any.getField(typeUrlFieldDescriptor());
     ByteString value = (ByteString) any.getField(valueFieldDescriptor());
 
-    try {
-      Descriptor descriptor = config.useTypeRegistry().getDescriptorForTypeUrl(typeUrl);
-      if (descriptor == null) {
-        return Optional.absent();
-      }
+    Optional<Descriptor> descriptor = config.descriptorForTypeUrl(typeUrl);
+    if (!descriptor.isPresent()) {
+      return Optional.absent();
+    }
 
+    try {
       Message defaultMessage =
-          DynamicMessage.parseFrom(descriptor, value, config.useExtensionRegistry());
+          DynamicMessage.parseFrom(descriptor.get(), value, config.useExtensionRegistry());
       return Optional.of(defaultMessage);
     } catch (InvalidProtocolBufferException e) {
       return Optional.absent();
     }
   }
 
+  /**
+   * Memoizes {@link #unpack} for the duration of a single comparison. Matching the elements of a
+   * repeated field whose order we're ignoring compares each element with several others, and
+   * without this we'd parse an {@code Any} element's payload again for every one of them.
+   *
+   * <p>Messages are looked up by identity, which is both cheaper than {@code equals} and all that's
+   * needed to find the same element again. Every config within a comparison shares the root
+   * config's registries, so the results don't depend on which config unpacked them.
+   *
+   * <p>Not thread-safe, like the comparison that creates it.
+   */
+  static final class UnpackedAnys {
+    private final Map<Message, Optional<Message>> unpacked = Maps.newIdentityHashMap();
+
+    Optional<Message> unpack(Message any, FluentEqualityConfig config) {
+      Optional<Message> result = unpacked.get(any);
+      if (result == null) {
+        result = AnyUtils.unpack(any, config);
+        unpacked.put(any, result);
+      }
+      return result;
+    }
+  }
+
   private AnyUtils() {}
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth.extensions.proto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import com.google.protobuf.TextFormat;
+import java.io.IOException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An {@link Appendable} that passes at most a fixed number of characters through to another one.
+ * Once it has written that many, it throws {@link Exhausted}, so that whatever is printing to it
+ * stops walking its input instead of producing text that nobody will see. That includes {@link
+ * TextFormat}, to which we hand this object directly rather than printing messages to strings.
+ */
+final class BoundedAppendable implements Appendable {
+  /** Thrown by every method that would write past the end of the budget. */
+  static final class Exhausted extends RuntimeException {
+    private Exhausted() {}
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this; // It's used for control flow only.
+    }
+  }
+
+  private final Appendable out;
+  private int remaining;
+  private @Nullable IOException writeFailure;
+
+  BoundedAppendable(Appendable out, int maxLength) {
+    checkArgument(maxLength >= 0, "maxLength (%s) must be >= 0", maxLength);
+    this.out = checkNotNull(out);
+    this.remaining = maxLength;
+  }
+
+  @Override
+  public BoundedAppendable append(@Nullable CharSequence csq) {
+    CharSequence nonNull = csq == null ? "null" : csq;
+    return append(nonNull, 0, nonNull.length());
+  }
+
+  @Override
+  public BoundedAppendable append(@Nullable CharSequence csq, int start, int end) {
+    CharSequence nonNull = csq == null ? "null" : csq;
+    int length = end - start;
+    if (length <= remaining) {
+      write(nonNull, start, end);
+      remaining -= length;
+      return this;
+    }
+    write(nonNull, start, start + remaining);
+    remaining = 0;
+    throw new Exhausted();
+  }
+
+  @Override
+  public BoundedAppendable append(char c) {
+    if (remaining == 0) {
+      throw new Exhausted();
+    }
+    try {
+      out.append(c);
+    } catch (IOException e) {
+      throw writeFailed(e);
+    }
+    remaining--;
+    return this;
+  }
+
+  /** Prints the message in text format, as {@code toString()} would. */
+  BoundedAppendable appendMessage(Message message) {
+    try {
+      TextFormat.printer().print(message, this);
+    } catch (IOException impossible) {
+      throw new AssertionError(impossible);
+    }
+    return this;
+  }
+
+  /** Prints the value of a field in text format. */
+  BoundedAppendable appendFieldValue(FieldDescriptor fieldDescriptor, Object value) {
+    try {
+      TextFormat.printFieldValue(fieldDescriptor, value, this);
+    } catch (IOException impossible) {
+      throw new AssertionError(impossible);
+    }
+    return this;
+  }
+
+  /** Prints the value of an unknown field in text format. */
+  BoundedAppendable appendUnknownFieldValue(int wireType, Object value) {
+    try {
+      TextFormat.printUnknownFieldValue(wireType, value, this);
+    } catch (IOException impossible) {
+      throw new AssertionError(impossible);
+    }
+    return this;
+  }
+
+  /**
+   * Rethrows the exception from the underlying {@code Appendable}, if writing to it failed. Call
+   * this after catching {@link Exhausted}.
+   */
+  void rethrowWriteFailure() throws IOException {
+    if (writeFailure != null) {
+      throw writeFailure;
+    }
+  }
+
+  private void write(CharSequence csq, int start, int end) {
+    try {
+      out.append(csq, start, end);
+    } catch (IOException e) {
+      throw writeFailed(e);
+    }
+  }
+
+  private Exhausted writeFailed(IOException e) {
+    writeFailure = e;
+    remaining = 0;
+    return new Exhausted();
+  }
+}
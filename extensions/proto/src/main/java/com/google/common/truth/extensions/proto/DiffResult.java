@@ -29,7 +29,6 @@ import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.ForOverride;
 import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.Message;
-import com.google.protobuf.TextFormat;
 import com.google.protobuf.UnknownFieldSet;
 import java.io.IOException;
 import java.util.Set;
@@ -98,7 +97,7 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
     }
 
     @Override
-    final void printContents(boolean includeMatches, String fieldPrefix, StringBuilder sb) {
+    final void printContents(boolean includeMatches, String fieldPrefix, BoundedAppendable sb) {
       if (!includeMatches && isMatched()) {
         return;
       }
@@ -108,9 +107,9 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
         case ADDED:
           sb.append("added: ").append(fieldPrefix).append(": ");
           if (actual().get() instanceof Message) {
-            sb.append("\n").append(actual().get());
+            sb.append("\n").appendMessage((Message) actual().get());
           } else {
-            sb.append(valueString(subScopeId().get(), actual().get())).append("\n");
+            appendValue(sb, subScopeId().get(), actual().get()).append("\n");
           }
           return;
         case IGNORED:
@@ -119,12 +118,9 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
         case MATCHED:
           sb.append("matched: ").append(fieldPrefix);
           if (actualOrExpected() instanceof Message) {
-            sb.append("\n");
-            printChildContents(includeMatches, fieldPrefix, sb);
+            printMatchedChildContents(includeMatches, fieldPrefix, sb);
           } else {
-            sb.append(": ")
-                .append(valueString(subScopeId().get(), actualOrExpected()))
-                .append("\n");
+            appendValue(sb.append(": "), subScopeId().get(), actualOrExpected()).append("\n");
           }
           return;
         case MODIFIED:
@@ -133,19 +129,16 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
             sb.append("\n");
             printChildContents(includeMatches, fieldPrefix, sb);
           } else {
-            sb.append(": ")
-                .append(valueString(subScopeId().get(), expected().get()))
-                .append(" -> ")
-                .append(valueString(subScopeId().get(), actual().get()))
-                .append("\n");
+            appendValue(sb.append(": "), subScopeId().get(), expected().get()).append(" -> ");
+            appendValue(sb, subScopeId().get(), actual().get()).append("\n");
           }
           return;
         case REMOVED:
           sb.append("deleted: ").append(fieldPrefix).append(": ");
           if (expected().get() instanceof Message) {
-            sb.append("\n").append(expected().get());
+            sb.append("\n").appendMessage((Message) expected().get());
           } else {
-            sb.append(valueString(subScopeId().get(), expected().get())).append("\n");
+            appendValue(sb, subScopeId().get(), expected().get()).append("\n");
           }
           return;
         default:
@@ -246,7 +239,7 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
       }
 
       @Override
-      final void printContents(boolean includeMatches, String fieldPrefix, StringBuilder sb) {
+      final void printContents(boolean includeMatches, String fieldPrefix, BoundedAppendable sb) {
         printContentsForRepeatedField(
             /* includeSelfAlways = */ false, includeMatches, fieldPrefix, sb);
       }
@@ -255,7 +248,10 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
       // !includeMatches if there's a mismatch on the repeated field itself, but not recursively.
       // So we define a second printing method for use by the parent.
       final void printContentsForRepeatedField(
-          boolean includeSelfAlways, boolean includeMatches, String fieldPrefix, StringBuilder sb) {
+          boolean includeSelfAlways,
+          boolean includeMatches,
+          String fieldPrefix,
+          BoundedAppendable sb) {
         if (!includeSelfAlways && !includeMatches && isMatched()) {
           return;
         }
@@ -264,9 +260,9 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
           case ADDED:
             sb.append("added: ").append(indexed(fieldPrefix, actualFieldIndex())).append(": ");
             if (isMessage()) {
-              sb.append("\n").append(actual().get());
+              sb.append("\n").appendMessage((Message) actual().get());
             } else {
-              sb.append(valueString(fieldDescriptor(), actual().get())).append("\n");
+              sb.appendFieldValue(fieldDescriptor(), actual().get()).append("\n");
             }
             return;
           case IGNORED:
@@ -286,7 +282,7 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
               sb.append("\n");
               printChildContents(includeMatches, indexed(fieldPrefix, actualFieldIndex()), sb);
             } else {
-              sb.append(" ").append(valueString(fieldDescriptor(), actual().get())).append("\n");
+              sb.append(" ").appendFieldValue(fieldDescriptor(), actual().get()).append("\n");
             }
             return;
           case MATCHED:
@@ -300,10 +296,10 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
             }
             sb.append(":");
             if (isMessage()) {
-              sb.append("\n");
-              printChildContents(includeMatches, indexed(fieldPrefix, actualFieldIndex()), sb);
+              printMatchedChildContents(
+                  includeMatches, indexed(fieldPrefix, actualFieldIndex()), sb);
             } else {
-              sb.append(" ").append(valueString(fieldDescriptor(), actual().get())).append("\n");
+              sb.append(" ").appendFieldValue(fieldDescriptor(), actual().get()).append("\n");
             }
             return;
           case MOVED_OUT_OF_ORDER:
@@ -313,10 +309,10 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
                 .append(indexed(fieldPrefix, actualFieldIndex()));
             sb.append(":");
             if (isMessage()) {
-              sb.append("\n");
-              printChildContents(includeMatches, indexed(fieldPrefix, actualFieldIndex()), sb);
+              printMatchedChildContents(
+                  includeMatches, indexed(fieldPrefix, actualFieldIndex()), sb);
             } else {
-              sb.append(" ").append(valueString(fieldDescriptor(), actual().get())).append("\n");
+              sb.append(" ").appendFieldValue(fieldDescriptor(), actual().get()).append("\n");
             }
             return;
           case MODIFIED:
@@ -334,17 +330,17 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
               printChildContents(includeMatches, indexed(fieldPrefix, actualFieldIndex()), sb);
             } else {
               sb.append(" ")
-                  .append(valueString(fieldDescriptor(), expected().get()))
+                  .appendFieldValue(fieldDescriptor(), expected().get())
                   .append(" -> ")
-                  .append(valueString(fieldDescriptor(), actual().get()));
+                  .appendFieldValue(fieldDescriptor(), actual().get());
             }
             return;
           case REMOVED:
             sb.append("deleted: ").append(indexed(fieldPrefix, expectedFieldIndex())).append(": ");
             if (isMessage()) {
-              sb.append("\n").append(expected().get());
+              sb.append("\n").appendMessage((Message) expected().get());
             } else {
-              sb.append(valueString(fieldDescriptor(), expected().get())).append("\n");
+              sb.appendFieldValue(fieldDescriptor(), expected().get()).append("\n");
             }
             return;
         }
@@ -405,11 +401,28 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
     }
 
     @Override
-    final void printContents(boolean includeMatches, String fieldPrefix, StringBuilder sb) {
+    final void printContents(boolean includeMatches, String fieldPrefix, BoundedAppendable sb) {
       fieldPrefix = newFieldPrefix(fieldPrefix, fieldDescriptor().getName());
+      if (includeMatches || isMatched()) {
+        for (PairResult pairResult : pairResults()) {
+          pairResult.printContentsForRepeatedField(
+              /* includeSelfAlways = */ !isMatched(), includeMatches, fieldPrefix, sb);
+        }
+        return;
+      }
+      // In the report of mismatches, the matched elements are there only to explain the indexes of
+      // the rest. Print them last, so that a long list of them can't crowd out the mismatches.
       for (PairResult pairResult : pairResults()) {
-        pairResult.printContentsForRepeatedField(
-            /* includeSelfAlways = */ !isMatched(), includeMatches, fieldPrefix, sb);
+        if (!pairResult.isMatched()) {
+          pairResult.printContentsForRepeatedField(
+              /* includeSelfAlways = */ true, includeMatches, fieldPrefix, sb);
+        }
+      }
+      for (PairResult pairResult : pairResults()) {
+        if (pairResult.isMatched()) {
+          pairResult.printContentsForRepeatedField(
+              /* includeSelfAlways = */ true, includeMatches, fieldPrefix, sb);
+        }
       }
     }
 
@@ -468,7 +481,7 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
     }
 
     @Override
-    final void printContents(boolean includeMatches, String fieldPrefix, StringBuilder sb) {
+    final void printContents(boolean includeMatches, String fieldPrefix, BoundedAppendable sb) {
       if (!includeMatches && isMatched()) {
         return;
       }
@@ -552,10 +565,41 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
     return builder.build();
   }
 
+  /**
+   * The default length limit for {@link #printToString}: the same as the length at which Truth
+   * abbreviates long fact values, since the report ends up in a failure message anyway.
+   */
+  static final int DEFAULT_MAX_REPORT_LENGTH = 100_000;
+
   /** Prints the full {@link DiffResult} to a human-readable string, for use in test outputs. */
   final String printToString(boolean reportMismatchesOnly) {
     StringBuilder sb = new StringBuilder();
+    try {
+      printTo(sb, reportMismatchesOnly, DEFAULT_MAX_REPORT_LENGTH);
+    } catch (IOException impossible) {
+      throw new AssertionError(impossible);
+    }
+    return sb.toString();
+  }
 
+  /**
+   * Prints the {@link DiffResult} to {@code out}, mismatches first, stopping once it has printed
+   * {@code maxLength} characters. A truncated report ends with a line saying so.
+   */
+  final void printTo(Appendable out, boolean reportMismatchesOnly, int maxLength)
+      throws IOException {
+    BoundedAppendable bounded = new BoundedAppendable(out, maxLength);
+    try {
+      printTo(bounded, reportMismatchesOnly);
+    } catch (BoundedAppendable.Exhausted e) {
+      bounded.rethrowWriteFailure();
+      out.append("…\n(Stopped printing the diff report after ")
+          .append(String.valueOf(maxLength))
+          .append(" characters.)\n");
+    }
+  }
+
+  private void printTo(BoundedAppendable sb, boolean reportMismatchesOnly) {
     if (!isMatched()) {
       sb.append("Differences were found:\n");
       printContents(/* includeMatches = */ false, /* fieldPrefix = */ "", sb);
@@ -575,12 +619,10 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
         printContents(/* includeMatches = */ true, /* fieldPrefix = */ "", sb);
       }
     }
-
-    return sb.toString();
   }
 
   @Override
-  final void printContents(boolean includeMatches, String fieldPrefix, StringBuilder sb) {
+  final void printContents(boolean includeMatches, String fieldPrefix, BoundedAppendable sb) {
     for (RecursableDiffEntity child : childEntities()) {
       child.printContents(includeMatches, fieldPrefix, sb);
     }
@@ -599,36 +641,18 @@ abstract class DiffResult extends RecursableDiffEntity.WithoutResultCode {
     return rootFieldPrefix.isEmpty() ? toAdd : (rootFieldPrefix + "." + toAdd);
   }
 
-  private static String valueString(SubScopeId subScopeId, Object o) {
+  @CanIgnoreReturnValue
+  private static BoundedAppendable appendValue(
+      BoundedAppendable sb, SubScopeId subScopeId, Object o) {
     switch (subScopeId.kind()) {
       case FIELD_DESCRIPTOR:
-        return valueString(subScopeId.fieldDescriptor(), o);
+        return sb.appendFieldValue(subScopeId.fieldDescriptor(), o);
       case UNKNOWN_FIELD_DESCRIPTOR:
-        return valueString(subScopeId.unknownFieldDescriptor(), o);
+        return sb.appendUnknownFieldValue(subScopeId.unknownFieldDescriptor().type().wireType(), o);
     }
     throw new AssertionError(subScopeId.kind());
   }
 
-  private static String valueString(FieldDescriptor fieldDescriptor, Object o) {
-    StringBuilder sb = new StringBuilder();
-    try {
-      TextFormat.printFieldValue(fieldDescriptor, o, sb);
-      return sb.toString();
-    } catch (IOException impossible) {
-      throw new AssertionError(impossible);
-    }
-  }
-
-  private static String valueString(UnknownFieldDescriptor unknownFieldDescriptor, Object o) {
-    StringBuilder sb = new StringBuilder();
-    try {
-      TextFormat.printUnknownFieldValue(unknownFieldDescriptor.type().wireType(), o, sb);
-      return sb.toString();
-    } catch (IOException impossible) {
-      throw new AssertionError(impossible);
-    }
-  }
-
   @CanIgnoreReturnValue
   @AutoValue.Builder
   abstract static class Builder {
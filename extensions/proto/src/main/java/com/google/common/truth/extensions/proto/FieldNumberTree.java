@@ -16,35 +16,70 @@
 
 package com.google.common.truth.extensions.proto;
 
-import com.google.common.collect.Maps;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.Message;
 import com.google.protobuf.UnknownFieldSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Tree representation of all set field numbers in a message, merging across repeated elements.
  *
  * <p>Sub messages are represented by child {@link FieldNumberTree} objects.
  *
+ * <p>The tree is expanded lazily: A node remembers the messages (and unknown field groups) that it
+ * describes, and works out whether it has a given child only when asked, caching the answer. A
+ * comparison usually asks about a small part of the tree, and when the tree describes many
+ * messages, as it does for {@code comparingExpectedFieldsOnly()} on a collection, building it
+ * eagerly can cost more than the comparison itself. Nodes are safe to share between threads.
+ *
  * @see FieldScopeImpl#partialScope
  */
 final class FieldNumberTree {
 
-  private static final FieldNumberTree EMPTY = new FieldNumberTree();
+  private static final FieldNumberTree EMPTY =
+      new FieldNumberTree(ImmutableList.<Message>of(), ImmutableList.<UnknownFieldSet>of());
+
+  /** Marks a cached lookup for a child that doesn't exist. */
+  private static final FieldNumberTree ABSENT =
+      new FieldNumberTree(ImmutableList.<Message>of(), ImmutableList.<UnknownFieldSet>of());
 
   /** A {@code FieldNumberTree} with no children. */
   static FieldNumberTree empty() {
     return EMPTY;
   }
 
-  // Modified only during [factory] construction, never changed afterwards.
-  private final Map<SubScopeId, FieldNumberTree> children = Maps.newHashMap();
+  private final ImmutableList<Message> messages;
+  private final ImmutableList<UnknownFieldSet> unknownFieldSets;
+
+  // Lazily populated caches of the children we've looked up so far, guarded by 'this'. Known
+  // fields are keyed by field number, and unknown fields by tag, which includes the wire type.
+  private @Nullable IntKeyedChildren knownChildren;
+  private @Nullable IntKeyedChildren unknownChildren;
+
+  private FieldNumberTree(
+      ImmutableList<Message> messages, ImmutableList<UnknownFieldSet> unknownFieldSets) {
+    this.messages = messages;
+    this.unknownFieldSets = unknownFieldSets;
+  }
 
   /** Returns whether this {@code FieldNumberTree} has no children. */
   boolean isEmpty() {
-    return children.isEmpty();
+    for (Message message : messages) {
+      // Every set field, known or unknown, takes at least one byte on the wire.
+      if (message.getSerializedSize() != 0) {
+        return false;
+      }
+    }
+    for (UnknownFieldSet unknownFieldSet : unknownFieldSets) {
+      if (!unknownFieldSet.asMap().isEmpty()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -53,84 +88,159 @@ final class FieldNumberTree {
    * <p>{@code empty()} if there is none.
    */
   FieldNumberTree child(SubScopeId subScopeId) {
-    FieldNumberTree child = children.get(subScopeId);
-    return child == null ? EMPTY : child;
+    FieldNumberTree child = lookUpChild(subScopeId);
+    return child == ABSENT ? EMPTY : child;
   }
 
   /** Returns whether this tree has a child for this node. */
   boolean hasChild(SubScopeId subScopeId) {
-    return children.containsKey(subScopeId);
+    return lookUpChild(subScopeId) != ABSENT;
   }
 
   static FieldNumberTree fromMessage(Message message) {
-    FieldNumberTree tree = new FieldNumberTree();
-
-    // Known fields.
-    Map<FieldDescriptor, Object> knownFieldValues = message.getAllFields();
-    for (FieldDescriptor field : knownFieldValues.keySet()) {
-      SubScopeId subScopeId = SubScopeId.of(field);
-      FieldNumberTree childTree = new FieldNumberTree();
-      tree.children.put(subScopeId, childTree);
-
-      Object fieldValue = knownFieldValues.get(field);
-      if (field.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
-        if (field.isRepeated()) {
-          List<?> valueList = (List<?>) fieldValue;
-          for (Object value : valueList) {
-            childTree.merge(fromMessage((Message) value));
-          }
-        } else {
-          childTree.merge(fromMessage((Message) fieldValue));
-        }
-      }
-    }
-
-    // Unknown fields.
-    tree.merge(fromUnknownFieldSet(message.getUnknownFields()));
-
-    return tree;
+    return new FieldNumberTree(ImmutableList.of(message), ImmutableList.<UnknownFieldSet>of());
   }
 
   static FieldNumberTree fromMessages(Iterable<? extends Message> messages) {
-    FieldNumberTree tree = new FieldNumberTree();
+    ImmutableList.Builder<Message> nonNullMessages = ImmutableList.builder();
     for (Message message : messages) {
       if (message != null) {
-        tree.merge(fromMessage(message));
+        nonNullMessages.add(message);
       }
     }
-    return tree;
+    return new FieldNumberTree(nonNullMessages.build(), ImmutableList.<UnknownFieldSet>of());
   }
 
-  private static FieldNumberTree fromUnknownFieldSet(UnknownFieldSet unknownFieldSet) {
-    FieldNumberTree tree = new FieldNumberTree();
-    for (int fieldNumber : unknownFieldSet.asMap().keySet()) {
-      UnknownFieldSet.Field unknownField = unknownFieldSet.asMap().get(fieldNumber);
-      for (UnknownFieldDescriptor unknownFieldDescriptor :
-          UnknownFieldDescriptor.descriptors(fieldNumber, unknownField)) {
-        SubScopeId subScopeId = SubScopeId.of(unknownFieldDescriptor);
-        FieldNumberTree childTree = new FieldNumberTree();
-        tree.children.put(subScopeId, childTree);
-
-        if (unknownFieldDescriptor.type() == UnknownFieldDescriptor.Type.GROUP) {
-          for (Object group : unknownFieldDescriptor.type().getValues(unknownField)) {
-            childTree.merge(fromUnknownFieldSet((UnknownFieldSet) group));
+  private synchronized FieldNumberTree lookUpChild(SubScopeId subScopeId) {
+    switch (subScopeId.kind()) {
+      case FIELD_DESCRIPTOR:
+        {
+          FieldDescriptor field = subScopeId.fieldDescriptor();
+          if (knownChildren == null) {
+            knownChildren = new IntKeyedChildren();
+          }
+          FieldNumberTree child = knownChildren.get(field.getNumber());
+          if (child == null) {
+            child = computeChild(field);
+            knownChildren.put(field.getNumber(), child);
           }
+          return child;
+        }
+      case UNKNOWN_FIELD_DESCRIPTOR:
+        {
+          UnknownFieldDescriptor field = subScopeId.unknownFieldDescriptor();
+          int tag = (field.fieldNumber() << 3) | field.type().wireType();
+          if (unknownChildren == null) {
+            unknownChildren = new IntKeyedChildren();
+          }
+          FieldNumberTree child = unknownChildren.get(tag);
+          if (child == null) {
+            child = computeChild(field);
+            unknownChildren.put(tag, child);
+          }
+          return child;
+        }
+    }
+    throw new AssertionError(subScopeId.kind());
+  }
+
+  private FieldNumberTree computeChild(FieldDescriptor field) {
+    boolean isSet = false;
+    ImmutableList.Builder<Message> values = ImmutableList.builder();
+    for (Message message : messages) {
+      // The differencer only asks about fields of the messages it's comparing, but a field with an
+      // equal descriptor from elsewhere simply isn't set here, as it wouldn't be in getAllFields().
+      if (field.getContainingType() != message.getDescriptorForType()) {
+        continue;
+      }
+      if (field.isRepeated()) {
+        int count = message.getRepeatedFieldCount(field);
+        isSet |= count > 0;
+        if (field.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+          for (int i = 0; i < count; i++) {
+            values.add((Message) message.getRepeatedField(field, i));
+          }
+        }
+      } else if (message.hasField(field)) {
+        isSet = true;
+        if (field.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+          values.add((Message) message.getField(field));
+        }
+      }
+    }
+    return isSet ? newTree(values.build(), ImmutableList.<UnknownFieldSet>of()) : ABSENT;
+  }
+
+  private FieldNumberTree computeChild(UnknownFieldDescriptor field) {
+    boolean isSet = false;
+    ImmutableList.Builder<UnknownFieldSet> groups = ImmutableList.builder();
+    for (UnknownFieldSet unknownFieldSet : allUnknownFieldSets()) {
+      UnknownFieldSet.Field unknownField = unknownFieldSet.asMap().get(field.fieldNumber());
+      if (unknownField == null) {
+        continue;
+      }
+      List<?> values = field.type().getValues(unknownField);
+      isSet |= !values.isEmpty();
+      if (field.type() == UnknownFieldDescriptor.Type.GROUP) {
+        for (Object group : values) {
+          groups.add((UnknownFieldSet) group);
         }
       }
     }
+    return isSet ? newTree(ImmutableList.<Message>of(), groups.build()) : ABSENT;
+  }
+
+  private Iterable<UnknownFieldSet> allUnknownFieldSets() {
+    if (messages.isEmpty()) {
+      return unknownFieldSets;
+    }
+    ImmutableList.Builder<UnknownFieldSet> all = ImmutableList.builder();
+    for (Message message : messages) {
+      all.add(message.getUnknownFields());
+    }
+    return all.addAll(unknownFieldSets).build();
+  }
 
-    return tree;
+  private static FieldNumberTree newTree(
+      ImmutableList<Message> messages, ImmutableList<UnknownFieldSet> unknownFieldSets) {
+    // Leaves, which are most children, all share a single instance.
+    return messages.isEmpty() && unknownFieldSets.isEmpty()
+        ? EMPTY
+        : new FieldNumberTree(messages, unknownFieldSets);
   }
 
-  /** Adds the other tree onto this one. May destroy {@code other} in the process. */
-  private void merge(FieldNumberTree other) {
-    for (SubScopeId subScopeId : other.children.keySet()) {
-      FieldNumberTree value = other.children.get(subScopeId);
-      if (!this.children.containsKey(subScopeId)) {
-        this.children.put(subScopeId, value);
-      } else {
-        this.children.get(subScopeId).merge(value);
+  /**
+   * A map from {@code int} keys to children, stored as parallel arrays sorted by key. Nodes
+   * typically have a handful of children, which makes this both smaller and faster than a {@code
+   * HashMap} with boxed keys.
+   */
+  @VisibleForTesting
+  static final class IntKeyedChildren {
+    private int[] keys = new int[4];
+    private FieldNumberTree[] values = new FieldNumberTree[4];
+    private int size;
+
+    @Nullable FieldNumberTree get(int key) {
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      return index >= 0 ? values[index] : null;
+    }
+
+    void put(int key, FieldNumberTree value) {
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      if (index >= 0) {
+        values[index] = value;
+        return;
+      }
+      int insertionPoint = -index - 1;
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        values = Arrays.copyOf(values, size * 2);
       }
+      System.arraycopy(keys, insertionPoint, keys, insertionPoint + 1, size - insertionPoint);
+      System.arraycopy(values, insertionPoint, values, insertionPoint + 1, size - insertionPoint);
+      keys[insertionPoint] = key;
+      values[insertionPoint] = value;
+      size++;
     }
   }
 }
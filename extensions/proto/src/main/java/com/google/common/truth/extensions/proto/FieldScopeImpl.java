@@ -62,10 +62,16 @@ abstract class FieldScopeImpl extends FieldScope {
   // Instantiation methods.
   //////////////////////////////////////////////////////////////////////////////////////////////////
 
-  static FieldScope createFromSetFields(Message message) {
+  static FieldScope createFromSetFields(final Message message) {
+    // As in fromSetFieldsStringFunction, we format the message only if a failure message needs it.
     return create(
         FieldScopeLogic.partialScope(message),
-        Functions.constant(String.format("FieldScopes.fromSetFields({%s})", message.toString())));
+        new Function<Optional<Descriptor>, String>() {
+          @Override
+          public String apply(Optional<Descriptor> unused) {
+            return String.format("FieldScopes.fromSetFields({%s})", message);
+          }
+        });
   }
 
   static FieldScope createFromSetFields(Iterable<? extends Message> messages) {
@@ -83,7 +89,7 @@ abstract class FieldScopeImpl extends FieldScope {
 
     return create(
         FieldScopeLogic.partialScope(messages, optDescriptor.get()),
-        Functions.constant(String.format("FieldScopes.fromSetFields(%s)", formatList(messages))));
+        fromSetFieldsStringFunction(Lists.newArrayList(messages)));
   }
 
   static FieldScope createIgnoringFields(Iterable<Integer> fieldNumbers) {
@@ -217,6 +223,21 @@ abstract class FieldScopeImpl extends FieldScope {
     return descriptors;
   }
 
+  /**
+   * Returns a function that describes a scope made from the set fields of the given messages. It
+   * formats the messages only when called, since that's expensive for large messages, and it's
+   * needed only for failure messages.
+   */
+  private static Function<Optional<Descriptor>, String> fromSetFieldsStringFunction(
+      final List<? extends Message> messages) {
+    return new Function<Optional<Descriptor>, String>() {
+      @Override
+      public String apply(Optional<Descriptor> unused) {
+        return String.format("FieldScopes.fromSetFields(%s)", formatList(messages));
+      }
+    };
+  }
+
   private static String formatList(Iterable<? extends Message> messages) {
     List<String> strings = Lists.newArrayList();
     for (Message message : messages) {
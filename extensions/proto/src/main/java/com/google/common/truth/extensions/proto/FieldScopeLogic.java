@@ -25,10 +25,12 @@ import com.google.common.base.Optional;
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.errorprone.annotations.ForOverride;
 import com.google.protobuf.Descriptors.Descriptor;
 import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.Message;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -237,12 +239,15 @@ abstract class FieldScopeLogic implements FieldScopeLogicContainer<FieldScopeLog
   }
 
   private static final class RootPartialScopeLogic extends PartialScopeLogic {
-    private final String repr;
+    // We format the messages only if toString() is called, since that's expensive for large
+    // messages, and usually nobody calls it.
+    private final List<? extends Message> messages;
     private final Descriptor expectedDescriptor;
 
-    RootPartialScopeLogic(FieldNumberTree fieldNumberTree, String repr, Descriptor descriptor) {
+    RootPartialScopeLogic(
+        FieldNumberTree fieldNumberTree, List<? extends Message> messages, Descriptor descriptor) {
       super(fieldNumberTree);
-      this.repr = repr;
+      this.messages = messages;
       this.expectedDescriptor = descriptor;
     }
 
@@ -263,20 +268,21 @@ abstract class FieldScopeLogic implements FieldScopeLogicContainer<FieldScopeLog
 
     @Override
     public String toString() {
-      return String.format("FieldScopes.fromSetFields(%s)", repr);
+      return String.format(
+          "FieldScopes.fromSetFields(%s)", Joiner.on(", ").useForNull("null").join(messages));
     }
   }
 
   static FieldScopeLogic partialScope(Message message) {
     return new RootPartialScopeLogic(
-        FieldNumberTree.fromMessage(message), message.toString(), message.getDescriptorForType());
+        FieldNumberTree.fromMessage(message),
+        Collections.singletonList(message),
+        message.getDescriptorForType());
   }
 
   static FieldScopeLogic partialScope(Iterable<? extends Message> messages, Descriptor descriptor) {
     return new RootPartialScopeLogic(
-        FieldNumberTree.fromMessages(messages),
-        Joiner.on(", ").useForNull("null").join(messages),
-        descriptor);
+        FieldNumberTree.fromMessages(messages), Lists.newArrayList(messages), descriptor);
   }
 
   // TODO(user): Performance: Optimize FieldNumbersLogic and FieldDescriptorsLogic for
@@ -33,8 +33,10 @@ import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.protobuf.Descriptors.Descriptor;
 import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.ExtensionRegistry;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.TypeRegistry;
+import java.util.Arrays;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -76,6 +78,32 @@ abstract class FluentEqualityConfig implements FieldScopeLogicContainer<FluentEq
                 }
               });
 
+  private final LoadingCache<ScopedField, FieldDecisions> fieldDecisions =
+      CacheBuilder.newBuilder()
+          .build(
+              new CacheLoader<ScopedField, FieldDecisions>() {
+                @Override
+                public FieldDecisions load(ScopedField field) {
+                  return new FieldDecisions(
+                      FluentEqualityConfig.this, field.rootDescriptor(), field.subScopeId());
+                }
+              });
+
+  private final LoadingCache<String, Optional<Descriptor>> descriptorsForTypeUrls =
+      CacheBuilder.newBuilder()
+          .build(
+              new CacheLoader<String, Optional<Descriptor>>() {
+                @Override
+                public Optional<Descriptor> load(String typeUrl) {
+                  try {
+                    return Optional.fromNullable(
+                        useTypeRegistry().getDescriptorForTypeUrl(typeUrl));
+                  } catch (InvalidProtocolBufferException e) {
+                    return Optional.absent();
+                  }
+                }
+              });
+
   //////////////////////////////////////////////////////////////////////////////////////////////////
   // Storage of AbstractProtoFluentEquals configuration data.
   //////////////////////////////////////////////////////////////////////////////////////////////////
@@ -271,6 +299,11 @@ abstract class FluentEqualityConfig implements FieldScopeLogicContainer<FluentEq
   }
 
   final FluentEqualityConfig withExpectedMessages(Iterable<? extends Message> messages) {
+    if (hasExpectedMessages() && !compareExpectedFieldsOnly()) {
+      // Nothing would change, so keep using this config, and thus its differencers and what
+      // they've cached.
+      return this;
+    }
     Builder builder = toBuilder().setHasExpectedMessages(true);
     if (compareExpectedFieldsOnly()) {
       builder.setCompareFieldsScope(
@@ -365,9 +398,46 @@ abstract class FluentEqualityConfig implements FieldScopeLogicContainer<FluentEq
     return messageDifferencers.getUnchecked(descriptor);
   }
 
+  /**
+   * Returns every decision this config makes about the given field, computed once per field.
+   *
+   * <p>In particular, {@link FieldDecisions#subScope()} is also computed only once, so repeated
+   * visits to the same field (e.g., once for each element of a repeated field) share a single
+   * sub-scoped config and thus its own cached decisions.
+   */
+  final FieldDecisions decisionsFor(Descriptor rootDescriptor, SubScopeId subScopeId) {
+    return fieldDecisions.getUnchecked(ScopedField.create(rootDescriptor, subScopeId));
+  }
+
+  /**
+   * Returns the descriptor that {@link #useTypeRegistry()} has for the given {@code Any} type URL,
+   * if any, looking it up only once per URL.
+   */
+  final Optional<Descriptor> descriptorForTypeUrl(String typeUrl) {
+    return descriptorsForTypeUrls.getUnchecked(typeUrl);
+  }
+
   final <M extends Message> Correspondence<M, M> toCorrespondence(
       final Optional<Descriptor> optDescriptor) {
     checkState(hasExpectedMessages(), "withExpectedMessages() not called");
+    Correspondence<M, M> correspondence = comparingWithConfig(optDescriptor);
+    if (compareExpectedFieldsOnly()) {
+      // The fields we compare depend on the expected message, so there's no single fingerprint.
+      return correspondence;
+    }
+    // If we were allowed method references, this would be this::fingerprintKey.
+    Function<M, Object> fingerprintKey =
+        new Function<M, Object>() {
+          @Override
+          public Object apply(@Nullable M message) {
+            return fingerprintKey(message);
+          }
+        };
+    return correspondence.indexingUsing(fingerprintKey, fingerprintKey);
+  }
+
+  private <M extends Message> Correspondence<M, M> comparingWithConfig(
+      final Optional<Descriptor> optDescriptor) {
     return Correspondence.from(
             // If we were allowed lambdas, this would be:
             // (M a, M e) ->
@@ -393,6 +463,18 @@ abstract class FluentEqualityConfig implements FieldScopeLogicContainer<FluentEq
             });
   }
 
+  /**
+   * Returns a key that is equal for any two messages that compare equal under this config. Because
+   * messages must have the same descriptor to compare equal, the key includes the descriptor.
+   */
+  private @Nullable Object fingerprintKey(@Nullable Message message) {
+    if (message == null) {
+      return null;
+    }
+    Descriptor descriptor = message.getDescriptorForType();
+    return Arrays.asList(descriptor, toMessageDifferencer(descriptor).fingerprint(message));
+  }
+
   private <M extends Message> String formatDiff(@Nullable M actual, @Nullable M expected) {
     if (actual == null || expected == null) {
       return "";
@@ -403,6 +485,76 @@ abstract class FluentEqualityConfig implements FieldScopeLogicContainer<FluentEq
         .printToString(reportMismatchesOnly());
   }
 
+  /** A field, identified relative to the descriptor of the root message being compared. */
+  @AutoValue
+  abstract static class ScopedField {
+    static ScopedField create(Descriptor rootDescriptor, SubScopeId subScopeId) {
+      return new AutoValue_FluentEqualityConfig_ScopedField(rootDescriptor, subScopeId);
+    }
+
+    abstract Descriptor rootDescriptor();
+
+    abstract SubScopeId subScopeId();
+  }
+
+  /**
+   * The results of evaluating each of a config's {@link FieldScopeLogic} trees for a single field,
+   * plus the config for comparing the field's contents.
+   */
+  static final class FieldDecisions {
+    private final FieldScopeResult compareFieldsPolicy;
+    private final boolean ignoreFieldAbsence;
+    private final boolean ignoreRepeatedFieldOrder;
+    private final boolean ignoreExtraRepeatedFieldElements;
+    private final Optional<Correspondence<Number, Number>> doubleCorrespondence;
+    private final Optional<Correspondence<Number, Number>> floatCorrespondence;
+    private final FluentEqualityConfig subScope;
+
+    private FieldDecisions(
+        FluentEqualityConfig config, Descriptor rootDescriptor, SubScopeId subScopeId) {
+      this.compareFieldsPolicy = config.compareFieldsScope().policyFor(rootDescriptor, subScopeId);
+      this.ignoreFieldAbsence =
+          config.ignoreFieldAbsenceScope().contains(rootDescriptor, subScopeId);
+      this.ignoreRepeatedFieldOrder =
+          config.ignoreRepeatedFieldOrderScope().contains(rootDescriptor, subScopeId);
+      this.ignoreExtraRepeatedFieldElements =
+          config.ignoreExtraRepeatedFieldElementsScope().contains(rootDescriptor, subScopeId);
+      this.doubleCorrespondence = config.doubleCorrespondenceMap().get(rootDescriptor, subScopeId);
+      this.floatCorrespondence = config.floatCorrespondenceMap().get(rootDescriptor, subScopeId);
+      this.subScope = config.subScope(rootDescriptor, subScopeId);
+    }
+
+    /** Whether, and how, {@link FluentEqualityConfig#compareFieldsScope()} includes the field. */
+    FieldScopeResult compareFieldsPolicy() {
+      return compareFieldsPolicy;
+    }
+
+    boolean ignoreFieldAbsence() {
+      return ignoreFieldAbsence;
+    }
+
+    boolean ignoreRepeatedFieldOrder() {
+      return ignoreRepeatedFieldOrder;
+    }
+
+    boolean ignoreExtraRepeatedFieldElements() {
+      return ignoreExtraRepeatedFieldElements;
+    }
+
+    Optional<Correspondence<Number, Number>> doubleCorrespondence() {
+      return doubleCorrespondence;
+    }
+
+    Optional<Correspondence<Number, Number>> floatCorrespondence() {
+      return floatCorrespondence;
+    }
+
+    /** The config for comparing the contents of the field. */
+    FluentEqualityConfig subScope() {
+      return subScope;
+    }
+  }
+
   //////////////////////////////////////////////////////////////////////////////////////////////////
   // Builder methods.
   //////////////////////////////////////////////////////////////////////////////////////////////////
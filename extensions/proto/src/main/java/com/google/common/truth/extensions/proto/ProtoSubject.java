@@ -652,8 +652,12 @@ public class ProtoSubject extends LiteProtoSubject {
     if (notMessagesWithSameDescriptor(actual, expected)) {
       super.isNotEqualTo(expected);
     } else {
-      DiffResult diffResult =
-          makeDifferencer((Message) expected).diffMessages(actual, (Message) expected);
+      ProtoTruthMessageDifferencer differencer = makeDifferencer((Message) expected);
+      if (differencer.fingerprint(actual) != differencer.fingerprint((Message) expected)) {
+        // The messages differ in some field that we compare, so there's no need for the full diff.
+        return;
+      }
+      DiffResult diffResult = differencer.diffMessages(actual, (Message) expected);
       if (diffResult.isMatched()) {
         failWithoutActual(
             simpleFact(
@@ -899,8 +903,7 @@ public class ProtoSubject extends LiteProtoSubject {
       } else {
         return protoSubject
             .makeDifferencer(expected)
-            .diffMessages(protoSubject.actual, expected)
-            .isMatched();
+            .messagesMatch(protoSubject.actual, expected);
       }
     }
   }
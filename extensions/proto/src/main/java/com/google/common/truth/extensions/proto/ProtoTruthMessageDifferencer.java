@@ -23,18 +23,25 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.truth.Correspondence;
+import com.google.common.truth.extensions.proto.AnyUtils.UnpackedAnys;
 import com.google.common.truth.extensions.proto.DiffResult.RepeatedField;
 import com.google.common.truth.extensions.proto.DiffResult.SingularField;
 import com.google.common.truth.extensions.proto.DiffResult.UnknownFieldSetDiff;
+import com.google.common.truth.extensions.proto.FluentEqualityConfig.FieldDecisions;
 import com.google.common.truth.extensions.proto.RecursableDiffEntity.WithResultCode.Result;
 import com.google.protobuf.Any;
 import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
 import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.Descriptors.FieldDescriptor.JavaType;
 import com.google.protobuf.Descriptors.FileDescriptor.Syntax;
@@ -43,6 +50,9 @@ import com.google.protobuf.TextFormat;
 import com.google.protobuf.UnknownFieldSet;
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
@@ -63,6 +73,12 @@ final class ProtoTruthMessageDifferencer {
   private final FluentEqualityConfig rootConfig;
   private final Descriptor rootDescriptor;
 
+  /**
+   * The fingerprints we've computed, keyed by the identity of the message. A message is often
+   * fingerprinted more than once, such as when it's first used as an index key and then compared.
+   */
+  private final Cache<Message, Integer> fingerprints = CacheBuilder.newBuilder().weakKeys().build();
+
   private ProtoTruthMessageDifferencer(FluentEqualityConfig rootConfig, Descriptor descriptor) {
     rootConfig.validate(descriptor, FieldDescriptorValidator.ALLOW_ALL);
 
@@ -86,12 +102,45 @@ final class ProtoTruthMessageDifferencer {
         actual.getDescriptorForType(),
         expected.getDescriptorForType());
 
-    return diffMessages(actual, expected, rootConfig);
+    return diffMessages(actual, expected, rootConfig, new UnpackedAnys());
+  }
+
+  /**
+   * Returns whether {@link #diffMessages} would report that the two non-null messages match. This
+   * skips building the report when the messages' fingerprints already show that they differ.
+   *
+   * <p>Messages whose fingerprints are equal still get the full diff, since fields that don't
+   * contribute to the fingerprint may differ. But because we remember each message's fingerprint,
+   * checking them costs only a lookup for a message that we've fingerprinted before, as when a
+   * caller has already grouped the messages by {@link #fingerprint}.
+   */
+  boolean messagesMatch(Message actual, Message expected) {
+    return fingerprint(actual) == fingerprint(expected)
+        && diffMessages(actual, expected).isMatched();
+  }
+
+  /**
+   * Returns a hash of the parts of the given message that this differencer compares.
+   *
+   * <p>Messages that {@link #diffMessages} reports as matching always have the same fingerprint, so
+   * messages with different fingerprints can never match. The reverse doesn't hold: Fields that
+   * can't be hashed consistently with how they're compared (such as fields compared with a
+   * tolerance, map fields, and {@code Any} messages) don't contribute to the fingerprint at all.
+   */
+  int fingerprint(Message message) {
+    Integer fingerprint = fingerprints.getIfPresent(message);
+    if (fingerprint == null) {
+      fingerprint = fingerprintMessage(message, rootConfig);
+      // If another thread fingerprinted the same message concurrently, we overwrite its result.
+      fingerprints.put(message, fingerprint);
+    }
+    return fingerprint;
   }
 
-  private DiffResult diffMessages(Message actual, Message expected, FluentEqualityConfig config) {
+  private DiffResult diffMessages(
+      Message actual, Message expected, FluentEqualityConfig config, UnpackedAnys unpackedAnys) {
     if (actual.getDescriptorForType().equals(Any.getDescriptor())) {
-      return diffAnyMessages(actual, expected, config);
+      return diffAnyMessages(actual, expected, config, unpackedAnys);
     }
     DiffResult.Builder builder = DiffResult.newBuilder().setActual(actual).setExpected(expected);
 
@@ -104,9 +153,9 @@ final class ProtoTruthMessageDifferencer {
       // the field will be considered ignored in the final diff report if no sub-fields get compared
       // (i.e., the sub-DiffResult winds up empty). This allows us support FieldScopeLogic
       // disjunctions without repeating recursive work.
-      SubScopeId subScopeId = SubScopeId.of(fieldDescriptor);
-      FieldScopeResult shouldCompare =
-          config.compareFieldsScope().policyFor(rootDescriptor, subScopeId);
+      FieldDecisions decisions =
+          config.decisionsFor(rootDescriptor, SubScopeId.of(fieldDescriptor));
+      FieldScopeResult shouldCompare = decisions.compareFieldsPolicy();
       if (shouldCompare == FieldScopeResult.EXCLUDED_RECURSIVELY) {
         builder.addSingularField(
             fieldDescriptor.getNumber(), SingularField.ignored(name(fieldDescriptor)));
@@ -127,15 +176,16 @@ final class ProtoTruthMessageDifferencer {
                   expectedMap,
                   actualAndExpectedKeys,
                   fieldDescriptor,
-                  config.subScope(rootDescriptor, subScopeId)));
+                  decisions.subScope(),
+                  unpackedAnys));
         } else {
           List<?> actualList = toProtoList(actualFields.get(fieldDescriptor));
           List<?> expectedList = toProtoList(expectedFields.get(fieldDescriptor));
 
           boolean ignoreRepeatedFieldOrder =
-              config.ignoreRepeatedFieldOrderScope().contains(rootDescriptor, subScopeId);
+              decisions.ignoreRepeatedFieldOrder();
           boolean ignoreExtraRepeatedFieldElements =
-              config.ignoreExtraRepeatedFieldElementsScope().contains(rootDescriptor, subScopeId);
+              decisions.ignoreExtraRepeatedFieldElements();
           if (ignoreRepeatedFieldOrder) {
             builder.addRepeatedField(
                 fieldDescriptor.getNumber(),
@@ -145,7 +195,8 @@ final class ProtoTruthMessageDifferencer {
                     shouldCompare == FieldScopeResult.EXCLUDED_NONRECURSIVELY,
                     fieldDescriptor,
                     ignoreExtraRepeatedFieldElements,
-                    config.subScope(rootDescriptor, subScopeId)));
+                    decisions.subScope(),
+                    unpackedAnys));
           } else if (ignoreExtraRepeatedFieldElements && !expectedList.isEmpty()) {
             builder.addRepeatedField(
                 fieldDescriptor.getNumber(),
@@ -154,7 +205,8 @@ final class ProtoTruthMessageDifferencer {
                     expectedList,
                     shouldCompare == FieldScopeResult.EXCLUDED_NONRECURSIVELY,
                     fieldDescriptor,
-                    config.subScope(rootDescriptor, subScopeId)));
+                    decisions.subScope(),
+                    unpackedAnys));
           } else {
             builder.addAllSingularFields(
                 fieldDescriptor.getNumber(),
@@ -163,7 +215,8 @@ final class ProtoTruthMessageDifferencer {
                     expectedList,
                     shouldCompare == FieldScopeResult.EXCLUDED_NONRECURSIVELY,
                     fieldDescriptor,
-                    config.subScope(rootDescriptor, subScopeId)));
+                    decisions.subScope(),
+                    unpackedAnys));
           }
         }
       } else {
@@ -176,7 +229,8 @@ final class ProtoTruthMessageDifferencer {
                 shouldCompare == FieldScopeResult.EXCLUDED_NONRECURSIVELY,
                 fieldDescriptor,
                 name(fieldDescriptor),
-                config.subScope(rootDescriptor, subScopeId)));
+                decisions.subScope(),
+                unpackedAnys));
       }
     }
 
@@ -191,12 +245,12 @@ final class ProtoTruthMessageDifferencer {
   }
 
   private DiffResult diffAnyMessages(
-      Message actual, Message expected, FluentEqualityConfig config) {
+      Message actual, Message expected, FluentEqualityConfig config, UnpackedAnys unpackedAnys) {
     DiffResult.Builder builder = DiffResult.newBuilder().setActual(actual).setExpected(expected);
 
     // Compare the TypeUrl fields.
     FieldScopeResult shouldCompareTypeUrl =
-        config.compareFieldsScope().policyFor(rootDescriptor, AnyUtils.typeUrlSubScopeId());
+        config.decisionsFor(rootDescriptor, AnyUtils.typeUrlSubScopeId()).compareFieldsPolicy();
     SingularField typeUrlDiffResult;
     if (!shouldCompareTypeUrl.included()) {
       typeUrlDiffResult = SingularField.ignored(name(AnyUtils.typeUrlFieldDescriptor()));
@@ -208,20 +262,20 @@ final class ProtoTruthMessageDifferencer {
               /* defaultValue= */ "",
               AnyUtils.typeUrlFieldDescriptor(),
               name(AnyUtils.typeUrlFieldDescriptor()),
-              config.subScope(rootDescriptor, AnyUtils.typeUrlSubScopeId()));
+              config.decisionsFor(rootDescriptor, AnyUtils.typeUrlSubScopeId()).subScope());
     }
     builder.addSingularField(Any.TYPE_URL_FIELD_NUMBER, typeUrlDiffResult);
 
     // Try to unpack the value fields using the TypeRegister and url from the type_url field. If
     // that does not work then we revert to the original behaviour compare the bytes strings.
     FieldScopeResult shouldCompareValue =
-        config.compareFieldsScope().policyFor(rootDescriptor, AnyUtils.valueSubScopeId());
+        config.decisionsFor(rootDescriptor, AnyUtils.valueSubScopeId()).compareFieldsPolicy();
     SingularField valueDiffResult;
     if (shouldCompareValue == FieldScopeResult.EXCLUDED_RECURSIVELY) {
       valueDiffResult = SingularField.ignored(name(AnyUtils.valueFieldDescriptor()));
     } else {
-      Optional<Message> unpackedActual = AnyUtils.unpack(actual, config);
-      Optional<Message> unpackedExpected = AnyUtils.unpack(expected, config);
+      Optional<Message> unpackedActual = unpackedAnys.unpack(actual, config);
+      Optional<Message> unpackedExpected = unpackedAnys.unpack(expected, config);
       if (unpackedActual.isPresent()
           && unpackedExpected.isPresent()
           && descriptorsMatch(unpackedActual.get(), unpackedExpected.get())) {
@@ -234,7 +288,8 @@ final class ProtoTruthMessageDifferencer {
                 shouldCompareValue == FieldScopeResult.EXCLUDED_NONRECURSIVELY,
                 AnyUtils.valueFieldDescriptor(),
                 name(AnyUtils.valueFieldDescriptor()),
-                config.subScope(rootDescriptor, AnyUtils.valueSubScopeId()));
+                config.decisionsFor(rootDescriptor, AnyUtils.valueSubScopeId()).subScope(),
+                unpackedAnys);
       } else {
         valueDiffResult =
             compareSingularValue(
@@ -244,7 +299,8 @@ final class ProtoTruthMessageDifferencer {
                 shouldCompareValue == FieldScopeResult.EXCLUDED_NONRECURSIVELY,
                 AnyUtils.valueFieldDescriptor(),
                 name(AnyUtils.valueFieldDescriptor()),
-                config.subScope(rootDescriptor, AnyUtils.valueSubScopeId()));
+                config.decisionsFor(rootDescriptor, AnyUtils.valueSubScopeId()).subScope(),
+                unpackedAnys);
       }
     }
     builder.addSingularField(Any.VALUE_FIELD_NUMBER, valueDiffResult);
@@ -259,6 +315,98 @@ final class ProtoTruthMessageDifferencer {
     return builder.build();
   }
 
+  /** The fingerprint of a message with no fields that contribute to its fingerprint. */
+  private static final int EMPTY_FINGERPRINT = 1;
+
+  /**
+   * Computes {@link #fingerprint} for a message compared using the given config. This mirrors the
+   * structure of {@link #diffMessages(Message, Message, FluentEqualityConfig)}.
+   */
+  private int fingerprintMessage(Message message, FluentEqualityConfig config) {
+    if (message.getDescriptorForType().equals(Any.getDescriptor())) {
+      // We compare Any messages by unpacking them, which we don't attempt here.
+      return EMPTY_FINGERPRINT;
+    }
+
+    int fingerprint = EMPTY_FINGERPRINT;
+    for (Map.Entry<FieldDescriptor, Object> entry : message.getAllFields().entrySet()) {
+      FieldDescriptor fieldDescriptor = entry.getKey();
+      FieldDecisions decisions =
+          config.decisionsFor(rootDescriptor, SubScopeId.of(fieldDescriptor));
+      FieldScopeResult shouldCompare = decisions.compareFieldsPolicy();
+      if (shouldCompare == FieldScopeResult.EXCLUDED_RECURSIVELY || fieldDescriptor.isMapField()) {
+        continue;
+      }
+      FluentEqualityConfig subConfig = decisions.subScope();
+
+      int fieldFingerprint;
+      if (fieldDescriptor.isRepeated()) {
+        if (shouldCompare == FieldScopeResult.EXCLUDED_NONRECURSIVELY
+            || decisions.ignoreExtraRepeatedFieldElements()) {
+          continue;
+        }
+        boolean ignoreRepeatedFieldOrder =
+            decisions.ignoreRepeatedFieldOrder();
+        fieldFingerprint = 0;
+        for (Object element : (List<?>) entry.getValue()) {
+          int elementFingerprint = fingerprintValue(element, fieldDescriptor, subConfig);
+          fieldFingerprint =
+              ignoreRepeatedFieldOrder
+                  ? fieldFingerprint + elementFingerprint
+                  : 31 * fieldFingerprint + elementFingerprint;
+        }
+      } else if (fieldDescriptor.getJavaType() == JavaType.MESSAGE) {
+        fieldFingerprint = fingerprintMessage((Message) entry.getValue(), subConfig);
+        // A message can be treated as equivalent to an unset field, either because we're ignoring
+        // field absence or because we're excluding the field nonrecursively.
+        if (fieldFingerprint == EMPTY_FINGERPRINT) {
+          continue;
+        }
+      } else {
+        // Similarly, a default value can be treated as equivalent to an unset field. And a value
+        // compared with a tolerance can match values with other fingerprints.
+        if (shouldCompare == FieldScopeResult.EXCLUDED_NONRECURSIVELY
+            || entry.getValue().equals(fieldDescriptor.getDefaultValue())
+            || isComparedWithTolerance(fieldDescriptor, subConfig)) {
+          continue;
+        }
+        fieldFingerprint = fingerprintValue(entry.getValue(), fieldDescriptor, subConfig);
+      }
+      fingerprint = 31 * (31 * fingerprint + fieldDescriptor.getNumber()) + fieldFingerprint;
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Computes the fingerprint of a single value of the given field, compared using the given config
+   * (which has already been narrowed to the field's sub-scope).
+   */
+  private int fingerprintValue(
+      Object value, FieldDescriptor fieldDescriptor, FluentEqualityConfig config) {
+    if (fieldDescriptor.getJavaType() == JavaType.MESSAGE) {
+      return fingerprintMessage((Message) value, config);
+    } else if (isComparedWithTolerance(fieldDescriptor, config)) {
+      return 0;
+    } else if (fieldDescriptor.getJavaType() == JavaType.ENUM) {
+      return ((EnumValueDescriptor) value).getNumber();
+    } else {
+      return value.hashCode();
+    }
+  }
+
+  private boolean isComparedWithTolerance(
+      FieldDescriptor fieldDescriptor, FluentEqualityConfig config) {
+    FieldDecisions decisions = config.decisionsFor(rootDescriptor, SubScopeId.of(fieldDescriptor));
+    switch (fieldDescriptor.getJavaType()) {
+      case DOUBLE:
+        return decisions.doubleCorrespondence().isPresent();
+      case FLOAT:
+        return decisions.floatCorrespondence().isPresent();
+      default:
+        return false;
+    }
+  }
+
   private static boolean descriptorsMatch(Message actual, Message expected) {
     return actual.getDescriptorForType().equals(expected.getDescriptorForType());
   }
@@ -302,24 +450,26 @@ final class ProtoTruthMessageDifferencer {
       Map<Object, Object> expectedMap,
       Set<Object> actualAndExpectedKeys,
       FieldDescriptor mapFieldDescriptor,
-      FluentEqualityConfig mapConfig) {
+      FluentEqualityConfig mapConfig,
+      UnpackedAnys unpackedAnys) {
     FieldDescriptor keyFieldDescriptor = mapFieldDescriptor.getMessageType().findFieldByNumber(1);
     FieldDescriptor valueFieldDescriptor = mapFieldDescriptor.getMessageType().findFieldByNumber(2);
     SubScopeId valueSubScopeId = SubScopeId.of(valueFieldDescriptor);
 
     // We never ignore the key, no matter what the logic dictates.
     FieldScopeResult compareValues =
-        mapConfig.compareFieldsScope().policyFor(rootDescriptor, valueSubScopeId);
+        mapConfig.decisionsFor(rootDescriptor, valueSubScopeId).compareFieldsPolicy();
     if (compareValues == FieldScopeResult.EXCLUDED_RECURSIVELY) {
       return ImmutableList.of(SingularField.ignored(name(mapFieldDescriptor)));
     }
 
     boolean ignoreExtraRepeatedFieldElements =
         mapConfig
-            .ignoreExtraRepeatedFieldElementsScope()
-            .contains(rootDescriptor, SubScopeId.of(mapFieldDescriptor));
+            .decisionsFor(rootDescriptor, SubScopeId.of(mapFieldDescriptor))
+            .ignoreExtraRepeatedFieldElements();
 
-    FluentEqualityConfig valuesConfig = mapConfig.subScope(rootDescriptor, valueSubScopeId);
+    FluentEqualityConfig valuesConfig =
+        mapConfig.decisionsFor(rootDescriptor, valueSubScopeId).subScope();
 
     ImmutableList.Builder<SingularField> builder =
         ImmutableList.builderWithExpectedSize(actualAndExpectedKeys.size());
@@ -338,7 +488,8 @@ final class ProtoTruthMessageDifferencer {
                 compareValues == FieldScopeResult.EXCLUDED_NONRECURSIVELY,
                 valueFieldDescriptor,
                 indexedName(mapFieldDescriptor, key, keyFieldDescriptor),
-                valuesConfig));
+                valuesConfig,
+                unpackedAnys));
       }
     }
 
@@ -351,30 +502,28 @@ final class ProtoTruthMessageDifferencer {
       boolean excludeNonRecursive,
       FieldDescriptor fieldDescriptor,
       boolean ignoreExtraRepeatedFieldElements,
-      FluentEqualityConfig config) {
+      FluentEqualityConfig config,
+      UnpackedAnys unpackedAnys) {
     RepeatedField.Builder builder =
         RepeatedField.newBuilder()
             .setFieldDescriptor(fieldDescriptor)
             .setActual(actualList)
             .setExpected(expectedList);
 
-    // TODO(user): Use maximum bipartite matching here, instead of greedy matching.
+    RepeatedFieldMatcher matcher =
+        new RepeatedFieldMatcher(
+            actualList, expectedList, excludeNonRecursive, fieldDescriptor, config, unpackedAnys);
+    matcher.match();
+
+    // Record matched elements, in order of their actual indexes.
     Set<Integer> unmatchedActual = setForRange(actualList.size());
     Set<Integer> unmatchedExpected = setForRange(expectedList.size());
     for (int i = 0; i < actualList.size(); i++) {
-      Object actual = actualList.get(i);
-      for (int j : unmatchedExpected) {
-        Object expected = expectedList.get(j);
-        RepeatedField.PairResult pairResult =
-            compareRepeatedFieldElementPair(
-                actual, expected, excludeNonRecursive, fieldDescriptor, i, j, config);
-        if (pairResult.isMatched()) {
-          // Found a match - remove both these elements from the candidate pools.
-          builder.addPairResult(pairResult);
-          unmatchedActual.remove(i);
-          unmatchedExpected.remove(j);
-          break;
-        }
+      int j = matcher.expectedIndexMatchedTo[i];
+      if (j != -1) {
+        builder.addPairResult(matcher.matchedPairResult(i));
+        unmatchedActual.remove(i);
+        unmatchedExpected.remove(j);
       }
     }
 
@@ -397,7 +546,8 @@ final class ProtoTruthMessageDifferencer {
                 fieldDescriptor,
                 i,
                 /*expectedFieldIndex=*/ null,
-                config));
+                config,
+                unpackedAnys));
       }
     }
     for (int j : unmatchedExpected) {
@@ -409,18 +559,222 @@ final class ProtoTruthMessageDifferencer {
               fieldDescriptor,
               /*actualFieldIndex=*/ null,
               j,
-              config));
+              config,
+              unpackedAnys));
     }
 
     return builder.build();
   }
 
+  /**
+   * Finds a maximum matching between the elements of a repeated field whose order we're ignoring.
+   *
+   * <p>Comparing a pair of elements may require diffing entire messages, so we do it only as
+   * needed, and only for pairs with the same {@linkplain #fingerprintValue fingerprint}. First, we
+   * greedily pair each actual element with the first unmatched expected element that it matches.
+   * If matching is an equivalence relation (as it is unless tolerances or ignored extra elements
+   * are involved), that's already a maximum matching. Otherwise, for each actual element still
+   * unmatched, we search breadth-first for an augmenting path, which may rearrange earlier pairs.
+   *
+   * <p>We remember only whether each compared pair matched, not the full result of comparing it,
+   * since those results can be large, and there may be a result for every pair of elements. We
+   * keep the results for the current pairs where we have them, and recompute the others at the
+   * end.
+   */
+  private final class RepeatedFieldMatcher {
+    private final List<?> actualList;
+    private final List<?> expectedList;
+    private final boolean excludeNonRecursive;
+    private final FieldDescriptor fieldDescriptor;
+    private final FluentEqualityConfig config;
+    private final UnpackedAnys unpackedAnys;
+    private final boolean matchingIsEquivalence;
+
+    private final int[] actualFingerprints;
+    private final ListMultimap<Integer, Integer> expectedIndexesByFingerprint =
+        ArrayListMultimap.create();
+
+    /** The index of the expected element matched to each actual element, or -1 if none. */
+    final int[] expectedIndexMatchedTo;
+    /** The index of the actual element matched to each expected element, or -1 if none. */
+    private final int[] actualIndexMatchedTo;
+    /**
+     * The result of comparing each actual element with the expected element that it's matched to,
+     * or null if it isn't matched or we no longer have the result.
+     */
+    private final RepeatedField.PairResult[] matchedPairResults;
+    /** For each actual element, the expected indexes we've compared it with, or null if none. */
+    private final BitSet[] comparedExpected;
+    /** For each actual element, the expected indexes it matches, among those we've compared. */
+    private final BitSet[] matchingExpected;
+
+    RepeatedFieldMatcher(
+        List<?> actualList,
+        List<?> expectedList,
+        boolean excludeNonRecursive,
+        FieldDescriptor fieldDescriptor,
+        FluentEqualityConfig config,
+        UnpackedAnys unpackedAnys) {
+      this.actualList = actualList;
+      this.expectedList = expectedList;
+      this.excludeNonRecursive = excludeNonRecursive;
+      this.fieldDescriptor = fieldDescriptor;
+      this.config = config;
+      this.unpackedAnys = unpackedAnys;
+      this.matchingIsEquivalence =
+          config.doubleCorrespondenceMap().isEmpty()
+              && config.floatCorrespondenceMap().isEmpty()
+              && config.ignoreExtraRepeatedFieldElementsScope() == FieldScopeLogic.none();
+
+      this.actualFingerprints = new int[actualList.size()];
+      for (int i = 0; i < actualList.size(); i++) {
+        actualFingerprints[i] = elementFingerprint(actualList.get(i));
+      }
+      for (int j = 0; j < expectedList.size(); j++) {
+        expectedIndexesByFingerprint.put(elementFingerprint(expectedList.get(j)), j);
+      }
+
+      this.expectedIndexMatchedTo = new int[actualList.size()];
+      this.actualIndexMatchedTo = new int[expectedList.size()];
+      Arrays.fill(expectedIndexMatchedTo, -1);
+      Arrays.fill(actualIndexMatchedTo, -1);
+      this.matchedPairResults = new RepeatedField.PairResult[actualList.size()];
+      this.comparedExpected = new BitSet[actualList.size()];
+      this.matchingExpected = new BitSet[actualList.size()];
+    }
+
+    private int elementFingerprint(Object element) {
+      // If we're excluding the field nonrecursively, primitive elements are ignored and thus match.
+      return excludeNonRecursive && fieldDescriptor.getJavaType() != JavaType.MESSAGE
+          ? 0
+          : fingerprintValue(element, fieldDescriptor, config);
+    }
+
+    void match() {
+      List<Integer> unmatchedActual = new ArrayList<>();
+      for (int i = 0; i < actualList.size(); i++) {
+        if (!matchGreedily(i)) {
+          unmatchedActual.add(i);
+        }
+      }
+      if (!matchingIsEquivalence) {
+        for (int i : unmatchedActual) {
+          augment(i);
+        }
+      }
+    }
+
+    /** Pairs the given actual element with the first unmatched expected element that it matches. */
+    private boolean matchGreedily(int i) {
+      Iterator<Integer> candidates =
+          expectedIndexesByFingerprint.get(actualFingerprints[i]).iterator();
+      while (candidates.hasNext()) {
+        int j = candidates.next();
+        if (actualIndexMatchedTo[j] == -1) {
+          RepeatedField.PairResult pairResult = compare(i, j);
+          if (pairResult.isMatched()) {
+            if (matchingIsEquivalence) {
+              // We'll never need to consider this expected element again.
+              candidates.remove();
+            }
+            pair(i, j);
+            matchedPairResults[i] = pairResult;
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Searches breadth-first for an augmenting path starting at the given unmatched actual element,
+     * visiting each expected element at most once. If one exists, flips the pairs along it.
+     */
+    private void augment(int start) {
+      // The actual element from which we reached each expected element, or -1 if not yet reached.
+      int[] reachedFrom = new int[expectedList.size()];
+      Arrays.fill(reachedFrom, -1);
+      Deque<Integer> queue = new ArrayDeque<>();
+      queue.add(start);
+      while (!queue.isEmpty()) {
+        int i = queue.remove();
+        for (int j : expectedIndexesByFingerprint.get(actualFingerprints[i])) {
+          if (reachedFrom[j] != -1 || !matches(i, j)) {
+            continue;
+          }
+          reachedFrom[j] = i;
+          if (actualIndexMatchedTo[j] == -1) {
+            flipPath(j, reachedFrom);
+            return;
+          }
+          queue.add(actualIndexMatchedTo[j]);
+        }
+      }
+    }
+
+    /** Flips the pairs along the path that {@link #augment} found to the given expected element. */
+    private void flipPath(int j, int[] reachedFrom) {
+      while (j != -1) {
+        int i = reachedFrom[j];
+        int previouslyMatched = expectedIndexMatchedTo[i];
+        pair(i, j);
+        matchedPairResults[i] = null;
+        j = previouslyMatched;
+      }
+    }
+
+    private void pair(int i, int j) {
+      expectedIndexMatchedTo[i] = j;
+      actualIndexMatchedTo[j] = i;
+    }
+
+    private boolean matches(int i, int j) {
+      BitSet compared = comparedExpected[i];
+      if (compared != null && compared.get(j)) {
+        return matchingExpected[i].get(j);
+      }
+      return compare(i, j).isMatched();
+    }
+
+    /** Compares the given pair of elements, remembering whether they matched. */
+    private RepeatedField.PairResult compare(int i, int j) {
+      RepeatedField.PairResult pairResult =
+          compareRepeatedFieldElementPair(
+              actualList.get(i),
+              expectedList.get(j),
+              excludeNonRecursive,
+              fieldDescriptor,
+              i,
+              j,
+              config,
+              unpackedAnys);
+      if (comparedExpected[i] == null) {
+        comparedExpected[i] = new BitSet();
+        matchingExpected[i] = new BitSet();
+      }
+      comparedExpected[i].set(j);
+      matchingExpected[i].set(j, pairResult.isMatched());
+      return pairResult;
+    }
+
+    /** Returns the result of comparing the given actual element with its matched expected one. */
+    RepeatedField.PairResult matchedPairResult(int i) {
+      RepeatedField.PairResult pairResult = matchedPairResults[i];
+      if (pairResult == null) {
+        pairResult = compare(i, expectedIndexMatchedTo[i]);
+        matchedPairResults[i] = pairResult;
+      }
+      return pairResult;
+    }
+  }
+
   private RepeatedField compareRepeatedFieldExpectingSubsequence(
       List<?> actualList,
       List<?> expectedList,
       boolean excludeNonRecursive,
       FieldDescriptor fieldDescriptor,
-      FluentEqualityConfig config) {
+      FluentEqualityConfig config,
+      UnpackedAnys unpackedAnys) {
     RepeatedField.Builder builder =
         RepeatedField.newBuilder()
             .setFieldDescriptor(fieldDescriptor)
@@ -449,7 +803,8 @@ final class ProtoTruthMessageDifferencer {
               expected,
               excludeNonRecursive,
               fieldDescriptor,
-              config);
+              config,
+              unpackedAnys);
 
       if (matchingResult != null) {
         // Move all prior elements to actualNotInOrder.
@@ -468,7 +823,8 @@ final class ProtoTruthMessageDifferencer {
                 expected,
                 excludeNonRecursive,
                 fieldDescriptor,
-                config);
+                config,
+                unpackedAnys);
         if (matchingResult != null) {
           // Report an out-of-order match, which is treated as not-matched.
           matchingResult = matchingResult.toBuilder().setResult(Result.MOVED_OUT_OF_ORDER).build();
@@ -512,7 +868,8 @@ final class ProtoTruthMessageDifferencer {
       Object expectedValue,
       boolean excludeNonRecursive,
       FieldDescriptor fieldDescriptor,
-      FluentEqualityConfig config) {
+      FluentEqualityConfig config,
+      UnpackedAnys unpackedAnys) {
     Iterator<Integer> actualIndexIter = actualIndices.iterator();
     while (actualIndexIter.hasNext()) {
       int actualIndex = actualIndexIter.next();
@@ -524,7 +881,8 @@ final class ProtoTruthMessageDifferencer {
               fieldDescriptor,
               actualIndex,
               expectedIndex,
-              config);
+              config,
+              unpackedAnys);
       if (pairResult.isMatched()) {
         actualIndexIter.remove();
         return pairResult;
@@ -541,7 +899,8 @@ final class ProtoTruthMessageDifferencer {
       FieldDescriptor fieldDescriptor,
       @Nullable Integer actualFieldIndex,
       @Nullable Integer expectedFieldIndex,
-      FluentEqualityConfig config) {
+      FluentEqualityConfig config,
+      UnpackedAnys unpackedAnys) {
     SingularField comparison =
         compareSingularValue(
             actual,
@@ -550,7 +909,8 @@ final class ProtoTruthMessageDifferencer {
             excludeNonRecursive,
             fieldDescriptor,
             "<no field path>",
-            config);
+            config,
+            unpackedAnys);
 
     RepeatedField.PairResult.Builder pairResultBuilder =
         RepeatedField.PairResult.newBuilder()
@@ -589,7 +949,8 @@ final class ProtoTruthMessageDifferencer {
       List<?> expectedList,
       boolean excludeNonRecursive,
       FieldDescriptor fieldDescriptor,
-      FluentEqualityConfig config) {
+      FluentEqualityConfig config,
+      UnpackedAnys unpackedAnys) {
     int maxSize = Math.max(actualList.size(), expectedList.size());
     ImmutableList.Builder<SingularField> builder = ImmutableList.builderWithExpectedSize(maxSize);
     for (int i = 0; i < maxSize; i++) {
@@ -603,7 +964,8 @@ final class ProtoTruthMessageDifferencer {
               excludeNonRecursive,
               fieldDescriptor,
               indexedName(fieldDescriptor, i),
-              config));
+              config,
+              unpackedAnys));
     }
 
     return builder.build();
@@ -616,7 +978,8 @@ final class ProtoTruthMessageDifferencer {
       boolean excludeNonRecursive,
       FieldDescriptor fieldDescriptor,
       String fieldName,
-      FluentEqualityConfig config) {
+      FluentEqualityConfig config,
+      UnpackedAnys unpackedAnys) {
     if (fieldDescriptor.getJavaType() == JavaType.MESSAGE) {
       return compareSingularMessage(
           (Message) actual,
@@ -625,7 +988,8 @@ final class ProtoTruthMessageDifferencer {
           excludeNonRecursive,
           fieldDescriptor,
           fieldName,
-          config);
+          config,
+          unpackedAnys);
     } else if (excludeNonRecursive) {
       return SingularField.ignored(fieldName);
     } else {
@@ -654,12 +1018,13 @@ final class ProtoTruthMessageDifferencer {
       boolean excludeNonRecursive,
       FieldDescriptor fieldDescriptor,
       String fieldName,
-      FluentEqualityConfig config) {
+      FluentEqualityConfig config,
+      UnpackedAnys unpackedAnys) {
     Result.Builder result = Result.builder();
 
     // Use the default if it's set and we're ignoring field absence.
     boolean ignoreFieldAbsence =
-        config.ignoreFieldAbsenceScope().contains(rootDescriptor, SubScopeId.of(fieldDescriptor));
+        config.decisionsFor(rootDescriptor, SubScopeId.of(fieldDescriptor)).ignoreFieldAbsence();
     actual = orIfIgnoringFieldAbsence(actual, defaultValue, ignoreFieldAbsence);
     expected = orIfIgnoringFieldAbsence(expected, defaultValue, ignoreFieldAbsence);
 
@@ -673,7 +1038,7 @@ final class ProtoTruthMessageDifferencer {
       actual = orDefaultForType(actual, expected);
       expected = orDefaultForType(expected, actual);
 
-      breakdown = diffMessages(actual, expected, config);
+      breakdown = diffMessages(actual, expected, config, unpackedAnys);
       if (breakdown.isIgnored() && excludeNonRecursive) {
         // Ignore this field entirely, report nothing.
         return SingularField.ignored(fieldName);
@@ -711,14 +1076,12 @@ final class ProtoTruthMessageDifferencer {
 
     // Use the default if it's set and we're ignoring field absence, or if it's a Proto3 primitive
     // for which default is indistinguishable from unset.
-    SubScopeId subScopeId = SubScopeId.of(fieldDescriptor);
+    FieldDecisions decisions = config.decisionsFor(rootDescriptor, SubScopeId.of(fieldDescriptor));
     boolean isNonRepeatedProto3 =
         !fieldDescriptor.isRepeated()
             && fieldDescriptor.getContainingOneof() == null
             && fieldDescriptor.getFile().getSyntax() == Syntax.PROTO3;
-    boolean ignoreFieldAbsence =
-        isNonRepeatedProto3
-            || config.ignoreFieldAbsenceScope().contains(rootDescriptor, subScopeId);
+    boolean ignoreFieldAbsence = isNonRepeatedProto3 || decisions.ignoreFieldAbsence();
     actual = orIfIgnoringFieldAbsence(actual, defaultValue, ignoreFieldAbsence);
     expected = orIfIgnoringFieldAbsence(expected, defaultValue, ignoreFieldAbsence);
 
@@ -732,15 +1095,13 @@ final class ProtoTruthMessageDifferencer {
             !doublesEqual(
                 (double) actual,
                 (double) expected,
-                config.doubleCorrespondenceMap().get(rootDescriptor, subScopeId)
-                ));
+                decisions.doubleCorrespondence()));
       } else if (actual instanceof Float) {
         result.markModifiedIf(
             !floatsEqual(
                 (float) actual,
                 (float) expected,
-                config.floatCorrespondenceMap().get(rootDescriptor, subScopeId)
-                ));
+                decisions.floatCorrespondence()));
       } else {
         result.markModifiedIf(!Objects.equal(actual, expected));
       }
@@ -804,9 +1165,9 @@ final class ProtoTruthMessageDifferencer {
 
         UnknownFieldDescriptor unknownFieldDescriptor =
             UnknownFieldDescriptor.create(fieldNumber, type);
-        SubScopeId subScopeId = SubScopeId.of(unknownFieldDescriptor);
-        FieldScopeResult compareFields =
-            config.compareFieldsScope().policyFor(rootDescriptor, subScopeId);
+        FieldDecisions decisions =
+            config.decisionsFor(rootDescriptor, SubScopeId.of(unknownFieldDescriptor));
+        FieldScopeResult compareFields = decisions.compareFieldsPolicy();
         if (compareFields == FieldScopeResult.EXCLUDED_RECURSIVELY) {
           builder.addSingularField(
               fieldNumber, SingularField.ignored(name(unknownFieldDescriptor)));
@@ -820,7 +1181,7 @@ final class ProtoTruthMessageDifferencer {
                 expectedValues,
                 compareFields == FieldScopeResult.EXCLUDED_NONRECURSIVELY,
                 unknownFieldDescriptor,
-                config.subScope(rootDescriptor, subScopeId)));
+                decisions.subScope()));
       }
     }
 
@@ -44,6 +44,14 @@ abstract class RecursableDiffEntity {
 
   private Boolean isAnyChildIgnored = null;
   private Boolean isAnyChildMatched = null;
+  private Integer fieldCount = null;
+
+  /**
+   * The largest number of fields in a matched submessage for which we print every field in the full
+   * diff report. Beyond that, we print only the number of fields: The point of the report is the
+   * differences, and listing thousands of matches just buries them.
+   */
+  static final int MAX_MATCHED_FIELDS_TO_PRINT = 100;
 
   // Only extended by inner classes.
   private RecursableDiffEntity() {}
@@ -97,25 +105,59 @@ abstract class RecursableDiffEntity {
     return isAnyChildIgnored;
   }
 
+  /**
+   * Returns the number of scalar fields and repeated field elements in this entity's subtree: the
+   * number of {@link WithResultCode} entities in it without children.
+   *
+   * <p>Caches the result for future calls.
+   */
+  final int fieldCount() {
+    if (fieldCount == null) {
+      int count = 0;
+      for (RecursableDiffEntity entity : childEntities()) {
+        count += entity.fieldCount();
+      }
+      fieldCount = count == 0 && this instanceof WithResultCode ? 1 : count;
+    }
+    return fieldCount;
+  }
+
   /**
    * Prints the contents of this diff entity to {@code sb}.
    *
    * @param includeMatches Whether to include reports for fields which matched.
    * @param fieldPrefix The human-readable field path leading to this entity. Empty if this is the
    *     root entity.
-   * @param sb Builder to print the text to.
+   * @param sb Output to print the text to. It throws {@link BoundedAppendable.Exhausted} once the
+   *     report is as long as it may get.
    */
-  abstract void printContents(boolean includeMatches, String fieldPrefix, StringBuilder sb);
+  abstract void printContents(boolean includeMatches, String fieldPrefix, BoundedAppendable sb);
 
   /** Returns true if this entity has no contents to print, with or without includeMatches. */
   abstract boolean isContentEmpty();
 
-  final void printChildContents(boolean includeMatches, String fieldPrefix, StringBuilder sb) {
+  final void printChildContents(
+      boolean includeMatches, String fieldPrefix, BoundedAppendable sb) {
     for (RecursableDiffEntity entity : childEntities()) {
       entity.printContents(includeMatches, fieldPrefix, sb);
     }
   }
 
+  /**
+   * Like {@link #printChildContents}, but for the children of a matched submessage, which come
+   * after a line that has yet to be terminated. If we're printing matches and there are more than
+   * {@link #MAX_MATCHED_FIELDS_TO_PRINT} of them, we instead finish the line with a count.
+   */
+  final void printMatchedChildContents(
+      boolean includeMatches, String fieldPrefix, BoundedAppendable sb) {
+    if (includeMatches && fieldCount() > MAX_MATCHED_FIELDS_TO_PRINT && !isAnyChildIgnored()) {
+      sb.append(" (").append(String.valueOf(fieldCount())).append(" fields, not shown)\n");
+      return;
+    }
+    sb.append("\n");
+    printChildContents(includeMatches, fieldPrefix, sb);
+  }
+
   /**
    * A generic entity in the {@link DiffResult} tree without a result code.
    *
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2021 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth.extensions.proto;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.truth.extensions.proto.FieldNumberTree.IntKeyedChildren;
+import com.google.common.truth.extensions.proto.UnknownFieldDescriptor.Type;
+import com.google.protobuf.Message;
+import com.google.protobuf.UnknownFieldSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link FieldNumberTree}. */
+@RunWith(JUnit4.class)
+public class FieldNumberTreeTest {
+  @Test
+  public void intKeyedChildren_growsAndStaysSorted() {
+    IntKeyedChildren children = new IntKeyedChildren();
+    List<FieldNumberTree> trees = new ArrayList<>();
+    // More than the initial capacity of 4, inserted out of order.
+    for (int i = 0; i < 20; i++) {
+      trees.add(FieldNumberTree.fromMessage(TestMessage2.getDefaultInstance()));
+      children.put((i * 7) % 20, trees.get(i));
+    }
+    for (int i = 0; i < 20; i++) {
+      assertThat(children.get((i * 7) % 20)).isSameInstanceAs(trees.get(i));
+    }
+    assertThat(children.get(-1)).isNull();
+    assertThat(children.get(20)).isNull();
+
+    children.put(7, FieldNumberTree.empty());
+    assertThat(children.get(7)).isSameInstanceAs(FieldNumberTree.empty());
+    assertThat(children.get(14)).isSameInstanceAs(trees.get(2));
+  }
+
+  @Test
+  public void isEmpty() {
+    assertThat(FieldNumberTree.fromMessage(TestMessage2.getDefaultInstance()).isEmpty()).isTrue();
+    assertThat(FieldNumberTree.fromMessages(ImmutableList.<Message>of()).isEmpty()).isTrue();
+    assertThat(FieldNumberTree.fromMessages(Arrays.asList((Message) null)).isEmpty()).isTrue();
+
+    // Set to its default value, but set nonetheless.
+    TestMessage2 defaultInt = TestMessage2.newBuilder().setOInt(0).build();
+    assertThat(FieldNumberTree.fromMessage(defaultInt).isEmpty()).isFalse();
+
+    TestMessage2 onlyUnknown =
+        TestMessage2.newBuilder()
+            .setUnknownFields(
+                UnknownFieldSet.newBuilder()
+                    .addField(100, UnknownFieldSet.Field.newBuilder().addVarint(0).build())
+                    .build())
+            .build();
+    assertThat(FieldNumberTree.fromMessage(onlyUnknown).isEmpty()).isFalse();
+  }
+
+  @Test
+  public void childrenOfKnownFields() {
+    TestMessage2 message =
+        TestMessage2.newBuilder()
+            .setOInt(3)
+            .setOSubTestMessage(SubTestMessage2.newBuilder().addRString("foo"))
+            .build();
+    FieldNumberTree tree = FieldNumberTree.fromMessage(message);
+
+    // A set scalar field and an unset field both have the shared empty tree as their child, but
+    // only the set field counts as a child, even when we ask again and hit the cache.
+    for (int i = 0; i < 2; i++) {
+      assertThat(tree.hasChild(field("o_int"))).isTrue();
+      assertThat(tree.child(field("o_int"))).isSameInstanceAs(FieldNumberTree.empty());
+      assertThat(tree.hasChild(field("r_string"))).isFalse();
+      assertThat(tree.child(field("r_string"))).isSameInstanceAs(FieldNumberTree.empty());
+    }
+
+    FieldNumberTree subTree = tree.child(field("o_sub_test_message"));
+    assertThat(subTree.isEmpty()).isFalse();
+    SubScopeId rString = SubScopeId.of(SubTestMessage2.getDescriptor().findFieldByName("r_string"));
+    SubScopeId oInt = SubScopeId.of(SubTestMessage2.getDescriptor().findFieldByName("o_int"));
+    assertThat(subTree.hasChild(rString)).isTrue();
+    assertThat(subTree.hasChild(oInt)).isFalse();
+  }
+
+  @Test
+  public void childrenOfUnknownFields_keyedByTag() {
+    UnknownFieldSet group =
+        UnknownFieldSet.newBuilder()
+            .addField(2, UnknownFieldSet.Field.newBuilder().addVarint(5).build())
+            .build();
+    UnknownFieldSet unknownFields =
+        UnknownFieldSet.newBuilder()
+            .addField(
+                100, UnknownFieldSet.Field.newBuilder().addVarint(1).addGroup(group).build())
+            .addField(101, UnknownFieldSet.Field.newBuilder().addFixed32(7).build())
+            .build();
+    FieldNumberTree tree =
+        FieldNumberTree.fromMessage(
+            TestMessage2.newBuilder().setUnknownFields(unknownFields).build());
+
+    // Field 100 has both a varint and a group, which must not share a cache entry.
+    assertThat(tree.hasChild(unknown(100, Type.VARINT))).isTrue();
+    assertThat(tree.child(unknown(100, Type.VARINT))).isSameInstanceAs(FieldNumberTree.empty());
+    assertThat(tree.hasChild(unknown(100, Type.GROUP))).isTrue();
+    assertThat(tree.hasChild(unknown(100, Type.FIXED32))).isFalse();
+    assertThat(tree.hasChild(unknown(101, Type.FIXED32))).isTrue();
+    assertThat(tree.hasChild(unknown(101, Type.VARINT))).isFalse();
+
+    FieldNumberTree groupTree = tree.child(unknown(100, Type.GROUP));
+    assertThat(groupTree.isEmpty()).isFalse();
+    assertThat(groupTree.hasChild(unknown(2, Type.VARINT))).isTrue();
+    assertThat(groupTree.hasChild(unknown(2, Type.FIXED64))).isFalse();
+  }
+
+  private static SubScopeId field(String name) {
+    return SubScopeId.of(TestMessage2.getDescriptor().findFieldByName(name));
+  }
+
+  private static SubScopeId unknown(int fieldNumber, Type type) {
+    return SubScopeId.of(UnknownFieldDescriptor.create(fieldNumber, type));
+  }
+}
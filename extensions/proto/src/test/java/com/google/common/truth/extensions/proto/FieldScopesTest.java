@@ -29,8 +29,13 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.UnknownFieldSet;
 import com.google.protobuf.UnknownFieldSet.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -907,6 +912,59 @@ public class FieldScopesTest extends ProtoSubjectTestBase {
                 + ".isEqualTo(target)");
   }
 
+  @Test
+  public void testFromSetFields_formatsMessagesOnlyWhenDescribed() {
+    AtomicInteger toStringCalls = new AtomicInteger();
+    Message message = countingToStringCalls(parse("o_int: 3"), toStringCalls);
+    Message eqMessage = parse("o_int: 3 r_string: \"foo\"");
+    Message diffMessage = parse("o_int: 4 r_string: \"foo\"");
+    FieldScope single = FieldScopes.fromSetFields(message);
+    FieldScope multiple = FieldScopes.fromSetFields(listOf(message, message));
+    FieldScopeLogic logic = FieldScopeLogic.partialScope(message);
+
+    expectThat(eqMessage).withPartialScope(single).isEqualTo(parse("o_int: 3"));
+    expectThat(eqMessage).withPartialScope(multiple).isEqualTo(parse("o_int: 3"));
+    expectThat(diffMessage).withPartialScope(multiple).isNotEqualTo(parse("o_int: 3"));
+    expect.that(toStringCalls.get()).isEqualTo(0);
+
+    expectFailureWhenTesting()
+        .that(listOf(diffMessage))
+        .withPartialScope(single)
+        .containsExactly(eqMessage);
+    expectThatFailure().factValue("testing whether").contains("fromSetFields({o_int: 3\n})");
+    expectFailureWhenTesting()
+        .that(listOf(diffMessage))
+        .withPartialScope(multiple)
+        .containsExactly(eqMessage);
+    expectThatFailure()
+        .factValue("testing whether")
+        .contains("fromSetFields([{o_int: 3\n}, {o_int: 3\n}])");
+    expect.that(logic.toString()).isEqualTo("FieldScopes.fromSetFields(o_int: 3\n)");
+    expect.that(toStringCalls.get()).isGreaterThan(0);
+  }
+
+  /** Returns a view of the message that counts calls to its {@code toString()}. */
+  private static Message countingToStringCalls(
+      final Message message, final AtomicInteger toStringCalls) {
+    return (Message)
+        Proxy.newProxyInstance(
+            Message.class.getClassLoader(),
+            new Class<?>[] {Message.class},
+            new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("toString")) {
+                  toStringCalls.incrementAndGet();
+                }
+                try {
+                  return method.invoke(message, args);
+                } catch (InvocationTargetException e) {
+                  throw e.getCause();
+                }
+              }
+            });
+  }
+
   @Test
   public void testFromSetFields_iterables_vacuousIfEmptyOrAllNull() {
     Message message1 = parse("o_int: 1 r_string: \"foo\" r_string: \"bar\"");
@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.protobuf.Any;
 import com.google.protobuf.Descriptors.Descriptor;
@@ -294,6 +295,124 @@ public class ProtoSubjectTest extends ProtoSubjectTestBase {
     expectThatFailure().hasMessageThat().contains("added: r_string[1]: \"foo\"");
   }
 
+  @Test
+  public void testRepeatedFieldOrder_findsMaximumMatching() {
+    // Pairing each actual element with the first expected element it matches would pair the first
+    // actual element with the first expected element, leaving the second actual element unmatched.
+    Message message = parse("r_test_message: { o_double: 0.0 } r_test_message: { o_double: 1.0 }");
+    Message eqMessage =
+        parse("r_test_message: { o_double: 0.0 } r_test_message: { o_double: -1.0 }");
+
+    expectThat(eqMessage).ignoringRepeatedFieldOrder().usingDoubleTolerance(1.0).isEqualTo(message);
+    expectThat(eqMessage).usingDoubleTolerance(1.0).isNotEqualTo(message);
+  }
+
+  @Test
+  public void testRepeatedFieldOrder_findsLongAugmentingPath() {
+    // Each actual element k matches the expected elements k - 1 and k. Pairing greedily in this
+    // order leaves the last actual element unmatched, and fixing that rearranges every pair.
+    int size = 300;
+    StringBuilder text = new StringBuilder();
+    StringBuilder eqText = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      text.append("r_test_message: { o_double: ").append(i + 0.5).append(" } ");
+      eqText.append("r_test_message: { o_double: ").append((i + 1) % size).append(" } ");
+    }
+    Message message = parse(text.toString());
+    Message eqMessage = parse(eqText.toString());
+
+    expectThat(eqMessage).ignoringRepeatedFieldOrder().usingDoubleTolerance(0.6).isEqualTo(message);
+    expectThat(eqMessage).usingDoubleTolerance(0.6).isNotEqualTo(message);
+  }
+
+  @Test
+  public void testRepeatedFieldOrder_manyElements() {
+    FieldDescriptor field = getFieldDescriptor("r_string");
+    Message.Builder builder = parse("").toBuilder();
+    Message.Builder reversedBuilder = parse("").toBuilder();
+    for (int i = 0; i < 10000; i++) {
+      builder.addRepeatedField(field, "foo" + i);
+      reversedBuilder.addRepeatedField(field, "foo" + (9999 - i));
+    }
+    Message message = builder.build();
+    Message reversedMessage = reversedBuilder.build();
+
+    expectThat(reversedMessage).ignoringRepeatedFieldOrder().isEqualTo(message);
+
+    expectFailureWhenTesting()
+        .that(reversedMessage.toBuilder().setRepeatedField(field, 0, "bar").build())
+        .ignoringRepeatedFieldOrder()
+        .isEqualTo(message);
+    expectIsEqualToFailed();
+    expectThatFailure().hasMessageThat().contains("added: r_string[0]: \"bar\"");
+    expectThatFailure().hasMessageThat().contains("deleted: r_string[9999]: \"foo9999\"");
+  }
+
+  @Test
+  public void testRepeatedFieldOrder_manyMessagesWithIgnoredField() {
+    FieldDescriptor repeatedMessageField = getFieldDescriptor("r_test_message");
+    FieldDescriptor ignoredField = getFieldDescriptor("r_string");
+    Message.Builder builder = parse("").toBuilder();
+    Message.Builder reversedBuilder = parse("").toBuilder();
+    for (int i = 0; i < 2000; i++) {
+      builder.addRepeatedField(repeatedMessageField, parse("o_int: " + i + " r_string: 'foo'"));
+      reversedBuilder.addRepeatedField(
+          repeatedMessageField, parse("o_int: " + (1999 - i) + " r_string: 'bar'"));
+    }
+    Message message = builder.build();
+    Message reversedMessage = reversedBuilder.build();
+
+    expectThat(reversedMessage)
+        .ignoringRepeatedFieldOrder()
+        .ignoringFieldDescriptors(ignoredField)
+        .isEqualTo(message);
+    expectThat(reversedMessage).ignoringRepeatedFieldOrder().isNotEqualTo(message);
+  }
+
+  @Test
+  public void testFullDiff_largeMatchedSubMessageIsSummarized() {
+    FieldDescriptor field =
+        checkNotNull(
+            getFieldDescriptor("o_test_message").getMessageType().findFieldByName("r_string"));
+    Message.Builder subMessage = parse("").toBuilder();
+    for (int i = 0; i < 150; i++) {
+      subMessage.addRepeatedField(field, "foo" + i);
+    }
+    Message message =
+        parse("o_int: 3").toBuilder()
+            .setField(getFieldDescriptor("o_test_message"), subMessage.build())
+            .build();
+    Message diffMessage = message.toBuilder().setField(getFieldDescriptor("o_int"), 4).build();
+
+    expectFailureWhenTesting().that(diffMessage).isEqualTo(message);
+    expectIsEqualToFailed();
+    expectThatFailure().hasMessageThat().contains("modified: o_int: 3 -> 4");
+    expectThatFailure()
+        .hasMessageThat()
+        .contains("matched: o_test_message (150 fields, not shown)\n");
+    expectThatFailure().hasMessageThat().doesNotContain("foo0");
+  }
+
+  @Test
+  public void testDiffReport_stopsAtLengthLimit() {
+    FieldDescriptor field = getFieldDescriptor("r_string");
+    String longString = Strings.repeat("x", 1000);
+    Message.Builder builder = parse("").toBuilder();
+    Message.Builder diffBuilder = parse("").toBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.addRepeatedField(field, longString + i);
+      diffBuilder.addRepeatedField(field, longString + (i == 0 ? "bar" : i));
+    }
+
+    expectFailureWhenTesting().that(diffBuilder.build()).isEqualTo(builder.build());
+    expectIsEqualToFailed();
+    expectThatFailure().hasMessageThat().contains("modified: r_string[0]: \"" + longString);
+    expectThatFailure()
+        .hasMessageThat()
+        .contains("(Stopped printing the diff report after 100000 characters.)");
+    expectThatFailure().hasMessageThat().doesNotContain("r_string[999]");
+  }
+
   @Test
   public void testRepeatedFieldOrder_scoped() {
     Message message =
@@ -868,7 +987,37 @@ public class ProtoSubjectTest extends ProtoSubjectTestBase {
   }
 
   @Test
-  public void testMapWithDefaultKeysAndValues() throws InvalidProtocolBufferException {
+  public void testRepeatedAnyMessages_ignoringRepeatedFieldOrder() {
+    String typeUrl =
+        isProto3()
+            ? "type.googleapis.com/com.google.common.truth.extensions.proto.SubTestMessage3"
+            : "type.googleapis.com/com.google.common.truth.extensions.proto.SubTestMessage2";
+    StringBuilder text = new StringBuilder();
+    StringBuilder reversedText = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      text.append("r_any_message: { [" + typeUrl + "]: {o_int: " + i + "} } ");
+      reversedText.append("r_any_message: { [" + typeUrl + "]: {o_int: " + (49 - i) + "} } ");
+    }
+    Message message = parse(text.toString());
+    Message reversedMessage = parse(reversedText.toString());
+    Message diffMessage = parse(reversedText.toString().replace("o_int: 7}", "o_int: 50}"));
+
+    expectThat(reversedMessage)
+        .unpackingAnyUsing(getTypeRegistry(), getExtensionRegistry())
+        .ignoringRepeatedFieldOrder()
+        .isEqualTo(message);
+
+    expectFailureWhenTesting()
+        .that(diffMessage)
+        .unpackingAnyUsing(getTypeRegistry(), getExtensionRegistry())
+        .ignoringRepeatedFieldOrder()
+        .isEqualTo(message);
+    expectThatFailure().hasMessageThat().contains("added: r_any_message[42]:");
+    expectThatFailure().hasMessageThat().contains("deleted: r_any_message[7]:");
+  }
+
+  @Test
+  public void testMapWithDefaultKeysAndValues()throws InvalidProtocolBufferException {
     Descriptor descriptor = getFieldDescriptor("o_int").getContainingType();
     final String defaultString = "";
     final int defaultInt32 = 0;